@@ -0,0 +1,37 @@
+package aocbench;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point for the JMH benchmarks. Passes all arguments through to JMH,
+ * defaulting to JSON results written to bench_output.json in the directory
+ * bazel was invoked from, so runs can be diffed between commits.
+ */
+public class BenchmarkMain {
+
+  private static final String RESULT_FILE = "bench_output.json";
+
+  public static void main(String[] args) throws Exception {
+    List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+    if (!jmhArgs.contains("-rf")) {
+      jmhArgs.add("-rf");
+      jmhArgs.add("json");
+    }
+    if (!jmhArgs.contains("-rff")) {
+      jmhArgs.add("-rff");
+      jmhArgs.add(resultFile());
+    }
+    org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+  }
+
+  private static String resultFile() {
+    String workingDirectory = System.getenv("BUILD_WORKING_DIRECTORY");
+    if (workingDirectory == null) {
+      return RESULT_FILE;
+    }
+    return Paths.get(workingDirectory, RESULT_FILE).toString();
+  }
+}
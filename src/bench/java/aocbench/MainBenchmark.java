@@ -0,0 +1,101 @@
+package aocbench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs each solver not yet migrated to {@link aoccommon.Solver} end-to-end
+ * through its main method, so parsing, both parts and any Stats output are
+ * one number. Solver output is discarded while measuring. Move a day to
+ * {@link SolverBenchmark} once it implements Solver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MainBenchmark {
+
+  @Param({
+      "aoc2021.day19.BeaconScanner",
+      "aoc2022.day02.RockPaperScissors",
+      "aoc2022.day03.RucksackReorganizer",
+      "aoc2022.day04.CampCleanup",
+      "aoc2022.day05.SupplyStacks",
+      "aoc2022.day06.TuningTrouble",
+      "aoc2022.day07.DiskCleaner",
+      "aoc2022.day08.TreeHouse",
+      "aoc2022.day09.RopeBridge",
+      "aoc2022.day10.CathodeRayTube",
+      "aoc2022.day12.HillClimbing",
+      "aoc2022.day13.DistressSignal",
+      "aoc2022.day14.RegolithReservoir",
+      "aoc2022.day15.BeaconExclusionZone",
+      "aoc2022.day16.ProboscideaVolcanium",
+      "aoc2022.day17.PyroclasticFlow",
+      "aoc2022.day18.BoilingBoulders",
+      "aoc2022.day20.GrovePositioningSystem",
+      "aoc2022.day21.MonkeyMath",
+      "aoc2022.day22.MonkeyMap",
+      "aoc2022.day25.FullOfHotAir",
+      "aoc2023.day01.Trebuchet",
+      "aoc2023.day02.CubeConundrum",
+      "aoc2023.day03.GearRatios",
+      "aoc2023.day04.Scratchcards",
+      "aoc2023.day05.SeedFertilizer",
+      "aoc2023.day07.CamelCards",
+      "aoc2023.day08.HauntedWasteland",
+      "aoc2023.day10.PipeMaze",
+      "aoc2023.day11.CosmicExpansion",
+      "aoc2023.day12.HotSprings",
+      "aoc2023.day13.PointOfIncidence",
+      "aoc2023.day14.ParabolicReflectorDish",
+      "aoc2023.day15.LensLibrary",
+      "aoc2023.day16.FloorWillBeLava",
+      "aoc2023.day17.ClumsyCrucible",
+      "aoc2023.day18.LavaductLagoon",
+      "aoc2023.day19.Aplenty",
+      "aoc2023.day20.PulsePropagation",
+      "aoc2023.day21.StepCounter",
+      "aoc2023.day22.SandSlabs"
+  })
+  public String solver;
+
+  private Method main;
+  private PrintStream originalOut;
+
+  @Setup(Level.Trial)
+  public void setUp() throws ReflectiveOperationException {
+    main = Class.forName(solver).getDeclaredMethod("main", String[].class);
+    main.setAccessible(true);
+    originalOut = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.setOut(originalOut);
+  }
+
+  @Benchmark
+  public void solve() throws ReflectiveOperationException {
+    main.invoke(null, (Object) new String[0]);
+  }
+}
@@ -0,0 +1,74 @@
+package aocbench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import aoccommon.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Micro-benchmarks for {@link Matrix}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+  @Param({"10", "100"})
+  public int side;
+
+  private Matrix<Character> matrix;
+
+  @Setup
+  public void setUp() {
+    List<List<Character>> rows = new ArrayList<>();
+    for (int r = 0; r < side; r++) {
+      List<Character> row = new ArrayList<>();
+      for (int c = 0; c < side; c++) {
+        row.add((r + c) % 3 == 0 ? '#' : '.');
+      }
+      rows.add(row);
+    }
+    matrix = new Matrix<>(rows);
+  }
+
+  @Benchmark
+  public Matrix<Character> copy() {
+    return matrix.copy();
+  }
+
+  @Benchmark
+  public int scan() {
+    int count = 0;
+    for (int r = 0; r < matrix.height(); r++) {
+      for (int c = 0; c < matrix.width(); c++) {
+        if (matrix.get(r, c) == '#') {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public List<List<Character>> cols() {
+    return matrix.cols();
+  }
+
+  @Benchmark
+  public int hashCodeOf() {
+    return matrix.hashCode();
+  }
+}
@@ -0,0 +1,42 @@
+package aocbench;
+
+import java.util.concurrent.TimeUnit;
+
+import aoccommon.MoreMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Micro-benchmarks for {@link MoreMath}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoreMathBenchmark {
+
+  // Cycle lengths in the style of HauntedWasteland.
+  private final long[] cycles = {20093, 12169, 22357, 14999, 13301, 17263};
+
+  @Benchmark
+  public long gcd() {
+    return MoreMath.gcd(1_234_567_890L, 987_654_321L);
+  }
+
+  @Benchmark
+  public long gcdArray() {
+    return MoreMath.gcd(cycles);
+  }
+
+  @Benchmark
+  public long lcmArray() {
+    return MoreMath.lcm(cycles);
+  }
+}
@@ -0,0 +1,110 @@
+package aocbench;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import aoccommon.Direction;
+import aoccommon.IntArray;
+import aoccommon.LongHashSet;
+import aoccommon.PackedPoint;
+import aoccommon.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Micro-benchmarks for {@link Point}, {@link IntArray} and their packed alternatives. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointBenchmark {
+
+  private static final int SIDE = 64;
+
+  private Point point;
+  private long packed;
+  private IntArray array;
+
+  @Setup
+  public void setUp() {
+    point = Point.of(17, 42);
+    packed = PackedPoint.of(17, 42);
+    array = IntArray.of(1, 2, 3, 4, 5, 6, 7, 8);
+  }
+
+  @Benchmark
+  public Point pointOf() {
+    return Point.of(17, 42);
+  }
+
+  @Benchmark
+  public void directionApply(Blackhole bh) {
+    for (Direction direction : Direction.values()) {
+      bh.consume(direction.apply(point));
+    }
+  }
+
+  @Benchmark
+  public void directionApplyPacked(Blackhole bh) {
+    for (Direction direction : Direction.values()) {
+      bh.consume(direction.apply(packed));
+    }
+  }
+
+  @Benchmark
+  public int pointHashCode() {
+    return point.hashCode();
+  }
+
+  @Benchmark
+  public Set<Point> pointHashSetFill() {
+    Set<Point> set = new HashSet<>();
+    for (int y = 0; y < SIDE; y++) {
+      for (int x = 0; x < SIDE; x++) {
+        set.add(Point.of(x, y));
+      }
+    }
+    return set;
+  }
+
+  @Benchmark
+  public LongHashSet packedHashSetFill() {
+    LongHashSet set = new LongHashSet();
+    for (int y = 0; y < SIDE; y++) {
+      for (int x = 0; x < SIDE; x++) {
+        set.add(PackedPoint.of(x, y));
+      }
+    }
+    return set;
+  }
+
+  @Benchmark
+  public IntArray intArrayBuilder() {
+    IntArray.Builder builder = IntArray.builder();
+    for (int i = 0; i < 32; i++) {
+      builder.add(i);
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public IntArray intArrayCopy() {
+    return array.copy();
+  }
+
+  @Benchmark
+  public int intArrayHashCode() {
+    return array.hashCode();
+  }
+}
@@ -0,0 +1,42 @@
+package aocbench;
+
+import java.util.concurrent.TimeUnit;
+
+import aoccommon.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Micro-benchmarks for {@link Range}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeBenchmark {
+
+  private final Range<Long> range = Range.of(1_000L, 1_000_000L);
+
+  @Benchmark
+  public int containsScan() {
+    int count = 0;
+    for (long value = 0; value < 2_000; value++) {
+      if (range.contains(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public Range<Long> create() {
+    return Range.closed(5L, 10L);
+  }
+}
@@ -0,0 +1,89 @@
+package aocbench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aoccommon.Solver;
+
+/**
+ * Times parse, part 1 and part 2 separately for each solver implementing
+ * {@link Solver}, against its default input. The parts reuse one parsed
+ * input, which solvers must treat as read-only. Solver output is discarded
+ * while measuring. Restrict to a subset with
+ * {@code -p solver=aoc2022.day23.UnstableDiffusion,...}. Days not yet
+ * migrated to {@link Solver} are timed end-to-end by {@link MainBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+
+  @Param({
+      "aoc2015.day01.ApartmentBuilding",
+      "aoc2015.day02.WrappingPaper",
+      "aoc2015.day03.SphericalHouses",
+      "aoc2015.day04.StockingStuffer",
+      "aoc2021.day20.TrenchMap",
+      "aoc2022.day01.CalorieCounter",
+      "aoc2022.day11.MonkeyInTheMiddle",
+      "aoc2022.day19.NotEnoughMinerals",
+      "aoc2022.day23.UnstableDiffusion",
+      "aoc2022.day24.BlizzardBasin",
+      "aoc2023.day06.WaitForIt",
+      "aoc2023.day09.MirageMaintenance"
+  })
+  public String solver;
+
+  private Solver<Object> instance;
+  private Object input;
+  private PrintStream originalOut;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    var constructor = Class.forName(solver).getDeclaredConstructor();
+    constructor.setAccessible(true);
+    instance = (Solver<Object>) constructor.newInstance();
+    originalOut = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    input = instance.parse(instance.inputResource());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.setOut(originalOut);
+  }
+
+  @Benchmark
+  public Object parse() throws Exception {
+    return instance.parse(instance.inputResource());
+  }
+
+  @Benchmark
+  public Object part1() throws Exception {
+    return instance.part1(input);
+  }
+
+  @Benchmark
+  public Object part2() throws Exception {
+    return instance.part2(input);
+  }
+}
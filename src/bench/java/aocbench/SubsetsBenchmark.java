@@ -0,0 +1,55 @@
+package aocbench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import aoccommon.Combinatorics;
+import aoccommon.Subsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Micro-benchmarks for {@link Subsets} and {@link Combinatorics}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubsetsBenchmark {
+
+  @Param({"8", "16"})
+  public int n;
+
+  private List<Integer> list;
+
+  @Setup
+  public void setUp() {
+    list = IntStream.range(0, n).boxed().collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public long allSubsets() {
+    return Subsets.getAllSubsets(list).count();
+  }
+
+  @Benchmark
+  public long subsetsOfSize() {
+    return Subsets.getAllSubsets(list, 3).count();
+  }
+
+  @Benchmark
+  public long combinationMasks() {
+    return Combinatorics.combinations(n, 3).sum();
+  }
+}
@@ -1,24 +1,40 @@
 package aoc2015.day01;
 
 import aoccommon.InputHelper;
+import aoccommon.Solver;
 
 /** Solution for {@link https://adventofcode.com/2015/day/1}. */
-public class ApartmentBuilding {
+public class ApartmentBuilding implements Solver<String> {
 
   private static final String INPUT = "aoc2015/day01/input.txt";
 
   public static void main(String[] args) throws Exception {
-    String input = InputHelper.linesFromResource(INPUT).findFirst().get();
+    Solver.run(new ApartmentBuilding(), INPUT);
+  }
+
+  @Override
+  public String parse(String resourceName) throws Exception {
+    return InputHelper.readLines(resourceName).get(0);
+  }
+
+  @Override
+  public Integer part1(String input) {
+    int floor = 0;
+    for (int i = 0; i < input.length(); i++) {
+      floor += input.charAt(i) == '(' ? 1 : -1;
+    }
+    return floor;
+  }
+
+  @Override
+  public Integer part2(String input) {
     int floor = 0;
-    int firstBasementPos = -1;
     for (int i = 0; i < input.length(); i++) {
-      char c = input.charAt(i);
-      floor += c == '(' ? 1 : -1;
-      if (floor < 0 && firstBasementPos == -1) {
-        firstBasementPos = i + 1;
+      floor += input.charAt(i) == '(' ? 1 : -1;
+      if (floor < 0) {
+        return i + 1;
       }
     }
-    System.out.println("Part 1: " + floor);
-    System.out.println("Part 2: " + firstBasementPos);
+    return -1;
   }
 }
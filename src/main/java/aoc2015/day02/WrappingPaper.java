@@ -5,22 +5,31 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
+import aoccommon.Solver;
 import aoccommon.Subsets;
 
 /** Solution for {@link https://adventofcode.com/2015/day/2}. */
-public class WrappingPaper {
+public class WrappingPaper implements Solver<List<List<Integer>>> {
 
   private static final String INPUT = "aoc2015/day02/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<List<Integer>> boxes = InputHelper.linesFromResource(INPUT)
+    Solver.run(new WrappingPaper(), INPUT);
+  }
+
+  @Override
+  public List<List<Integer>> parse(String resourceName) throws Exception {
+    return InputHelper.readLines(resourceName).stream()
         .map(s -> s.split("x"))
         .map(sp -> Arrays.stream(sp).map(Integer::parseInt).collect(Collectors.toList()))
         .collect(Collectors.toList());
+  }
 
+  @Override
+  public Long part1(List<List<Integer>> boxes) {
     // Wrapping paper needed per box = area of each side + area of the smallest side
     // for slack.
-    long wrappingPaperNeeded = boxes.stream()
+    return boxes.stream()
         .mapToLong(box -> {
           List<Integer> areas = Subsets.getAllSubsets(box, 2)
               .map(side -> side.stream().reduce(1, (a, b) -> a * b))
@@ -29,14 +38,15 @@ public class WrappingPaper {
               + areas.stream().mapToInt(area -> area).min().getAsInt();
         })
         .sum();
-    System.out.println("Part 1: " + wrappingPaperNeeded);
+  }
 
+  @Override
+  public Long part2(List<List<Integer>> boxes) {
     // Ribbon needed per box = minimum perimeter of box + volume of box (for bow).
-    long ribbonNeeded = boxes.stream()
+    return boxes.stream()
         .mapToLong(box -> Subsets.getAllSubsets(box, 2)
             .mapToInt(side -> side.stream().reduce(1, (a, b) -> (2 * a) + (2 * b)))
             .min().getAsInt() + box.stream().reduce(1, (a, b) -> a * b))
         .sum();
-    System.out.println("Part 2: " + ribbonNeeded);
   }
 }
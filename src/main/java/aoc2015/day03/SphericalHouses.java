@@ -1,14 +1,14 @@
 package aoc2015.day03;
 
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import aoccommon.InputHelper;
-import aoccommon.Point;
+import aoccommon.LongHashSet;
+import aoccommon.PackedPoint;
+import aoccommon.Solver;
 
 /** Solution for {@link https://adventofcode.com/2015/day/3}. */
-public class SphericalHouses {
+public class SphericalHouses implements Solver<String> {
 
   private static final String INPUT = "aoc2015/day03/input.txt";
 
@@ -22,36 +22,45 @@ public class SphericalHouses {
       '>', new Move(1, 0));
 
   public static void main(String [] args) throws Exception {
-    String input = InputHelper.linesFromResource(INPUT).findFirst().get();
-    
-    Point current = Point.of(0, 0);
-    Set<Point> visited = new HashSet<>();
+    Solver.run(new SphericalHouses(), INPUT);
+  }
+
+  @Override
+  public String parse(String resourceName) throws Exception {
+    return InputHelper.readLines(resourceName).get(0);
+  }
+
+  @Override
+  public Integer part1(String input) {
+    long current = PackedPoint.of(0, 0);
+    LongHashSet visited = new LongHashSet(input.length());
     visited.add(current);
 
     for (char c : input.toCharArray()) {
       Move move = MOVES.get(c);
-      current = Point.of(current.getX() + move.xd, current.getY() + move.yd);
+      current = PackedPoint.translate(current, move.xd, move.yd);
       visited.add(current);
     }
+    return visited.size();
+  }
 
-    System.out.println("Part 1: " + visited.size());
-
-    visited.clear();
-    Point santa = Point.of(0, 0);
-    Point robo = Point.of(0, 0);
+  @Override
+  public Integer part2(String input) {
+    LongHashSet visited = new LongHashSet(input.length());
+    long santa = PackedPoint.of(0, 0);
+    long robo = PackedPoint.of(0, 0);
     visited.add(santa);
 
     for (int i = 0; i < input.length(); i++) {
       Move move = MOVES.get(input.charAt(i));
       if (i % 2 == 0) {
-        santa = Point.of(santa.getX() + move.xd, santa.getY() + move.yd);
+        santa = PackedPoint.translate(santa, move.xd, move.yd);
         visited.add(santa);
       } else {
-        robo = Point.of(robo.getX() + move.xd, robo.getY() + move.yd);
+        robo = PackedPoint.translate(robo, move.xd, move.yd);
         visited.add(robo);
       }
     }
-
-    System.out.println("Part 2: " + visited.size());
+    return visited.size();
   }
 }
@@ -5,30 +5,40 @@ import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
 
 import aoccommon.InputHelper;
+import aoccommon.Solver;
 
 /** Solution for {@link https://adventofcode.com/2015/day/4}. */
-public class StockingStuffer {
+public class StockingStuffer implements Solver<String> {
 
   private static final String INPUT = "aoc2015/day04/input.txt";
 
   public static void main(String [] args) throws Exception {
-    String key = InputHelper.linesFromResource(INPUT).findFirst().get();
+    Solver.run(new StockingStuffer(), INPUT);
+  }
 
-    for (int i = 1; i < Integer.MAX_VALUE; i++) {
-      String hex = md5(key, i);
-      if (hex.startsWith("00000")) {
-        System.out.println("Part 1: " + i);
-        break;
-      }
-    }
+  @Override
+  public String parse(String resourceName) throws Exception {
+    return InputHelper.readLines(resourceName).get(0);
+  }
+
+  @Override
+  public Integer part1(String key) throws Exception {
+    return findHashWithPrefix(key, "00000");
+  }
+
+  @Override
+  public Integer part2(String key) throws Exception {
+    return findHashWithPrefix(key, "000000");
+  }
 
+  private static int findHashWithPrefix(String key, String prefix) throws NoSuchAlgorithmException {
     for (int i = 1; i < Integer.MAX_VALUE; i++) {
       String hex = md5(key, i);
-      if (hex.startsWith("000000")) {
-        System.out.println("Part 2: " + i);
-        break;
+      if (hex.startsWith(prefix)) {
+        return i;
       }
     }
+    return -1;
   }
 
   private static String md5(String key, int i) throws NoSuchAlgorithmException {
@@ -1,7 +1,11 @@
 package aoc2021.day19;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -11,6 +15,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
+import aoccommon.KdTree;
 import aoccommon.Point;
 import aoccommon.Stats;
 
@@ -19,6 +24,8 @@ public class BeaconScanner {
 
   private static final String INPUT = "aoc2021/day19/input.txt";
   private static final Pattern SCANNER = Pattern.compile("^--- scanner (\\d+) ---$");
+  private static final int RANGE = 1000;
+  private static final int MIN_OVERLAP = 12;
 
   // Rotations to determine which direction is facing forward (x).
   private static final List<Function<Point, Point>> FACE_ROTATIONS = List.of(
@@ -60,16 +67,16 @@ public class BeaconScanner {
     // Stats.enablePrintOnExit();
     Stats.startTimer("main");
 
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
-    Set<Point> current = null;
+    List<String> lines = InputHelper.readLines(INPUT);
+    List<Point> current = null;
 
     // Map of scanner ID -> relative beacon points.
-    Map<Integer, Set<Point>> scanners = new HashMap<>();
+    Map<Integer, List<Point>> scanners = new HashMap<>();
 
     for (String line : lines) {
       Matcher m = SCANNER.matcher(line);
       if (m.matches()) {
-        current = new HashSet<>();
+        current = new ArrayList<>();
         scanners.put(Integer.parseInt(m.group(1)), current);
       } else if (line.isBlank()) {
         continue;
@@ -78,40 +85,47 @@ public class BeaconScanner {
       }
     }
 
-    Set<Point> beacons = new HashSet<>();
+    // Map of scanner ID -> its beacons under each rotation.
+    Map<Integer, List<Set<Point>>> rotatedScanners = new HashMap<>();
+    scanners.forEach((id, relative) -> rotatedScanners.put(id, ROTATIONS.stream()
+        .map(rotation -> relative.stream().map(rotation).collect(Collectors.toCollection(LinkedHashSet::new)))
+        .collect(Collectors.toList())));
+
+    Stats.Counter beaconPairsCompared = Stats.counter("beaconPairsCompared");
+    Set<Point> beacons = new HashSet<>(scanners.get(0));
+    KdTree beaconIndex = KdTree.of(beacons);
     Map<Integer, Point> resolvedScanners = new HashMap<>();
     resolvedScanners.put(0, Point.of(0, 0, 0));
-    beacons.addAll(scanners.get(0));
 
-    while (resolvedScanners.size() < scanners.size()) {
-      outer: for (int candidateScanner : scanners.keySet()) {
+    // Each newly placed scanner's beacons are tried as anchors for the scanners not yet placed.
+    Deque<List<Point>> anchors = new ArrayDeque<>();
+    anchors.add(scanners.get(0));
+    while (!anchors.isEmpty()) {
+      List<Point> anchorBeacons = anchors.poll();
+      for (int candidateScanner : scanners.keySet()) {
         if (resolvedScanners.containsKey(candidateScanner)) {
           continue;
         }
-        for (Function<Point, Point> rotation : ROTATIONS) {
-          for (Point seedBeacon : scanners.get(candidateScanner)) {
-            Point rotatedSeedBeacon = rotation.apply(seedBeacon);
-            for (Point potentialMatch : beacons) {
-              Stats.incrementCounter("beaconPairsCompared");
-              Point candidatePosition = subtract(potentialMatch, rotatedSeedBeacon);
-              Set<Point> candidateBeacons = scanners.get(candidateScanner).stream()
-                  .map(rotation::apply)
-                  .map(b -> add(candidatePosition, b))
-                  .collect(Collectors.toSet());
-              long matches = candidateBeacons.stream()
-                  .filter(beacons::contains)
-                  .count();
-              Stats.incrementHistogramValue("matches", matches);
-              if (matches >= 12) {
-                beacons.addAll(candidateBeacons);
-                resolvedScanners.put(candidateScanner, candidatePosition);
-                break outer;
+        for (Set<Point> rotated : rotatedScanners.get(candidateScanner)) {
+          Point position = align(rotated, anchorBeacons, beaconIndex, beaconPairsCompared);
+          if (position != null) {
+            List<Point> absolute = rotated.stream().map(b -> add(position, b)).collect(Collectors.toList());
+            for (Point beacon : absolute) {
+              if (beacons.add(beacon)) {
+                beaconIndex.add(beacon);
               }
             }
+            resolvedScanners.put(candidateScanner, position);
+            anchors.add(absolute);
+            break;
           }
         }
       }
     }
+    if (resolvedScanners.size() < scanners.size()) {
+      throw new IllegalStateException(
+          String.format("placed only %d of %d scanners", resolvedScanners.size(), scanners.size()));
+    }
     System.out.println("Part 1: " + beacons.size());
 
     long longestDistanceBetweenScanners = resolvedScanners.values().stream()
@@ -123,4 +137,39 @@ public class BeaconScanner {
 
     Stats.endTimer("main");
   }
+
+  /**
+   * The scanner position that lines up at least MIN_OVERLAP of its (rotated)
+   * beacons with known beacons, trying each pairing of one of its beacons with
+   * one of anchorBeacons, or null.
+   */
+  private static Point align(Set<Point> rotated, List<Point> anchorBeacons, KdTree beaconIndex,
+      Stats.Counter beaconPairsCompared) {
+    // If MIN_OVERLAP beacons line up, at least one of any (size - MIN_OVERLAP + 1) of them is among them.
+    int seeds = rotated.size() - MIN_OVERLAP + 1;
+    for (Point seedBeacon : rotated) {
+      if (seeds-- == 0) {
+        break;
+      }
+      for (Point potentialMatch : anchorBeacons) {
+        beaconPairsCompared.increment();
+        Point candidatePosition = subtract(potentialMatch, seedBeacon);
+        // Only known beacons inside the candidate's detection cube can match one of its beacons.
+        List<Point> inRange = beaconIndex.inBox(
+            add(candidatePosition, Point.of(-RANGE, -RANGE, -RANGE)),
+            add(candidatePosition, Point.of(RANGE, RANGE, RANGE)));
+        if (inRange.size() < MIN_OVERLAP) {
+          continue;
+        }
+        long matches = inRange.stream()
+            .filter(b -> rotated.contains(subtract(b, candidatePosition)))
+            .count();
+        Stats.incrementHistogramValue("matches", matches);
+        if (matches >= MIN_OVERLAP) {
+          return candidatePosition;
+        }
+      }
+    }
+    return null;
+  }
 }
@@ -1,10 +1,89 @@
 package aoc2021.day20;
 
+import java.util.List;
+
+import aoccommon.BitGrid;
+import aoccommon.InputHelper;
+import aoccommon.Solver;
+
 /** Solution for {@link https://adventofcode.com/2021/day/20}. */
-public class TrenchMap {
+public class TrenchMap implements Solver<TrenchMap.Image> {
 
   private static final String INPUT = "aoc2021/day20/input.txt";
 
+  /**
+   * The lit pixels inside the grid; every pixel outside it is background. The
+   * infinite background flips each step if the algorithm maps an all-dark
+   * neighbourhood to lit.
+   */
+  record Image(boolean[] algorithm, BitGrid pixels, boolean background) {
+
+    Image enhance() {
+      // Every pixel within one of the old grid can change, so grow by one first.
+      BitGrid grown = pixels.grow(1, background);
+      // Neighbourhood bits, most significant first: row above, own row, row below.
+      BitGrid[] neighbourhood = new BitGrid[9];
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          neighbourhood[(dy + 1) * 3 + dx + 1] = grown.shift(-dx, -dy, background);
+        }
+      }
+      return new Image(
+          algorithm,
+          BitGrid.evaluate(neighbourhood, algorithm),
+          algorithm[background ? algorithm.length - 1 : 0]);
+    }
+
+    Image enhance(int times) {
+      Image image = this;
+      for (int i = 0; i < times; i++) {
+        image = image.enhance();
+      }
+      return image;
+    }
+
+    long litPixels() {
+      if (background) {
+        throw new IllegalStateException("infinitely many pixels are lit");
+      }
+      return pixels.popCount();
+    }
+  }
+
   public static void main(String [] args) throws Exception {
+    Solver.run(new TrenchMap(), INPUT);
+  }
+
+  @Override
+  public Image parse(String resourceName) throws Exception {
+    List<String> lines = InputHelper.readLines(resourceName).stream().filter(line -> !line.isBlank()).toList();
+    String rules = lines.get(0);
+    if (rules.length() != 512) {
+      throw new IllegalArgumentException("expected 512 algorithm entries, got " + rules.length());
+    }
+    boolean[] algorithm = new boolean[rules.length()];
+    for (int i = 0; i < algorithm.length; i++) {
+      algorithm[i] = rules.charAt(i) == '#';
+    }
+    List<String> rows = lines.subList(1, lines.size());
+    BitGrid pixels = new BitGrid(rows.get(0).length(), rows.size());
+    for (int y = 0; y < rows.size(); y++) {
+      for (int x = 0; x < rows.get(y).length(); x++) {
+        if (rows.get(y).charAt(x) == '#') {
+          pixels.set(x, y);
+        }
+      }
+    }
+    return new Image(algorithm, pixels, false);
+  }
+
+  @Override
+  public Long part1(Image image) {
+    return image.enhance(2).litPixels();
+  }
+
+  @Override
+  public Long part2(Image image) {
+    return image.enhance(50).litPixels();
   }
 }
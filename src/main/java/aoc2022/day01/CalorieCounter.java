@@ -5,14 +5,21 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
+import aoccommon.Solver;
 
 /** Solution for {@link https://adventofcode.com/2022/day/1}. */
-class CalorieCounter {
+class CalorieCounter implements Solver<List<Integer>> {
 
   private static final String INPUT = "aoc2022/day01/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    Solver.run(new CalorieCounter(), INPUT);
+  }
+
+  /** Parses the total calories carried by each elf. */
+  @Override
+  public List<Integer> parse(String resourceName) throws Exception {
+    List<String> lines = InputHelper.readLines(resourceName);
 
     List<List<Integer>> elves = new ArrayList<>();
     List<Integer> calories = new ArrayList<>();
@@ -25,12 +32,17 @@ class CalorieCounter {
       calories.add(Integer.parseInt(line));
     }
 
-    List<Integer> totalCalories = elves.stream().map(cals -> cals.stream().mapToInt(c -> c).sum()).collect(Collectors.toList());
-    int mostCalories = totalCalories.stream().mapToInt(t -> t).max().getAsInt();
-    System.out.println("Part 1: " + mostCalories);
+    return elves.stream().map(cals -> cals.stream().mapToInt(c -> c).sum()).collect(Collectors.toList());
+  }
+
+  @Override
+  public Integer part1(List<Integer> totalCalories) {
+    return totalCalories.stream().mapToInt(t -> t).max().getAsInt();
+  }
 
+  @Override
+  public Integer part2(List<Integer> totalCalories) {
     List<Integer> topThree = totalCalories.stream().sorted((t1, t2) -> Integer.compare(t2, t1)).limit(3).collect(Collectors.toList());
-    int topThreeSum = topThree.stream().mapToInt(t -> t).sum();
-    System.out.println("Part 2: " + topThreeSum);
+    return topThree.stream().mapToInt(t -> t).sum();
   }
 }
@@ -42,7 +42,7 @@ class RockPaperScissors {
       Shape.SCISSORS, 3);
 
   public static void main(String[] args) throws Exception {
-    List<String[]> strategyGuide = InputHelper.linesFromResource(INPUT)
+    List<String[]> strategyGuide = InputHelper.readLines(INPUT).stream()
         .map(line -> line.split(" "))
         .collect(Collectors.toList());
 
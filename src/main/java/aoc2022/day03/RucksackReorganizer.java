@@ -21,7 +21,7 @@ class RucksackReorganizer {
       .collect(Collectors.toSet());
 
   public static void main(String[] args) throws Exception {
-    List<String> rucksacks = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> rucksacks = InputHelper.readLines(INPUT);
 
     // Find common letters in first half and second half of the string (item types
     // shared between the two "compartments").
@@ -12,7 +12,7 @@ public class CampCleanup {
   private static final String INPUT = "aoc2022/day04/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<List<Range<Integer>>> assignments = InputHelper.linesFromResource(INPUT)
+    List<List<Range<Integer>>> assignments = InputHelper.readLines(INPUT).stream()
         .map(CampCleanup::parse)
         .collect(Collectors.toList());
 
@@ -21,7 +21,7 @@ public class SupplyStacks {
   private static final String INPUT = "aoc2022/day05/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> lines = InputHelper.readLines(INPUT);
 
     int i = 0;
     String line;
@@ -12,7 +12,7 @@ public class TuningTrouble {
   private static final String INPUT = "aoc2022/day06/input.txt";
 
   public static void main(String [] args) throws Exception {
-    String datastream = InputHelper.linesFromResource(INPUT).findFirst().get();
+    String datastream = InputHelper.readLines(INPUT).get(0);
     int marker = findMarker(datastream, 4);
     System.out.println("Part 1: " + marker);
 
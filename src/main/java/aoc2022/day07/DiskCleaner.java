@@ -7,7 +7,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
 
@@ -23,7 +22,7 @@ public class DiskCleaner {
   private static final Pattern FILE_OUTPUT = Pattern.compile("^(\\d+)\\ (.+)$");
 
   public static void main(String [] args) throws Exception {
-    List<String> output = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> output = InputHelper.readLines(INPUT);
 
     Deque<String> stack = new ArrayDeque<>();
     Map<String, Long> dirSizes = new HashMap<>();
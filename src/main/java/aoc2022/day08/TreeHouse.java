@@ -4,7 +4,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
 import aoccommon.Point;
@@ -15,7 +14,7 @@ public class TreeHouse {
   private static final String INPUT = "aoc2022/day08/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> lines = InputHelper.readLines(INPUT);
 
     Map<Point, Integer> trees = new HashMap<>();
     int maxX = 0;
@@ -14,7 +14,7 @@ public class RopeBridge {
   private static final String INPUT = "aoc2022/day09/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<Motion> motions = InputHelper.linesFromResource(INPUT)
+    List<Motion> motions = InputHelper.readLines(INPUT).stream()
         .map(Motion::parse)
         .collect(Collectors.toList());
 
@@ -11,7 +11,7 @@ public class CathodeRayTube {
   private static final String INPUT = "aoc2022/day10/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<Instruction> instructions = InputHelper.linesFromResource(INPUT)
+    List<Instruction> instructions = InputHelper.readLines(INPUT).stream()
         .map(Instruction::parse)
         .collect(Collectors.toList());
 
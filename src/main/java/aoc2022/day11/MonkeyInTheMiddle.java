@@ -1,78 +1,218 @@
 package aoc2022.day11;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.function.Function;
+import java.util.OptionalLong;
+import java.util.function.LongUnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import aoccommon.CycleDetector;
 import aoccommon.InputHelper;
+import aoccommon.Solver;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/11}. */
-public class MonkeyInTheMiddle {
+public class MonkeyInTheMiddle implements Solver<List<MonkeyInTheMiddle.Monkey>> {
 
   private static final String INPUT = "aoc2022/day11/input.txt";
 
-  private static final boolean DEBUG = false;
+  private final long part1Rounds;
+  private final long part2Rounds;
 
-  private static void debug(String fmt, Object... args) {
-    if (DEBUG) {
-      System.out.println(String.format(fmt, args));
-    }
+  public MonkeyInTheMiddle() {
+    this(20, 10000);
+  }
+
+  public MonkeyInTheMiddle(long part1Rounds, long part2Rounds) {
+    this.part1Rounds = part1Rounds;
+    this.part2Rounds = part2Rounds;
   }
 
+  /** Optional arguments override the number of rounds of the two parts, e.g. "20 1000000". */
   public static void main(String[] args) throws Exception {
-    Iterator<String> input = InputHelper.linesFromResource(INPUT).iterator();
+    MonkeyInTheMiddle solver = args.length == 2
+        ? new MonkeyInTheMiddle(Long.parseLong(args[0]), Long.parseLong(args[1]))
+        : new MonkeyInTheMiddle();
+    Solver.run(solver, INPUT);
+  }
+
+  @Override
+  public List<Monkey> parse(String resourceName) throws Exception {
+    Iterator<String> input = InputHelper.readLines(resourceName).iterator();
     List<Monkey> monkeys = new ArrayList<>();
     while (input.hasNext()) {
-      monkeys.add(Monkey.parse(input));
+      Monkey monkey = Monkey.parse(input);
+      if (monkey.id() != monkeys.size()) {
+        throw new IllegalArgumentException("Monkey " + monkey.id() + " out of order");
+      }
+      monkeys.add(monkey);
       if (input.hasNext()) {
         input.next();
       }
     }
+    return monkeys;
+  }
+
+  @Override
+  public Long part1(List<Monkey> monkeys) {
+    // Worry is divided by three after each inspection, so it stays small but never repeats in general.
+    return new Troop(monkeys, worry -> worry / 3, false).monkeyBusiness(part1Rounds);
+  }
+
+  @Override
+  public Long part2(List<Monkey> monkeys) {
+    // Every test is a divisibility test, so worry modulo the product of the divisors answers them all.
+    long modulus = monkeys.stream()
+        .mapToLong(monkey -> monkey.test().divisibleBy())
+        .reduce(1, Math::multiplyExact);
+    return new Troop(monkeys, worry -> worry % modulus, true).monkeyBusiness(part2Rounds);
+  }
+
+  /**
+   * The monkeys compiled to arrays, simulating one item at a time. Items never
+   * affect each other: a monkey inspects everything it holds, whatever else
+   * it holds, so each item's path can be followed on its own (and in
+   * parallel) and the inspection counts summed.
+   *
+   * <p>An item's state at the start of a round is encoded as worry * n +
+   * monkey. When worry is reduced modulo a fixed number that state space is
+   * finite, so every item eventually cycles, and the counts for any number of
+   * rounds follow from its first prefix + period rounds.
+   */
+  private static final class Troop {
+    private final int n;
+    private final Operation[] operations;
+    private final long[] divisors;
+    private final int[] ifTrue;
+    private final int[] ifFalse;
+    private final long[][] startingItems;
+    private final LongUnaryOperator relief;
+    private final boolean periodic;
+
+    Troop(List<Monkey> monkeys, LongUnaryOperator relief, boolean periodic) {
+      this.n = monkeys.size();
+      this.operations = new Operation[n];
+      this.divisors = new long[n];
+      this.ifTrue = new int[n];
+      this.ifFalse = new int[n];
+      this.startingItems = new long[n][];
+      for (Monkey monkey : monkeys) {
+        int id = monkey.id();
+        operations[id] = monkey.operation();
+        divisors[id] = monkey.test().divisibleBy();
+        ifTrue[id] = monkey.trueCondition().monkeyToThrowTo();
+        ifFalse[id] = monkey.falseCondition().monkeyToThrowTo();
+        startingItems[id] = monkey.startingItems();
+        for (int target : new int[] {ifTrue[id], ifFalse[id]}) {
+          if (target < 0 || target >= n || target == id) {
+            throw new IllegalArgumentException("Monkey " + id + " throws to monkey " + target);
+          }
+        }
+      }
+      this.relief = relief;
+      this.periodic = periodic;
+    }
+
+    long monkeyBusiness(long rounds) {
+      List<Long> items = new ArrayList<>();
+      for (int monkey = 0; monkey < n; monkey++) {
+        for (long worry : startingItems[monkey]) {
+          items.add(encode(worry, monkey));
+        }
+      }
+      long[] counts = items.parallelStream()
+          .map(item -> periodic ? countPeriodic(item, rounds) : count(item, rounds))
+          .reduce(new long[n], Troop::sum);
+      long[] sorted = counts.clone();
+      Arrays.sort(sorted);
+      return Math.multiplyExact(sorted[n - 1], sorted[n - 2]);
+    }
+
+    /** Inspection counts per monkey over rounds, simulating every round. */
+    private long[] count(long item, long rounds) {
+      long[] counts = new long[n];
+      for (long round = 0; round < rounds; round++) {
+        item = playRound(item, counts);
+      }
+      return counts;
+    }
+
+    /** Inspection counts per monkey over rounds, simulating only until the item cycles. */
+    private long[] countPeriodic(long item, long rounds) {
+      CycleDetector.Cycle cycle = CycleDetector.brent(item, state -> playRound(state, null));
+      if (Trace.DEBUG) {
+        Trace.event("MonkeyInTheMiddle.cycle", item, cycle.prefixLength(), cycle.period());
+      }
+      // One pass over the prefix and a period gives the counts at the equivalent round and per period.
+      long equivalent = cycle.equivalentStep(rounds);
+      long skipped = cycle.cyclesSkipped(rounds);
+      long end = Math.min(rounds, cycle.prefixLength() + cycle.period());
+      long[] counts = new long[n];
+      long[] atEquivalent = null;
+      long[] atPrefix = null;
+      for (long round = 0; ; round++) {
+        if (round == equivalent) {
+          atEquivalent = counts.clone();
+        }
+        if (round == cycle.prefixLength()) {
+          atPrefix = counts.clone();
+        }
+        if (round == end) {
+          break;
+        }
+        item = playRound(item, counts);
+      }
+      if (skipped == 0) {
+        return atEquivalent;
+      }
+      for (int monkey = 0; monkey < n; monkey++) {
+        long perPeriod = counts[monkey] - atPrefix[monkey];
+        atEquivalent[monkey] = Math.addExact(atEquivalent[monkey], Math.multiplyExact(skipped, perPeriod));
+      }
+      return atEquivalent;
+    }
 
-    debug("Parsed monkeys: %s", monkeys);
-    debug("Starting items: %s", Monkey.ITEMS);
+    /**
+     * Follows an item through one round, adding its inspections to counts
+     * (if not null), and returns its state at the start of the next round. An
+     * item thrown to a monkey with a higher id is inspected again this round,
+     * as that monkey has yet to take its turn.
+     */
+    private long playRound(long item, long[] counts) {
+      int monkey = (int) (item % n);
+      long worry = item / n;
+      while (true) {
+        if (counts != null) {
+          counts[monkey]++;
+        }
+        worry = relief.applyAsLong(operations[monkey].apply(worry));
+        int target = worry % divisors[monkey] == 0 ? ifTrue[monkey] : ifFalse[monkey];
+        if (target < monkey) {
+          return encode(worry, target);
+        }
+        monkey = target;
+      }
+    }
 
-    // Part 1.
-    Monkey.reset();
-    for (int i = 0; i < 20; i++) {
-      monkeys.forEach(monkey -> monkey.takeTurn(worry -> worry.divide(BigInteger.valueOf(3))));
+    private long encode(long worry, int monkey) {
+      return Math.addExact(Math.multiplyExact(worry, n), monkey);
     }
-    System.out.println("Part 1: " + Monkey.getMonkeyBusiness());
-
-    // Part 2.
-    Monkey.reset();
-    // Use a ~LCM for all the test divisors to keep the worry from exploding while maintaing properties.
-    // (Or just multiply them all together I guess.)
-    BigInteger reducer = monkeys.stream()
-        .map(Monkey::test)
-        .map(Test::divisibleBy)
-        .reduce((a, b) -> a.multiply(b))
-        .get();
-
-    for (int i = 0; i < 10000; i++) {
-      monkeys.forEach(monkey -> monkey.takeTurn(worry -> worry.mod(reducer)));
+
+    private static long[] sum(long[] a, long[] b) {
+      long[] out = new long[a.length];
+      for (int i = 0; i < a.length; i++) {
+        out[i] = a[i] + b[i];
+      }
+      return out;
     }
-    System.out.println("Part 2: " + Monkey.getMonkeyBusiness());
   }
 
-  private static record Monkey(int id, Operation operation, Test test, Condition trueCondition,
+  static record Monkey(int id, long[] startingItems, Operation operation, Test test, Condition trueCondition,
       Condition falseCondition) {
 
-    // Keep the mutable state outside of Monkey record.
-    private static final Map<Integer, LinkedList<BigInteger>> STARTING_ITEMS = new HashMap<>();
-    private static final Map<Integer, LinkedList<BigInteger>> ITEMS = new HashMap<>();
-    private static final Map<Integer, Integer> INSPECTION_COUNT = new HashMap<>();
-
     // Monkey 3:
     private static final Pattern ID_PATTERN = Pattern.compile("^Monkey\\ (\\d+):$");
 
@@ -87,68 +227,24 @@ public class MonkeyInTheMiddle {
       }
       int id = Integer.parseInt(m.group(1));
 
-      LinkedList<BigInteger> items = new LinkedList<>();
       line = iterator.next();
       m = STARTING_ITEMS_PATTERN.matcher(line);
       if (!m.matches()) {
         throw new IllegalArgumentException(line);
       }
-      Arrays.stream(m.group(1).split(", ")).map(BigInteger::new).forEach(items::add);
-
-      STARTING_ITEMS.put(id, items);
+      long[] items = Arrays.stream(m.group(1).split(", ")).mapToLong(Long::parseLong).toArray();
 
       return new Monkey(
           id,
+          items,
           Operation.parse(iterator.next()),
           Test.parse(iterator.next()),
           Condition.parse(iterator.next()),
           Condition.parse(iterator.next()));
     }
-
-    private static void reset() {
-      INSPECTION_COUNT.clear();
-      ITEMS.clear();
-      for (Map.Entry<Integer, LinkedList<BigInteger>> entry : STARTING_ITEMS.entrySet()) {
-        ITEMS.put(entry.getKey(), new LinkedList<>(entry.getValue()));
-      }
-    }
-
-    private static long getMonkeyBusiness() {
-      return Monkey.INSPECTION_COUNT.values().stream()
-          .sorted(Comparator.reverseOrder())
-          .limit(2)
-          .mapToLong(Integer::longValue)
-          .reduce((a, b) -> a * b)
-          .getAsLong();
-    }
-
-    private void takeTurn(Function<BigInteger, BigInteger> worryReducer) {
-      debug("Monkey %d:", id);
-      Iterator<BigInteger> iterator = ITEMS.get(id).iterator();
-      while (iterator.hasNext()) {
-        INSPECTION_COUNT.compute(id, (id, old) -> old == null ? 1 : old + 1);
-        BigInteger worryLevel = iterator.next();
-        debug("  Monkey inspects an item with a worry level of %d.", worryLevel);
-        worryLevel = operation.apply(worryLevel);
-        debug("    Worry level is increased to %d.", worryLevel);
-        worryLevel = worryReducer.apply(worryLevel);
-        debug("    Monkey gets bored with item. Worry level is divded by 3 to %d.", worryLevel);
-        boolean result = test.apply(worryLevel);
-        if (result) {
-          debug("    Current worry level is divisible by %d.", test.divisibleBy());
-          debug("    Item with worry level %d is thrown to monkey %d.", worryLevel, trueCondition.monkeyToThrowTo());
-          ITEMS.get(trueCondition.monkeyToThrowTo()).add(worryLevel);
-        } else {
-          debug("    Current worry level is not divisible by %d.", test.divisibleBy());
-          debug("    Item with worry level %d is thrown to monkey %d.", worryLevel, falseCondition.monkeyToThrowTo());
-          ITEMS.get(falseCondition.monkeyToThrowTo()).add(worryLevel);
-        }
-        iterator.remove();
-      }
-    }
   }
 
-  private static record Operation(Optional<BigInteger> left, char op, Optional<BigInteger> right) {
+  static record Operation(OptionalLong left, char op, OptionalLong right) {
 
     // Operation: new = old * 19
     // Operation: new = old + 6
@@ -164,25 +260,25 @@ public class MonkeyInTheMiddle {
       String left = m.group(1);
       String right = m.group(3);
       return new Operation(
-          left.equals("old") ? Optional.empty() : Optional.of(new BigInteger(left)),
+          left.equals("old") ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(left)),
           m.group(2).charAt(0),
-          right.equals("old") ? Optional.empty() : Optional.of(new BigInteger(right)));
+          right.equals("old") ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(right)));
     }
 
-    private BigInteger apply(BigInteger old) {
-      BigInteger eqLeft = left.orElse(old);
-      BigInteger eqRight = right.orElse(old);
+    private long apply(long old) {
+      long eqLeft = left.orElse(old);
+      long eqRight = right.orElse(old);
       if (op == '+') {
-        return eqLeft.add(eqRight);
+        return Math.addExact(eqLeft, eqRight);
       } else if (op == '*') {
-        return eqLeft.multiply(eqRight);
+        return Math.multiplyExact(eqLeft, eqRight);
       } else {
         throw new UnsupportedOperationException();
       }
     }
   }
 
-  private static record Test(BigInteger divisibleBy) {
+  static record Test(long divisibleBy) {
 
     // Test: divisible by 23
     private static final Pattern PATTERN = Pattern.compile("^\\ *Test:\\ divisible\\ by\\ (\\d+)$");
@@ -192,15 +288,11 @@ public class MonkeyInTheMiddle {
       if (!m.matches()) {
         throw new IllegalArgumentException(line);
       }
-      return new Test(new BigInteger(m.group(1)));
-    }
-
-    private boolean apply(BigInteger input) {
-      return input.mod(divisibleBy).intValue() == 0;
+      return new Test(Long.parseLong(m.group(1)));
     }
   }
 
-  private static record Condition(boolean expected, int monkeyToThrowTo) {
+  static record Condition(boolean expected, int monkeyToThrowTo) {
     // If true: throw to monkey 0
     // If false: throw to monkey 1
     private static final Pattern PATTERN = Pattern
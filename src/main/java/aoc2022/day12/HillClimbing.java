@@ -1,17 +1,13 @@
 package aoc2022.day12;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import aoccommon.InputHelper;
 import aoccommon.Point;
+import aoccommon.graph.Graph;
+import aoccommon.graph.Search;
+import aoccommon.graph.SearchResult;
 
 /** Solution for {@link https://adventofcode.com/2022/day/12}. */
 public class HillClimbing {
@@ -19,7 +15,7 @@ public class HillClimbing {
   private static final String INPUT = "aoc2022/day12/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<String> input = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> input = InputHelper.readLines(INPUT);
     Point start = null, end = null;
     int maxX = -1;
     List<Point> allPossibleStarts = new ArrayList<>();
@@ -40,82 +36,54 @@ public class HillClimbing {
     }
     Point maxPoint = Point.of(maxX, input.size() - 1);
 
-    Climber climber = new Climber(input, start, end, maxPoint);
-    System.out.println("Part 1: " + climber.traverse());
-
-    int shortestPath = Integer.MAX_VALUE;
-    for (Point possibleStart : allPossibleStarts) {
-      climber = new Climber(input, possibleStart, end, maxPoint);
-      shortestPath = Math.min(climber.traverse(), shortestPath);
-    }
-    System.out.println("Part 2: " + shortestPath);
+    Climber climber = new Climber(input, maxPoint);
+    System.out.println("Part 1: " + climber.traverse(List.of(start), end));
+    System.out.println("Part 2: " + climber.traverse(allPossibleStarts, end));
   }
 
-  private static class Climber {
+  /** Searches the grid with nodes numbered y * width + x. */
+  private static class Climber implements Graph {
     private final List<String> input;
-    private final Point start;
-    private final Point end;
-    private final Point maxPoint;
+    private final int width;
+    private final int height;
 
-    private final Map<Point, Integer> visited = new HashMap<>();
-    private final PriorityQueue<Step> queue = new PriorityQueue<>();
-
-    private Climber(List<String> input, Point start, Point end, Point maxPoint) {
+    private Climber(List<String> input, Point maxPoint) {
       this.input = input;
-      this.start = start;
-      this.end = end;
-      this.maxPoint = maxPoint;
+      this.width = maxPoint.getX() + 1;
+      this.height = maxPoint.getY() + 1;
     }
 
-    int traverse() {
-      queue.clear();
-      visited.clear();
-
-      queue.offer(new Step(start, 0));
-      visited.put(start, 0);
+    /** Fewest steps from any of starts to end, or Integer.MAX_VALUE if unreachable. */
+    int traverse(List<Point> starts, Point end) {
+      int target = node(end);
+      SearchResult result = Search.bfs(width * height, this, starts.stream().mapToInt(this::node).toArray(),
+          node -> node == target);
+      return result.targetDistance();
+    }
 
-      while (!queue.isEmpty()) {
-        final Step step = queue.poll();
-        if (step.point.equals(end)) {
-          break;
+    @Override
+    public void forEachEdge(int node, EdgeConsumer edges) {
+      int x = node % width;
+      int y = node / width;
+      int elevation = getElevation(x, y);
+      for (Direction direction : Direction.values()) {
+        int newX = x + direction.xd;
+        int newY = y + direction.yd;
+        if (newX < 0 || newX >= width || newY < 0 || newY >= height) {
+          continue;
+        }
+        if (getElevation(newX, newY) - elevation <= 1) {
+          edges.accept(newY * width + newX, 1);
         }
-        int elevation = getElevation(step.point);
-        getAdjacent(step.point).forEach(next -> {
-          int nextElevation = getElevation(next);
-          if (nextElevation - elevation > 1) {
-            return;
-          }
-          int nextSteps = step.steps + 1;
-          if (nextSteps < visited.getOrDefault(next, Integer.MAX_VALUE)) {
-            queue.offer(new Step(next, nextSteps));
-            visited.put(next, nextSteps);
-          }
-        });
       }
-      return visited.getOrDefault(end, Integer.MAX_VALUE);
     }
 
-    private Stream<Point> getAdjacent(Point point) {
-      return Arrays.stream(Direction.values())
-          .map(direction -> getAdjacent(point, direction))
-          .filter(Optional::isPresent)
-          .map(Optional::get);
+    private int node(Point point) {
+      return point.getY() * width + point.getX();
     }
 
-    private Optional<Point> getAdjacent(Point point, Direction direction) {
-      int newX = point.getX() + direction.xd;
-      int newY = point.getY() + direction.yd;
-      if (newX < 0 || newX > maxPoint.getX()) {
-        return Optional.empty();
-      }
-      if (newY < 0 || newY > maxPoint.getY()) {
-        return Optional.empty();
-      }
-      return Optional.of(Point.of(newX, newY));
-    }
-
-    private int getElevation(Point point) {
-      char c = input.get(point.getY()).charAt(point.getX());
+    private int getElevation(int x, int y) {
+      char c = input.get(y).charAt(x);
       if (c == 'S') {
         c = 'a';
       } else if (c == 'E') {
@@ -125,13 +93,6 @@ public class HillClimbing {
     }
   }
 
-  private static record Step(Point point, int steps) implements Comparable<Step> {
-    @Override
-    public int compareTo(Step other) {
-      return Integer.compare(steps, other.steps);
-    }
-  }
-
   private static enum Direction {
     UP(0, -1),
     DOWN(0, 1),
@@ -28,7 +28,7 @@ public class DistressSignal {
   public static void main(String[] args) throws Exception {
     final List<PacketPair> pairs = new ArrayList<>();
 
-    Iterator<String> iter = InputHelper.linesFromResource(INPUT).iterator();
+    Iterator<String> iter = InputHelper.readLines(INPUT).iterator();
     while (iter.hasNext()) {
       pairs.add(new PacketPair(parsePacket(iter.next()), parsePacket(iter.next())));
       if (iter.hasNext()) {
@@ -19,7 +19,7 @@ public class RegolithReservoir {
   private static final boolean DEBUG = false;
 
   public static void main(String[] args) throws Exception {
-    List<RockStructure> rockStructures = InputHelper.linesFromResource(INPUT).map(RockStructure::parse)
+    List<RockStructure> rockStructures = InputHelper.readLines(INPUT).stream().map(RockStructure::parse)
         .collect(Collectors.toList());
 
     Map map = Map.from(rockStructures);
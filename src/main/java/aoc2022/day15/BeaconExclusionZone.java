@@ -1,15 +1,17 @@
 package aoc2022.day15;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
+import aoccommon.KdTree;
+import aoccommon.LongRangeSet;
 import aoccommon.Point;
 
 /** Solution for {@link https://adventofcode.com/2022/day/15}. */
@@ -23,7 +25,7 @@ public class BeaconExclusionZone {
       .compile("^Sensor.*x=(\\-?\\d+),\\ y=(\\-?\\d+).*x=(\\-?\\d+),\\ y=(\\-?\\d+)$");
 
   public static void main(String[] args) throws Exception {
-    Map<Point, Point> sensorBeacons = InputHelper.linesFromResource(INPUT)
+    Map<Point, Point> sensorBeacons = InputHelper.readLines(INPUT).stream()
         .map(REGEX::matcher)
         .filter(Matcher::matches)
         .collect(Collectors.toMap(
@@ -31,7 +33,7 @@ public class BeaconExclusionZone {
             m -> Point.of(Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)))));
 
     System.out.println("Part 1: "
-        + (coveredRangesInRow(sensorBeacons, TARGET_ROW, Integer.MIN_VALUE, Integer.MAX_VALUE).disjointSize()
+        + (coveredRangesInRow(sensorBeacons, TARGET_ROW, Integer.MIN_VALUE, Integer.MAX_VALUE).size()
             - beaconsInRow(sensorBeacons, TARGET_ROW)));
 
     Point beacon = findBeacon(sensorBeacons, MAX_XY);
@@ -40,16 +42,45 @@ public class BeaconExclusionZone {
   }
 
   private static Point findBeacon(Map<Point, Point> sensorBeacons, int maxXY) {
-    for (int y = 0; y <= maxXY; y++) {
-      RangeSet coveredX = coveredRangesInRow(sensorBeacons, y, 0, maxXY);
-      if (coveredX.disjointSize() < (maxXY + 1)) {
-        for (int x = 0; x <= maxXY; x++) {
-          if (!coveredX.contains(x)) {
-            return Point.of(x, y);
-          }
+    // The only uncovered cell must sit just outside two sensors' ranges in each diagonal direction, unless it is
+    // on the edge of the search area, so try the crossings of those boundary diagonals first.
+    Map<Point, Integer> radii = new HashMap<>();
+    sensorBeacons.forEach((sensor, beacon) -> radii.put(sensor, manhattanDistance(sensor, beacon)));
+    int maxRadius = Collections.max(radii.values());
+    KdTree sensors = KdTree.of(radii.keySet());
+    Set<Long> sums = new HashSet<>();
+    Set<Long> differences = new HashSet<>();
+    radii.forEach((sensor, radius) -> {
+      for (int side : new int[] {-1, 1}) {
+        sums.add((long) sensor.getX() + sensor.getY() + side * (radius + 1L));
+        differences.add((long) sensor.getX() - sensor.getY() + side * (radius + 1L));
+      }
+    });
+    for (long sum : sums) {
+      for (long difference : differences) {
+        if (((sum + difference) & 1) != 0) {
+          continue;
+        }
+        long x = (sum + difference) / 2;
+        long y = (sum - difference) / 2;
+        if (x < 0 || x > maxXY || y < 0 || y > maxXY) {
+          continue;
+        }
+        Point candidate = Point.of((int) x, (int) y);
+        boolean covered = sensors.withinManhattan(candidate, maxRadius).stream()
+            .anyMatch(sensor -> manhattanDistance(sensor, candidate) <= radii.get(sensor));
+        if (!covered) {
+          return candidate;
         }
       }
     }
+
+    for (int y = 0; y <= maxXY; y++) {
+      LongRangeSet uncoveredX = coveredRangesInRow(sensorBeacons, y, 0, maxXY).complement(0, maxXY);
+      if (!uncoveredX.isEmpty()) {
+        return Point.of((int) uncoveredX.min().getAsLong(), y);
+      }
+    }
     return null;
   }
 
@@ -62,97 +93,20 @@ public class BeaconExclusionZone {
         .size();
   }
 
-  private static RangeSet coveredRangesInRow(Map<Point, Point> sensorBeacons, int row, int min, int max) {
-    final RangeSet rangeSet = RangeSet.create();
-    sensorBeacons.entrySet().stream()
-        .forEach(entry -> coveredRangeInRow(entry.getKey(), entry.getValue(), row, min, max).ifPresent(rangeSet::add));
-    return rangeSet;
-  }
-
-  private static Optional<Range> coveredRangeInRow(Point sensor, Point beacon, int row, int min, int max) {
-    int dist = manhattanDistance(sensor, beacon);
-    int ydelta = Math.abs(sensor.getY() - row);
-    if (ydelta > dist) {
-      return Optional.empty();
-    }
-    int xdelta = dist - ydelta;
-    return Optional.of(new Range(Math.max(min, sensor.getX() - xdelta), Math.min(max, sensor.getX() + xdelta)));
-  }
-
-  private static record Range(int lower, int upper) {
-    boolean contains(int value) {
-      return value >= lower && value <= upper;
-    }
-
-    int size() {
-      return upper - lower + 1;
-    }
-  }
-
-  private static record RangeSet(Set<Range> ranges) {
-    static RangeSet create() {
-      return new RangeSet(new HashSet<>());
-    }
-
-    boolean contains(int value) {
-      return ranges.stream().anyMatch(r -> r.contains(value));
-    }
-
-    int disjointSize() {
-      return ranges.stream().mapToInt(Range::size).sum();
-    }
-
-    void add(Range newRange) {
-      Optional<Range> containsLower = Optional.empty();
-      Optional<Range> containsUpper = Optional.empty();
-      Optional<Range> toAdd = Optional.empty();
-      for (Range range : ranges) {
-        if (range.contains(newRange.lower())) {
-          containsLower = Optional.of(range);
-        }
-        if (range.contains(newRange.upper())) {
-          containsUpper = Optional.of(range);
-        }
-      }
-      if (containsLower.isEmpty() && containsUpper.isEmpty()) {
-        toAdd = Optional.of(newRange);
-      } else if (containsLower.isPresent()) {
-        Range lower = containsLower.get();
-        if (containsUpper.isPresent()) {
-          Range upper = containsUpper.get();
-          if (lower.equals(upper)) {
-            // Range contained by existing range.
-            return;
-          } else {
-            // Merge the lower and upper ranges.
-            ranges.remove(lower);
-            ranges.remove(upper);
-            toAdd = Optional.of(new Range(lower.lower(), upper.upper()));
-          }
-        } else {
-          // Merge the new range with the lower range.
-          ranges.remove(lower);
-          toAdd = Optional.of(new Range(lower.lower(), newRange.upper()));
-        }
-      } else {
-        Range upper = containsUpper.get();
-        // Merge the new range with the upper range.
-        ranges.remove(upper);
-        toAdd = Optional.of(new Range(newRange.lower(), upper.upper()));
+  private static LongRangeSet coveredRangesInRow(Map<Point, Point> sensorBeacons, int row, int min, int max) {
+    LongRangeSet rangeSet = new LongRangeSet();
+    for (Map.Entry<Point, Point> entry : sensorBeacons.entrySet()) {
+      Point sensor = entry.getKey();
+      int xdelta = manhattanDistance(sensor, entry.getValue()) - Math.abs(sensor.getY() - row);
+      if (xdelta < 0) {
+        continue;
       }
-      if (toAdd.isEmpty()) {
-        return;
+      int lower = Math.max(min, sensor.getX() - xdelta);
+      int upper = Math.min(max, sensor.getX() + xdelta);
+      if (lower <= upper) {
+        rangeSet.add(lower, upper);
       }
-
-      // Check for existing ranges contained in the new range.
-      Iterator<Range> iter = ranges.iterator();
-      while (iter.hasNext()) {
-        Range range = iter.next();
-        if (toAdd.get().contains(range.lower()) && toAdd.get().contains(range.upper())) {
-          iter.remove();
-        }
-      }
-      ranges.add(toAdd.get());
     }
+    return rangeSet;
   }
 }
@@ -1,79 +1,85 @@
 package aoc2022.day16;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import aoccommon.Debug;
 import aoccommon.InputHelper;
 import aoccommon.Stats;
+import aoccommon.Trace;
+import aoccommon.graph.Graph;
+import aoccommon.graph.Search;
+import aoccommon.graph.SearchResult;
 
 /** Solution for {@link https://adventofcode.com/2022/day/16}. */
 public class ProboscideaVolcanium {
 
   private static final String INPUT = "aoc2022/day16/input.txt";
+  private static final String START = "AA";
+  // Bounds the best[mask] tables at 2^24 ints.
+  private static final int MAX_USEFUL_VALVES = 24;
+  private static final int UNREACHABLE = 1 << 20;
 
   private static final Pattern REGEX = Pattern
       .compile("^Valve\\ (.+)\\ has\\ flow\\ rate=(\\d+);\\ tunnels?\\ leads?\\ to\\ valves?\\ (.+)$");
 
   public static void main(String[] args) throws Exception {
-    // Debug.enablePrint();
-    Volcano volcano = Volcano.build(InputHelper.linesFromResource(INPUT));
+    Volcano volcano = Volcano.build(InputHelper.readLines(INPUT).stream(), START);
     Stats.startTimer("main");
-    System.out.println("Part 1: " + volcano.maxmimizePressureReleased(State.start("AA", 30)));
-    System.out.println("Part 2: " + volcano.maximizePressureReleasedWithElephant(State.start("AA", 30)));
+    System.out.println("Part 1: " + volcano.maximizePressureReleased(30));
+    System.out.println("Part 2: " + volcano.maximizePressureReleasedWithElephant(30));
     Stats.endTimer("main");
     // Stats.print(System.out);
   }
 
+  /**
+   * The valves worth opening (non-zero flow rate), numbered 0..k-1 so that a
+   * set of opened valves is a k-bit mask, and the travel times between them.
+   */
   private static class Volcano {
-    private final Map<String, Integer> valves;
-    private final Map<String, Map<String, Integer>> shortestPaths;
+    private final int[] flowRates;
+    // distances[i][j] is the travel time from valve i to valve j; index k is the start.
+    private final int[][] distances;
 
-    private final Map<State, Set<ValveSequence>> cache = new HashMap<>();
-
-    private Volcano(Map<String, Integer> valves, Map<String, Map<String, Integer>> shortestPaths) {
-      this.valves = valves;
-      this.shortestPaths = shortestPaths;
+    private Volcano(int[] flowRates, int[][] distances) {
+      this.flowRates = flowRates;
+      this.distances = distances;
     }
 
     static Map<String, Map<String, Integer>> computeAllShortestPaths(Map<String, List<String>> tunnels) {
-      return tunnels.keySet().stream()
-          .collect(Collectors.toMap(key -> key, key -> computeShortestPaths(key, tunnels)));
-    }
-
-    static Map<String, Integer> computeShortestPaths(String start, Map<String, List<String>> tunnels) {
-      Queue<String> queue = new LinkedList<>();
-      Map<String, Integer> shortestPaths = new HashMap<>();
-
-      shortestPaths.put(start, 0);
-      queue.offer(start);
-
-      while (!queue.isEmpty()) {
-        String current = queue.poll();
-        int path = shortestPaths.get(current);
-        for (String next : tunnels.get(current)) {
-          if (shortestPaths.containsKey(next)) {
-            continue;
+      List<String> names = new ArrayList<>(tunnels.keySet());
+      Map<String, Integer> ids = new HashMap<>();
+      for (int i = 0; i < names.size(); i++) {
+        ids.put(names.get(i), i);
+      }
+      int[][] adjacent = names.stream()
+          .map(name -> tunnels.get(name).stream().mapToInt(ids::get).toArray())
+          .toArray(int[][]::new);
+      Graph graph = (node, edges) -> {
+        for (int next : adjacent[node]) {
+          edges.accept(next, 1);
+        }
+      };
+
+      Map<String, Map<String, Integer>> shortestPaths = new HashMap<>();
+      for (int start = 0; start < names.size(); start++) {
+        SearchResult result = Search.bfs(names.size(), graph, start, Search.NO_TARGET);
+        Map<String, Integer> fromStart = new HashMap<>();
+        for (int end = 0; end < names.size(); end++) {
+          if (result.reached(end)) {
+            fromStart.put(names.get(end), result.distance(end));
           }
-          shortestPaths.put(next, path + 1);
-          queue.offer(next);
         }
+        shortestPaths.put(names.get(start), fromStart);
       }
       return shortestPaths;
     }
 
-    static Volcano build(Stream<String> input) {
+    static Volcano build(Stream<String> input, String start) {
       final Map<String, Integer> valves = new HashMap<>();
       final Map<String, List<String>> tunnels = new HashMap<>();
       input.map(REGEX::matcher)
@@ -90,100 +96,72 @@ public class ProboscideaVolcanium {
           });
 
       Map<String, Map<String, Integer>> shortestPaths = computeAllShortestPaths(tunnels);
-      return new Volcano(
-          Collections.unmodifiableMap(valves),
-          Collections.unmodifiableMap(shortestPaths));
-    }
-
-    int maxmimizePressureReleased(State state) {
-      return findAllValveSequences(state).stream().mapToInt(ValveSequence::pressureReleased).max().orElse(0);
-    }
-
-    Set<ValveSequence> findAllValveSequences(State state) {
-      Set<ValveSequence> valveSequences = cache.get(state);
-      if (valveSequences != null) {
-        return valveSequences;
+      List<String> useful = valves.keySet().stream().filter(v -> valves.get(v) > 0).sorted().toList();
+      if (useful.size() > MAX_USEFUL_VALVES) {
+        throw new IllegalArgumentException(
+            String.format("%d valves with flow; at most %d fit the bitmask tables", useful.size(), MAX_USEFUL_VALVES));
       }
-      valveSequences = new HashSet<>();
-
-      Set<String> remaining = new HashSet<>(valves.keySet());
-      remaining.removeAll(state.opened);
-
-      for (String valve : remaining) {
-        int timeTaken = shortestPaths.get(state.current).get(valve) + 1;
-        if (timeTaken < state.timeRemaining && valves.get(valve) > 0) {
-          int pressureReleasedFromValve = (state.timeRemaining - timeTaken) * valves.get(valve);
-          State newState = state.afterOpeningValve(valve, timeTaken);
-          Set<ValveSequence> nextValveSequences = findAllValveSequences(newState);
-          valveSequences.add(ValveSequence.of(valve, pressureReleasedFromValve));
-          nextValveSequences.stream()
-              .map(vs -> vs.appendFront(valve, pressureReleasedFromValve))
-              .forEach(valveSequences::add);
+      int k = useful.size();
+      int[] flowRates = useful.stream().mapToInt(valves::get).toArray();
+      int[][] distances = new int[k + 1][k];
+      for (int i = 0; i <= k; i++) {
+        Map<String, Integer> from = shortestPaths.get(i < k ? useful.get(i) : start);
+        for (int j = 0; j < k; j++) {
+          distances[i][j] = from.getOrDefault(useful.get(j), UNREACHABLE);
         }
       }
-      cache.put(state, valveSequences);
-      return valveSequences;
+      return new Volcano(flowRates, distances);
     }
 
-    int maximizePressureReleasedWithElephant(State state) {
-      state = state.subtractTime(4);
-      Set<ValveSequence> sequences = findAllValveSequences(state);
-      Debug.println("%d sequences", sequences.size());
+    int maximizePressureReleased(int time) {
+      return Arrays.stream(bestByOpened(time)).max().orElse(0);
+    }
 
-      // "Optimization"? - only consider the top 1500 sequences by pressure released.
-      sequences = sequences.stream().sorted((a, b) -> Integer.compare(b.pressureReleased(), a.pressureReleased()))
-          .limit(1500).collect(Collectors.toSet());
-      int maximum = 0;
-      for (ValveSequence selfSeq : sequences) {
-        Debug.printlnEveryN(1000, "max so far = %d", maximum);
-        for (ValveSequence elephantSeq : sequences) {
-          if (selfSeq == elephantSeq) {
-            continue;
-          }
-          if (selfSeq.opened().size() > valves.size() - elephantSeq.opened().size()) {
-            continue;
-          }
-          if (!selfSeq.disjoint(elephantSeq)) {
-            continue;
+    /**
+     * We and the elephant open disjoint sets of valves, so the answer is the
+     * best split of the valves into our set and a set the elephant could
+     * open at least as well as any subset of it.
+     */
+    int maximizePressureReleasedWithElephant(int time) {
+      // Four minutes go to teaching the elephant.
+      int[] best = bestByOpened(time - 4);
+      int[] bestWithin = best.clone();
+      // Sum over subsets: afterwards bestWithin[mask] is the max of best over the submasks of mask.
+      for (int bit = 1; bit < bestWithin.length; bit <<= 1) {
+        for (int mask = 0; mask < bestWithin.length; mask++) {
+          if ((mask & bit) != 0) {
+            bestWithin[mask] = Math.max(bestWithin[mask], bestWithin[mask ^ bit]);
           }
-          maximum = Math.max(maximum, selfSeq.pressureReleased() + elephantSeq.pressureReleased());
         }
       }
+      int all = best.length - 1;
+      int maximum = 0;
+      for (int mask = 0; mask < best.length; mask++) {
+        // Unreachable sets stay at 0 and so never beat a reachable one.
+        maximum = Math.max(maximum, best[mask] + bestWithin[all & ~mask]);
+      }
       return maximum;
     }
-  }
-
-  static record State(String current, Set<String> opened, int timeRemaining) {
-    static State start(String start, int timeRemaining) {
-      return new State(start, Set.of(), timeRemaining);
-    }
-
-    State afterOpeningValve(String valve, int timeTaken) {
-      Set<String> opened = new HashSet<>(this.opened);
-      opened.add(valve);
-      return new State(valve, opened, timeRemaining - timeTaken);
-    }
 
-    State subtractTime(int timeDelta) {
-      return new State(current, opened, timeRemaining - timeDelta);
-    }
-  }
-
-  static record ValveSequence(TreeSet<String> opened, int pressureReleased) {
-    static ValveSequence of(String valve, int pressureReleased) {
-      TreeSet<String> opened = new TreeSet<>();
-      opened.add(valve);
-      return new ValveSequence(opened, pressureReleased);
-    }
-
-    ValveSequence appendFront(String valve, int pressureReleasedFromValve) {
-      return new ValveSequence(
-          Stream.concat(Stream.of(valve), opened.stream()).collect(Collectors.toCollection(TreeSet::new)),
-          pressureReleased + pressureReleasedFromValve);
+    /** best[mask] is the most pressure released by opening exactly the valves in mask, in some order, within time. */
+    int[] bestByOpened(int time) {
+      int[] best = new int[1 << flowRates.length];
+      openValves(flowRates.length, time, 0, 0, best);
+      if (Trace.INFO) {
+        Trace.event("ProboscideaVolcanium.reachableSets", Arrays.stream(best).filter(b -> b > 0).count());
+      }
+      return best;
     }
 
-    boolean disjoint(ValveSequence other) {
-      return Collections.disjoint(opened, other.opened);
+    private void openValves(int current, int timeRemaining, int opened, int released, int[] best) {
+      best[opened] = Math.max(best[opened], released);
+      for (int valve = 0; valve < flowRates.length; valve++) {
+        int timeAfterOpening = timeRemaining - distances[current][valve] - 1;
+        if ((opened & (1 << valve)) == 0 && timeAfterOpening > 0) {
+          openValves(valve, timeAfterOpening, opened | (1 << valve),
+              released + timeAfterOpening * flowRates[valve], best);
+        }
+      }
     }
   }
 }
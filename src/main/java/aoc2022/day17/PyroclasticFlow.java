@@ -1,225 +1,193 @@
 package aoc2022.day17;
 
-import java.io.IOException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.BitSet;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import aoccommon.CycleDetector;
 import aoccommon.InputHelper;
-import aoccommon.Point;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/17}. */
 public class PyroclasticFlow {
 
-  private static record Rock(Set<Point> relativePoints) {
-    Set<Point> getActualPoints(Point origin) {
-      return relativePoints.stream().map(p -> Point.of(origin.getX() + p.getX(), origin.getY() + p.getY()))
-          .collect(Collectors.toSet());
-    }
-
-    int rightEdge(Point origin) {
-      return relativePoints.stream().mapToInt(Point::getX).map(x -> origin.getX() + x).max().orElse(0);
-    }
-  }
-
-  private static record MoveAndShapeState(int moveIndex, int rockIndex) {
+  /** A rock as bit masks of its rows from the bottom up, bit x set for column x when at the left wall. */
+  private static record Rock(int[] rows, int width) {
   }
 
-  private static record RockAndHeightState(int rocksDropped, int highestRock) {
-  }
-
-  private static record Pattern(MoveAndShapeState state, int rockFrequency, int heightDelta) {
+  /** Everything that determines how future rocks fall: the sequence positions and the reachable surface. */
+  private static record Snapshot(int moveIndex, int rockIndex, BitSet surface) {
   }
 
   private static final String INPUT = "aoc2022/day17/input.txt";
-  private static final boolean DEBUG = false;
 
-  // Rock shapes are points relative to bottom left corner.
-  private static final List<Rock> SHAPES = List.of(
-      new Rock(Set.of(Point.of(0, 0), Point.of(1, 0), Point.of(2, 0), Point.of(3, 0))),
-      new Rock(Set.of(Point.of(0, -1), Point.of(1, -1), Point.of(2, -1), Point.of(1, -2), Point.of(1, 0))),
-      new Rock(Set.of(Point.of(0, 0), Point.of(1, 0), Point.of(2, 0), Point.of(2, -1), Point.of(2, -2))),
-      new Rock(Set.of(Point.of(0, 0), Point.of(0, -1), Point.of(0, -2), Point.of(0, -3))),
-      new Rock(Set.of(Point.of(0, 0), Point.of(1, 0), Point.of(0, -1), Point.of(1, -1))));
+  private static final Rock[] SHAPES = {
+      new Rock(new int[] {0b1111}, 4),
+      new Rock(new int[] {0b010, 0b111, 0b010}, 3),
+      new Rock(new int[] {0b111, 0b100, 0b100}, 3),
+      new Rock(new int[] {0b1, 0b1, 0b1, 0b1}, 1),
+      new Rock(new int[] {0b11, 0b11}, 2),
+  };
 
   private static final int WIDTH = 7;
+  private static final int FULL_ROW = (1 << WIDTH) - 1;
   private static final int LEFT_OFFSET = 2;
   private static final int BOTTOM_OFFSET = 3;
 
+  /**
+   * The chamber as one byte per row in a ring buffer. Rows from floor up to
+   * top are kept; everything below floor is out of reach of any falling rock
+   * and is treated as solid, so memory depends on the depth of the surface
+   * rather than the number of rocks dropped.
+   */
   private static class RockChamber {
-    private final List<Character> sequence;
-    private final Set<Point> filled = new HashSet<>();
-
-    private int highestRock = 0;
-
-    private RockChamber(List<Character> sequence) {
-      this.sequence = Collections.unmodifiableList(sequence);
+    private final boolean[] pushesRight;
+
+    private byte[] rows = new byte[64];
+    private int mask = rows.length - 1;
+    // Row y (0 is just above the chamber floor) lives at rows[y & mask] for floor <= y < top; other slots are 0.
+    private int floor = 0;
+    private int top = 0;
+    private int moveSequence = 0;
+    private long rocksDropped = 0;
+
+    private RockChamber(boolean[] pushesRight) {
+      this.pushesRight = pushesRight;
     }
 
-    static RockChamber initialize(List<Character> sequence) {
-      RockChamber chamber = new RockChamber(sequence);
-      IntStream.range(0, WIDTH).mapToObj(x -> Point.of(x, 0)).forEach(chamber.filled::add);
-      return chamber;
+    static RockChamber initialize(String jets) {
+      boolean[] pushesRight = new boolean[jets.length()];
+      for (int i = 0; i < jets.length(); i++) {
+        pushesRight[i] = jets.charAt(i) == '>';
+      }
+      return new RockChamber(pushesRight);
     }
 
     int getHeight() {
-      return 0 - highestRock;
+      return top;
     }
 
-    void clear() {
-      filled.clear();
-      IntStream.range(0, WIDTH).mapToObj(x -> Point.of(x, 0)).forEach(filled::add);
-      highestRock = 0;
+    /**
+     * Drops rocks until the chamber repeats a previous state.
+     *
+     * @return height after any number of rocks.
+     */
+    CycleDetector.History simulate() {
+      CycleDetector.History history =
+          CycleDetector.history(this, RockChamber::dropNextRock, RockChamber::snapshot, RockChamber::getHeight);
+      if (Trace.INFO) {
+        Trace.event("PyroclasticFlow.cycle", history.cycle().prefixLength(), history.cycle().period());
+      }
+      return history;
     }
 
-    boolean topRowFilled() {
-      return IntStream.range(0, WIDTH).mapToObj(x -> Point.of(x, highestRock)).allMatch(filled::contains);
+    RockChamber dropNextRock() {
+      dropRock(SHAPES[(int) (rocksDropped++ % SHAPES.length)]);
+      trimUnreachableRows();
+      return this;
     }
 
-    /**
-     * @return maximum height reached.
-     */
-    long dropRocks(long numRocks) {
-      clear();
-      int moveSequence = 0;
-
-      // Cached map of move sequence index -> rock shape index -> height when the top row is filled.
-      // This is used to detect repeating cycles and extrapolate height for larger numbers of rocks.
-      Map<MoveAndShapeState, RockAndHeightState> cache = new HashMap<>();
-
-      int iterations = (int) Math.min(numRocks, (long) Integer.MAX_VALUE);
-      Optional<Pattern> detectedPattern = Optional.empty();
-      
-      int i = 0;
-      for (; i < iterations; i++) {
-        Rock shape = SHAPES.get(i % SHAPES.size());
-
-        if (topRowFilled()) {
-          MoveAndShapeState state = new MoveAndShapeState(moveSequence % sequence.size(), i % SHAPES.size());
-          RockAndHeightState lastSeen = cache.get(state);
-          if (lastSeen != null) {
-            detectedPattern = Optional.of(
-              new Pattern(state, i - lastSeen.rocksDropped(), highestRock - lastSeen.highestRock()));
-            debug("Repeat! pattern=%s", detectedPattern);
-            break;
-          }
-          cache.put(state, new RockAndHeightState(i, highestRock));
-        }
-
-        moveSequence = dropRock(moveSequence, shape);
+    Snapshot snapshot() {
+      byte[] surface = new byte[top - floor];
+      for (int y = floor; y < top; y++) {
+        surface[y - floor] = rows[y & mask];
       }
+      return new Snapshot(moveSequence, (int) (rocksDropped % SHAPES.length), BitSet.valueOf(surface));
+    }
 
-      if (iterations == numRocks && detectedPattern.isEmpty()) {
-        return getHeight();
+    void dropRock(Rock rock) {
+      int x = LEFT_OFFSET;
+      int y = top + BOTTOM_OFFSET;
+      ensureCapacity(y + rock.rows().length);
+      while (true) {
+        int nextX = x + (pushesRight[moveSequence] ? 1 : -1);
+        moveSequence = moveSequence + 1 == pushesRight.length ? 0 : moveSequence + 1;
+        if (nextX >= 0 && nextX + rock.width() <= WIDTH && fits(rock, nextX, y)) {
+          x = nextX;
+        }
+        if (!fits(rock, x, y - 1)) {
+          break;
+        }
+        y--;
       }
-
-      // Extrapolate to a start from the detected pattern and then reply the rocks remaining.
-      Pattern pattern = detectedPattern.get();
-      long remainingRocks = numRocks - i;
-      long patternRepeats = remainingRocks / (long) pattern.rockFrequency();
-      long height = highestRock + (patternRepeats * (long) pattern.heightDelta());
-
-      int extraRocks = (int) (remainingRocks % pattern.rockFrequency());
-      int rockSequence = pattern.state().rockIndex();
-      
-      clear();
-      for (int e = 0; e < extraRocks; e++) {
-        Rock shape = SHAPES.get(rockSequence++ % SHAPES.size());
-        moveSequence = dropRock(moveSequence, shape);
+      for (int i = 0; i < rock.rows().length; i++) {
+        rows[(y + i) & mask] |= rock.rows()[i] << x;
       }
+      top = Math.max(top, y + rock.rows().length);
+    }
 
-      return 0 - (height + highestRock); 
+    private boolean fits(Rock rock, int x, int y) {
+      if (y < floor) {
+        return false;
+      }
+      for (int i = 0; i < rock.rows().length; i++) {
+        if ((rows[(y + i) & mask] & (rock.rows()[i] << x)) != 0) {
+          return false;
+        }
+      }
+      return true;
     }
 
     /**
-     * @return next moveSequence.
+     * Floods down from above the top row through empty cells (moving left,
+     * right and down, as rocks do). Unreached cells are filled in, so equal
+     * surfaces have equal rows, and rows with nothing reachable are dropped.
      */
-    int dropRock(int moveSequence, Rock shape) {
-      Point position = Point.of(LEFT_OFFSET, highestRock - BOTTOM_OFFSET - 1);
-      // print(shape, position);
-      while (true) {
-        char move = sequence.get(moveSequence++ % sequence.size());
-        // debug("move %s", move);
-        Point next = Point.of(position.getX() + (move == '>' ? 1 : -1), position.getY());
-        if (next.getX() >= 0 && shape.rightEdge(next) < WIDTH
-            && Collections.disjoint(shape.getActualPoints(next), filled)) {
-          position = next;
-        }
-        // print(shape, position);
-
-        next = Point.of(position.getX(), position.getY() + 1);
-        boolean atRest = shape.getActualPoints(next).stream().anyMatch(filled::contains);
-        if (atRest) {
-          shape.getActualPoints(position).forEach(p -> {
-            filled.add(p);
-            highestRock = Math.min(p.getY(), highestRock);
-          });
-          break;
-        } else {
-          position = next;
+    private void trimUnreachableRows() {
+      int reach = FULL_ROW;
+      int y = top - 1;
+      for (; y >= floor && reach != 0; y--) {
+        int free = ~rows[y & mask] & FULL_ROW;
+        reach &= free;
+        int spread;
+        while ((spread = (reach | (reach << 1) | (reach >>> 1)) & free) != reach) {
+          reach = spread;
         }
-        // print(shape, position);
+        rows[y & mask] = (byte) (~reach & FULL_ROW);
       }
-      return moveSequence;
+      // If the flood died out, nothing reached row y + 1: it is now solid and becomes the floor row.
+      int newFloor = reach == 0 ? y + 1 : floor;
+      for (int row = floor; row < newFloor; row++) {
+        rows[row & mask] = 0;
+      }
+      floor = newFloor;
     }
 
-    void debug(String fmt, Object... args) {
-      if (!DEBUG) {
+    private void ensureCapacity(int end) {
+      if (end - floor <= rows.length) {
         return;
       }
-      System.out.println(String.format(fmt, args));
+      int capacity = rows.length;
+      while (end - floor > capacity) {
+        capacity <<= 1;
+      }
+      byte[] grown = new byte[capacity];
+      for (int y = floor; y < top; y++) {
+        grown[y & (capacity - 1)] = rows[y & mask];
+      }
+      rows = grown;
+      mask = capacity - 1;
     }
 
-    @SuppressWarnings("unused")
-    void print(Rock shape, Point position) {
-      if (!DEBUG) {
-        return;
-      }
-      Set<Point> currentRock = shape.getActualPoints(position);
+    @Override
+    public String toString() {
       StringBuilder sb = new StringBuilder();
-      int height = getHeight() + BOTTOM_OFFSET + 4;
-      for (int y = 0 - height; y < 0; y++) {
+      for (int y = top - 1; y >= floor; y--) {
         sb.append('|');
         for (int x = 0; x < WIDTH; x++) {
-          Point p = Point.of(x, y);
-          if (currentRock.contains(p)) {
-            sb.append('@');
-          } else if (filled.contains(p)) {
-            sb.append('#');
-          } else {
-            sb.append('.');
-          }
+          sb.append((rows[y & mask] & (1 << x)) != 0 ? '#' : '.');
         }
-        sb.append('|');
-        sb.append('\n');
-      }
-      sb.append('+');
-      for (int i = 0; i < WIDTH; i++) {
-        sb.append('-');
-      }
-      sb.append('+');
-      System.out.println(sb.toString());
-
-      try {
-        System.in.read();
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+        sb.append("|\n");
       }
+      sb.append('+').append("~".repeat(WIDTH)).append('+');
+      return sb.toString();
     }
   }
 
   public static void main(String[] args) throws Exception {
     RockChamber chamber = RockChamber.initialize(
-        InputHelper.linesFromResource(INPUT).flatMapToInt(String::chars).mapToObj(c -> (char) c)
-            .collect(Collectors.toList()));
-    System.out.println("Part 1: " + chamber.dropRocks(2022));
-    // chamber.dropRocks(1000000000000L);
-    System.out.println("Part 2: " + chamber.dropRocks(1000000000000L));
+        InputHelper.readLines(INPUT).stream().collect(Collectors.joining()));
+    CycleDetector.History heights = chamber.simulate();
+    System.out.println("Part 1: " + heights.measureAt(2022));
+    System.out.println("Part 2: " + heights.measureAt(1000000000000L));
   }
 }
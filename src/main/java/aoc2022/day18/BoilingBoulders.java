@@ -1,14 +1,9 @@
 package aoc2022.day18;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import aoccommon.BitGrid3D;
 import aoccommon.InputHelper;
 import aoccommon.Point;
 
@@ -17,76 +12,39 @@ public class BoilingBoulders {
 
   private static final String INPUT = "aoc2022/day18/input.txt";
 
-  public static void main(String[] args) throws Exception {
-    Set<Point> cubes = InputHelper.linesFromResource(INPUT).map(Point::parse).collect(Collectors.toSet());
-
-    long externalSides = cubes.stream()
-        .map(BoilingBoulders::neighbours)
-        .mapToLong(s -> s.filter(n -> !cubes.contains(n)).count())
-        .sum();
+  private static final int[][] FACES = {
+      {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
 
-    System.out.println("Part 1: " + externalSides);
+  public static void main(String[] args) throws Exception {
+    Set<Point> cubes = InputHelper.readLines(INPUT).stream().map(Point::parse).collect(Collectors.toSet());
+    // One cell of air around the droplet so the outside is connected.
+    BitGrid3D lava = BitGrid3D.bounding(cubes, 1);
 
-    long reachableSides = countExternallyReachableSides(cubes);
+    System.out.println("Part 1: " + countSidesFacing(lava, lava.copy().not()));
 
-    System.out.println("Part 2: " + reachableSides);
+    System.out.println("Part 2: " + countSidesFacing(lava, floodExterior(lava)));
   }
 
-  private static Stream<Point> neighbours(Point cube) {
-    return Stream.of(
-        Point.of(cube.getX() - 1, cube.getY(), cube.getZ()),
-        Point.of(cube.getX() + 1, cube.getY(), cube.getZ()),
-        Point.of(cube.getX(), cube.getY() - 1, cube.getZ()),
-        Point.of(cube.getX(), cube.getY() + 1, cube.getZ()),
-        Point.of(cube.getX(), cube.getY(), cube.getZ() - 1),
-        Point.of(cube.getX(), cube.getY(), cube.getZ() + 1));
-  }
-
-  private static long countExternallyReachableSides(Set<Point> cubes) {
-    // Creating a bounding box larger than all the lava cubes.
-    int[] xrange = new int[2];
-    int[] yrange = new int[2];
-    int[] zrange = new int[2];
-    for (Point cube : cubes) {
-      xrange[0] = Math.min(cube.getX() - 1, xrange[0]);
-      yrange[0] = Math.min(cube.getY() - 1, yrange[0]);
-      zrange[0] = Math.min(cube.getZ() - 1, zrange[0]);
-
-      xrange[1] = Math.max(cube.getX() + 1, xrange[1]);
-      yrange[1] = Math.max(cube.getY() + 1, yrange[1]);
-      zrange[1] = Math.max(cube.getZ() + 1, zrange[1]);
+  /** Number of faces of cubes in lava whose neighbour across the face is in air. */
+  private static long countSidesFacing(BitGrid3D lava, BitGrid3D air) {
+    long sides = 0;
+    for (int[] face : FACES) {
+      sides += air.shift(face[0], face[1], face[2]).and(lava).popCount();
     }
-
-    Point start = Point.of(xrange[0], yrange[0], zrange[0]);
-
-    Queue<Point> queue = new LinkedList<>();
-    queue.offer(start);
-
-    Set<Point> visited = new HashSet<>();
-    visited.add(start);
-
-    Map<Point, Integer> sideCounter = new HashMap<>();
-
-    while (!queue.isEmpty()) {
-      final Point current = queue.poll();
-      neighbours(current)
-          .filter(n -> !visited.contains(n))
-          .filter(n -> inRange(n.getX(), xrange))
-          .filter(n -> inRange(n.getY(), yrange))
-          .filter(n -> inRange(n.getZ(), zrange))
-          .forEach(n -> {
-            if (cubes.contains(n)) {
-              sideCounter.compute(n, (k, v) -> v == null ? 1 : v + 1);
-            } else {
-              visited.add(n);
-              queue.offer(n);
-            }
-          });
-    }
-    return sideCounter.values().stream().mapToInt(i -> i).sum();
+    return sides;
   }
 
-  private static boolean inRange(int p, int[] range) {
-    return p >= range[0] && p <= range[1];
+  /** Air reachable from outside the droplet, grown one layer at a time from a corner. */
+  private static BitGrid3D floodExterior(BitGrid3D lava) {
+    BitGrid3D air = lava.copy().not();
+    BitGrid3D exterior = new BitGrid3D(lava.minX(), lava.minY(), lava.minZ(), lava.width(), lava.height(), lava.depth());
+    exterior.set(lava.minX(), lava.minY(), lava.minZ());
+    while (true) {
+      BitGrid3D next = exterior.neighbours6().or(exterior).and(air);
+      if (next.equals(exterior)) {
+        return exterior;
+      }
+      exterior = next;
+    }
   }
 }
@@ -1,262 +1,190 @@
 package aoc2022.day19;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import aoccommon.Debug;
 import aoccommon.InputHelper;
-import aoccommon.IntArray;
+import aoccommon.Solver;
 import aoccommon.Stats;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/19}. */
-public class NotEnoughMinerals {
+public class NotEnoughMinerals implements Solver<List<NotEnoughMinerals.Blueprint>> {
 
-  private static final String INPUT = "aoc2022/day19/example.txt";
+  private static final String INPUT = "aoc2022/day19/input.txt";
 
+  private final int part1Minutes;
+  private final int part2Minutes;
+
+  public NotEnoughMinerals() {
+    this(24, 32);
+  }
+
+  public NotEnoughMinerals(int part1Minutes, int part2Minutes) {
+    this.part1Minutes = part1Minutes;
+    this.part2Minutes = part2Minutes;
+  }
+
+  /** Optional arguments override the minute horizons of the two parts, e.g. "40 48". */
   public static void main(String[] args) throws Exception {
-    // Debug.enablePrint();
-    Stats.startTimer("parsing");
-    List<Blueprint> blueprints = InputHelper.linesFromResource(INPUT)
+    NotEnoughMinerals solver = args.length == 2
+        ? new NotEnoughMinerals(Integer.parseInt(args[0]), Integer.parseInt(args[1]))
+        : new NotEnoughMinerals();
+    Solver.run(solver, INPUT);
+  }
+
+  @Override
+  public List<Blueprint> parse(String resourceName) throws Exception {
+    return InputHelper.readLines(resourceName).stream()
         .map(Blueprint::parse)
         .collect(Collectors.toList());
-    Stats.endTimer("parsing");
-
-    List<Factory> factories = blueprints.stream().map(Factory::new).collect(Collectors.toList());
+  }
 
-    Stats.startTimer("part1");
-    int qualityLevelSum = factories.stream()
-        .mapToInt(factory -> {
-          // Result result = factory.produceMaximumGeodes(State.start(24));
-          // replay(factory.blueprint, result, State.start(24));
-          // return factory.blueprint.id() * result.geodeProduced();
-          return factory.blueprint.id() * factory.produceMaximumGeodes(State.start(24));
-        })
+  @Override
+  public Integer part1(List<Blueprint> blueprints) {
+    // Blueprints are independent, so each is optimised on its own fork-join worker.
+    return blueprints.parallelStream()
+        .mapToInt(blueprint -> blueprint.id() * new Optimizer(blueprint).maximumGeodes(part1Minutes))
         .sum();
-    System.out.println("Part 1: " + qualityLevelSum);
-    Stats.endTimer("part1");
+  }
 
-    Stats.startTimer("part2");
-    long blueprintSubsetGeodeProduct = factories.stream()
+  @Override
+  public Long part2(List<Blueprint> blueprints) {
+    return blueprints.stream()
         .limit(3)
-        .mapToLong(factory -> {
-          // Result result = factory.produceMaximumGeodes(State.start(32));
-          // System.out.println(result);
-          // replay(factory.blueprint, result, State.start(32));
-          // return result.geodeProduced();
-          return factory.produceMaximumGeodes(State.start(32));
-        })
+        .parallel()
+        .mapToLong(blueprint -> new Optimizer(blueprint).maximumGeodes(part2Minutes))
         .reduce(1, (a, b) -> a * b);
-    System.out.println("Part 2: " + blueprintSubsetGeodeProduct);
-    Stats.endTimer("part2");
-    // Stats.print(System.out);
   }
 
-  @SuppressWarnings("unused")
-  private static void replay(Blueprint blueprint, Result result, State start) {
-    int[] robots = new int[] { 1, 0, 0, 0 };
-    int[] resources = new int[4];
-    for (int i = 1; i <= start.timeRemaining(); i++) {
-      int timeRemaining = start.timeRemaining() - i + 1;
-      Debug.println("== Minute %d ==", i);
-      Resource createdRobot = result.robotTimestamps().get(timeRemaining);
-      if (createdRobot != null) {
-        String cost = blueprint.recipes().get(createdRobot).cost().entrySet().stream()
-            .map(e -> String.format("%d %s", e.getValue(), e.getKey()))
-            .collect(Collectors.joining(" and "));
-        blueprint.recipes().get(createdRobot).cost().entrySet().stream()
-            .forEach(e -> resources[e.getKey().ordinal()] -= e.getValue());
-        Debug.println("Spend %s to start building a %s-collecting robot.", cost, createdRobot);
-      }
-
-      for (Resource r : Resource.values()) {
-        int numRobots = robots[r.ordinal()];
-        if (numRobots == 0) {
-          continue;
-        }
-        resources[r.ordinal()] += numRobots;
-        int amount = resources[r.ordinal()];
-        Debug.println("%d %s-collecting %s %d %s; you now have %d %s.", numRobots, r,
-            numRobots == 1 ? "robot collects" : "robots collect", numRobots, r, amount, r);
-      }
-
-      if (createdRobot != null) {
-        int numRobots = ++robots[createdRobot.ordinal()];
-        Debug.println("The new %s-collecting robot is ready; you now have %d of them.", createdRobot, numRobots);
+  /**
+   * Depth-first branch and bound over "which robot to build next", jumping
+   * straight to the minute it is built. Geodes are credited for a geode
+   * robot's whole remaining lifetime as soon as it is built, so the state
+   * needs no geode counts. Not thread-safe; use one per blueprint.
+   */
+  static final class Optimizer {
+    private static final int ORE = Resource.ORE.ordinal();
+    private static final int CLAY = Resource.CLAY.ordinal();
+    private static final int OBSIDIAN = Resource.OBSIDIAN.ordinal();
+    private static final int GEODE = Resource.GEODE.ordinal();
+    // Geode robots first, so good solutions are found early and prune the rest.
+    private static final int[] BUILD_ORDER = {GEODE, OBSIDIAN, CLAY, ORE};
+
+    // costs[robot][resource] for the three spendable resources.
+    private final int[][] costs = new int[4][3];
+    // No point having more robots of a resource than can be spent in one minute.
+    private final int[] maxSpend = new int[3];
+    private final Stats.Counter nodes = Stats.counter("NotEnoughMinerals.nodes");
+    private final Stats.Counter pruned = Stats.counter("NotEnoughMinerals.pruned");
+    private int best;
+
+    Optimizer(Blueprint blueprint) {
+      for (Resource robot : Resource.values()) {
+        blueprint.recipes().get(robot).cost().forEach((resource, amount) -> {
+          costs[robot.ordinal()][resource.ordinal()] = amount;
+          maxSpend[resource.ordinal()] = Math.max(maxSpend[resource.ordinal()], amount);
+        });
       }
-      Debug.println("");
-    }
-  }
-
-  // Temporary data structure for debugging.
-  @SuppressWarnings("unused")
-  private static record Result(Map<Integer, Resource> robotTimestamps, int geodeProduced, List<State> states) {
-    Result update(int timeRemaining, Resource robotCreated, int additionalGeode, State state) {
-      Map<Integer, Resource> copy = new HashMap<>(robotTimestamps);
-      copy.put(timeRemaining, robotCreated);
-      List<State> statesCopy = new ArrayList<>(states);
-      statesCopy.add(state);
-      return new Result(copy, geodeProduced + additionalGeode, statesCopy);
-    }
-  }
-
-  private static class Factory {
-    private final Blueprint blueprint;
-
-    // Memoized cache of state -> produced geodes.
-    private final Map<State, Integer> cache = new HashMap<>();
-
-    Factory(Blueprint blueprint) {
-      this.blueprint = blueprint;
     }
 
-    Integer produceMaximumGeodes(State state) {
-      Integer result = cache.get(state);
-      if (result != null) {
-        return result;
+    int maximumGeodes(int minutes) {
+      best = 0;
+      search(minutes, new int[] {0, 0, 0}, new int[] {1, 0, 0}, 0);
+      if (Trace.DEBUG) {
+        Trace.event("NotEnoughMinerals.best", minutes, best);
       }
-      if (state.timeRemaining() <= 2) {
-        // result = new Result(Map.of(), 0, List.of(state));
-        result = 0;
-      } else {
-        // For each type of robot, check a) do we want to keep building this robot and
-        // b) when can we build it next.
-        Map<Resource, Integer> nextRobots = Arrays.stream(Resource.values())
-            .filter(r -> shouldKeepBuildingRobot(state, r))
-            .collect(Collectors.toMap(r -> r, r -> minutesUntilRobotCanBeBuilt(state, r)));
-
-        // For each possibile robot, fast forward to the state after it's been built and
-        // recurse.
-        result = nextRobots.entrySet().stream()
-            .filter(e -> e.getValue() < state.timeRemaining() - 1)
-            .mapToInt(robotToBuild -> {
-
-              State fastForward = fastForward(state, robotToBuild.getKey(), robotToBuild.getValue());
-              int lifetimeGeodeProducedByNewRobot = robotToBuild.getKey() == Resource.GEODE
-                  ? Math.max(1, fastForward.timeRemaining())
-                  : 0;
-              // Result subResult = produceMaximumGeodes(fastForward);
-              // return subResult.update(fastForward.timeRemaining() + 1,
-              // robotToBuild.getKey(),
-              // lifetimeGeodeProducedByNewRobot, fastForward);
-              return lifetimeGeodeProducedByNewRobot + produceMaximumGeodes(fastForward);
-            })
-            // .sorted((r1, r2) -> Integer.compare(r2.geodeProduced(), r1.geodeProduced()))
-            // .findFirst()
-            // .orElse(new Result(Map.of(), 0, List.of(state)));
-            .max().orElse(0);
-      }
-
-      cache.put(state, result);
-      return result;
+      return best;
     }
 
-    boolean shouldKeepBuildingRobot(State state, Resource type) {
-      if (state.timeRemaining() <= 1) {
-        return false;
-      }
-      if (type == Resource.GEODE) {
-        return true;
-      }
-      // Optimization - if we're already producing enough of this resource to build
-      // any possible robot, don't bother building more. Consider both on any
-      // individual turn as well as the total possible production with current stock.
-      int robotsCreatingResource = state.robots().get()[type.ordinal()];
-      int currentStockOfResource = state.consumables().get()[type.ordinal()];
-      int totalPossibleProduction = robotsCreatingResource * state.timeRemaining();
-
-      int maximumResourceRequiredForBuild = blueprint.recipes().values().stream()
-          .map(RobotRecipe::cost)
-          .map(Map::entrySet)
-          .flatMap(Set::stream)
-          .filter(e -> e.getKey() == type)
-          .mapToInt(Map.Entry::getValue)
-          .max()
-          .orElse(0);
-      int totalMaxRequired = maximumResourceRequiredForBuild * state.timeRemaining();
-
-      if (robotsCreatingResource >= maximumResourceRequiredForBuild) {
-        return false;
+    private void search(int timeRemaining, int[] stock, int[] robots, int geodes) {
+      nodes.increment();
+      best = Math.max(best, geodes);
+      if (upperBound(timeRemaining, stock[OBSIDIAN], robots[OBSIDIAN], geodes) <= best) {
+        pruned.increment();
+        return;
       }
-      if (totalPossibleProduction + currentStockOfResource > totalMaxRequired) {
-        return false;
+      for (int robot : BUILD_ORDER) {
+        if (robot != GEODE && !worthBuilding(robot, timeRemaining, stock, robots)) {
+          continue;
+        }
+        int wait = minutesUntilAffordable(robot, stock, robots);
+        // The robot must be ready with a minute left in which to work.
+        if (wait >= timeRemaining - 1) {
+          continue;
+        }
+        int elapsed = wait + 1;
+        int[] nextStock = new int[3];
+        for (int r = 0; r < 3; r++) {
+          nextStock[r] = stock[r] + elapsed * robots[r] - costs[robot][r];
+        }
+        int nextTime = timeRemaining - elapsed;
+        if (robot == GEODE) {
+          search(nextTime, nextStock, robots, geodes + nextTime);
+        } else {
+          robots[robot]++;
+          search(nextTime, nextStock, robots, geodes);
+          robots[robot]--;
+        }
       }
-      return true;
     }
 
-    int minutesUntilRobotCanBeBuilt(State state, Resource type) {
-      return blueprint.recipes().get(type).cost().entrySet().stream()
-          .mapToInt(cost -> {
-            double productionRate = state.robots().get()[cost.getKey().ordinal()];
-            double currentStock = state.consumables().get()[cost.getKey().ordinal()];
-            double required = cost.getValue();
-            if (currentStock >= required) {
-              return 0;
-            }
-            if (productionRate == 0) {
-              return Integer.MAX_VALUE;
-            }
-            return (int) Math.ceil((required - currentStock) / productionRate);
-          })
-          .max()
-          .orElse(Integer.MAX_VALUE);
+    /**
+     * Whether another robot of this type could ever be used: we neither make
+     * enough per minute to afford any recipe already, nor hold enough stock
+     * (plus production) to cover the most the remaining minutes could spend.
+     */
+    private boolean worthBuilding(int robot, int timeRemaining, int[] stock, int[] robots) {
+      return robots[robot] < maxSpend[robot]
+          && robots[robot] * timeRemaining + stock[robot] < maxSpend[robot] * timeRemaining;
     }
 
-    State fastForward(State state, Resource robotToBuild, int minutes) {
-      IntArray wrappedResources = state.consumables().copy();
-      int[] resources = wrappedResources.get();
-
-      // First - produce resources from existing robots for N+1 (enough to start
-      // creating the robot and then one more minute) minutes.
-      for (int i = 0; i < 3; i++) {
-        resources[i] = resources[i] + ((minutes + 1) * state.robots().get()[i]);
-      }
-
-      // Second - consume resources to start building a new robot.
-      blueprint.recipes().get(robotToBuild).cost().entrySet()
-          .forEach(cost -> resources[cost.getKey().ordinal()] = resources[cost.getKey().ordinal()] - cost.getValue());
-
-      // Finally - add the newly constructed robot to the set of robots.
-      IntArray robots = state.robots();
-      // Exclude GEODE robots as they are accounted outside of the state.
-      if (robotToBuild != Resource.GEODE) {
-        robots = robots.copy();
-        robots.get()[robotToBuild.ordinal()]++;
+    private int minutesUntilAffordable(int robot, int[] stock, int[] robots) {
+      int wait = 0;
+      for (int r = 0; r < 3; r++) {
+        int shortfall = costs[robot][r] - stock[r];
+        if (shortfall > 0) {
+          if (robots[r] == 0) {
+            return Integer.MAX_VALUE;
+          }
+          wait = Math.max(wait, (shortfall + robots[r] - 1) / robots[r]);
+        }
       }
-
-      return new State(robots, wrappedResources, state.timeRemaining() - minutes - 1);
+      return wait;
     }
-  }
 
-  // State for memoization. Note robot and consumable totals don't not include
-  // geodes to cut down on the number of states.
-  // A geode robot is forward-counted as soon as it is created.
-  private static record State(IntArray robots, IntArray consumables, int timeRemaining) {
-    static State start(int timeRemaining) {
-      return new State(
-          IntArray.of(1, 0, 0),
-          IntArray.of(0, 0, 0),
-          timeRemaining);
+    /**
+     * Geodes if ore and clay were free: every minute a new obsidian robot is
+     * built, and a geode robot too whenever the obsidian stock allows.
+     */
+    private int upperBound(int timeRemaining, int obsidian, int obsidianRobots, int geodes) {
+      int bound = geodes;
+      int geodeCost = costs[GEODE][OBSIDIAN];
+      for (int t = timeRemaining - 1; t > 0; t--) {
+        if (obsidian >= geodeCost) {
+          obsidian -= geodeCost;
+          bound += t;
+        }
+        obsidian += obsidianRobots++;
+      }
+      return bound;
     }
   }
 
-  private static enum Resource {
+  static enum Resource {
     ORE,
     CLAY,
     OBSIDIAN,
     GEODE,
   }
 
-  private static record RobotRecipe(Resource type, Map<Resource, Integer> cost) {
+  static record RobotRecipe(Resource type, Map<Resource, Integer> cost) {
   }
 
-  private static record Blueprint(int id, Map<Resource, RobotRecipe> recipes) {
+  static record Blueprint(int id, Map<Resource, RobotRecipe> recipes) {
 
     private static final Pattern REGEX = Pattern.compile(
         "^Blueprint\\ (\\d+):\\ " +
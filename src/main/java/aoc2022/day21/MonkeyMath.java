@@ -1,14 +1,18 @@
 package aoc2022.day21;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import aoccommon.Debug;
 import aoccommon.InputHelper;
+import aoccommon.Rational;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/21}. */
 public class MonkeyMath {
@@ -18,113 +22,147 @@ public class MonkeyMath {
   private static final String HUMAN = "humn";
 
   public static void main(String[] args) throws Exception {
-    // Debug.enablePrint();
-    Map<String, Monkey> monkeys = InputHelper.linesFromResource(INPUT)
+    Map<String, Monkey> monkeys = InputHelper.readLines(INPUT).stream()
         .map(Monkey::parse)
         .collect(Collectors.toMap(Monkey::id, m -> m));
+    CompiledMonkeys compiled = CompiledMonkeys.compile(monkeys);
 
-    System.out.println("Part 1: " + yell(monkeys, "root"));
-
-    MonkeySolver solver = new MonkeySolver(monkeys);
-    long humn = solver.solveForHuman();
-
-    System.out.println("Part 2: " + humn);
+    System.out.println("Part 1: " + compiled.evaluate());
+    System.out.println("Part 2: " + compiled.solveForHuman());
   }
 
-  private static long yell(Map<String, Monkey> monkeys, String id) {
-    Monkey monkey = monkeys.get(id);
-    if (monkey.job == Job.NUMBER) {
-      return monkey.number();
+  /**
+   * The monkeys reachable from root as int-indexed nodes in topological
+   * order (every monkey after the two it listens to), so each evaluation is
+   * one pass over primitive arrays.
+   */
+  private static final class CompiledMonkeys {
+    private static final int NUMBER = -1;
+    private static final int VISITING = -1;
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    // operations[i] is an Operation ordinal, or NUMBER for a monkey that yells numbers[i].
+    private final int[] operations;
+    private final int[] lefts;
+    private final int[] rights;
+    private final long[] numbers;
+    private final int root;
+    private final int human;
+
+    private CompiledMonkeys(int[] operations, int[] lefts, int[] rights, long[] numbers, int root, int human) {
+      this.operations = operations;
+      this.lefts = lefts;
+      this.rights = rights;
+      this.numbers = numbers;
+      this.root = root;
+      this.human = human;
     }
 
-    long left = yell(monkeys, monkey.left());
-    long right = yell(monkeys, monkey.right());
-    return monkey.operation().apply(left, right);
-  }
-
-  private static class MonkeySolver {
-    private final Map<String, Monkey> monkeys;
-    private final Map<String, Long> resolved = new HashMap<>();
-
-    MonkeySolver(Map<String, Monkey> monkeys) {
-      this.monkeys = monkeys;
-    }
+    static CompiledMonkeys compile(Map<String, Monkey> monkeys) {
+      // Iterative post-order DFS from root: a monkey is numbered once both its operands are.
+      Map<String, Integer> indices = new HashMap<>();
+      List<Monkey> order = new ArrayList<>();
+      Deque<String> stack = new ArrayDeque<>();
+      stack.push(ROOT);
+      while (!stack.isEmpty()) {
+        String id = stack.peek();
+        Monkey monkey = monkeys.get(id);
+        if (monkey == null) {
+          throw new IllegalArgumentException("unknown monkey: " + id);
+        }
+        Integer index = indices.get(id);
+        if (index == null) {
+          indices.put(id, VISITING);
+          if (monkey.job == Job.OPERATION) {
+            for (String operand : List.of(monkey.right(), monkey.left())) {
+              Integer operandIndex = indices.get(operand);
+              if (operandIndex != null && operandIndex == VISITING) {
+                throw new IllegalArgumentException("cycle through monkey " + operand);
+              }
+              stack.push(operand);
+            }
+          }
+          continue;
+        }
+        stack.pop();
+        if (index == VISITING) {
+          indices.put(id, order.size());
+          order.add(monkey);
+        }
+      }
 
-    long solveForHuman() {
-      int resolvedSize = -1;
-      while (resolvedSize < resolved.size()) {
-        resolvedSize = resolved.size();
-        monkeys.keySet().forEach(this::tryResolveMonkey);
-        Debug.println("Resolved %d more monkeys", resolved.size() - resolvedSize);
+      int n = order.size();
+      int[] operations = new int[n];
+      int[] lefts = new int[n];
+      int[] rights = new int[n];
+      long[] numbers = new long[n];
+      for (int i = 0; i < n; i++) {
+        Monkey monkey = order.get(i);
+        if (monkey.job == Job.NUMBER) {
+          operations[i] = NUMBER;
+          numbers[i] = monkey.number();
+        } else {
+          operations[i] = monkey.operation().ordinal();
+          lefts[i] = indices.get(monkey.left());
+          rights[i] = indices.get(monkey.right());
+        }
       }
-      resolveFromRoot();
-      return resolved.get(HUMAN);
+      return new CompiledMonkeys(operations, lefts, rights, numbers, n - 1, indices.getOrDefault(HUMAN, -1));
     }
 
-    void resolveFromRoot() {
-      Monkey root = monkeys.get(ROOT);
-      Long left = resolved.get(root.left());
-      Long right = resolved.get(root.right());
-      if (left == null && right == null) {
-        throw new IllegalStateException("Cannot resolve from root without solving one side");
-      }
-      if (left == null) {
-        resolveFromRoot(root.left(), right);
-        return;
-      } else if (right == null) {
-        resolveFromRoot(root.right(), left);
-        return;
+    /** What root yells, throwing ArithmeticException on overflow or inexact division. */
+    long evaluate() {
+      long[] values = new long[operations.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = operations[i] == NUMBER
+            ? numbers[i]
+            : OPERATIONS[operations[i]].apply(values[lefts[i]], values[rights[i]]);
       }
+      return values[root];
     }
 
-    void resolveFromRoot(String id, long expectedValue) {
-      if (id.equals(HUMAN)) {
-        return;
+    /**
+     * The number humn must yell for root's operands to be equal. Each monkey's
+     * value is carried as a linear function of humn with exact rational
+     * coefficients, so the equation at root is solved directly.
+     */
+    long solveForHuman() {
+      if (human < 0 || operations[root] == NUMBER) {
+        throw new IllegalStateException("root must depend on humn through an operation");
       }
-      Monkey root = monkeys.get(id);
-      Long left = resolved.get(root.left());
-      Long right = resolved.get(root.right());
-      Debug.println("Resolving [%s]=%d with left=%d and right=%d", root, expectedValue, left, right);
-
-      if (left == null && right == null) {
-        return;
+      Linear[] values = new Linear[operations.length];
+      for (int i = 0; i < values.length; i++) {
+        if (i == human) {
+          values[i] = Linear.HUMAN;
+        } else if (operations[i] == NUMBER) {
+          values[i] = Linear.constant(numbers[i]);
+        } else {
+          values[i] = OPERATIONS[operations[i]].apply(values[lefts[i]], values[rights[i]]);
+        }
       }
-      if (left != null && right != null) {
-        resolved.put(id, root.operation().apply(left, right));
+      // left - right = slope * humn + constant = 0.
+      Linear difference = Operation.SUBTRACT.apply(values[lefts[root]], values[rights[root]]);
+      if (Trace.DEBUG) {
+        Trace.message("root: %s = 0", difference);
       }
-      if (left == null) {
-        left = root.operation().solveForLeft(expectedValue, right);
-        resolved.put(root.left(), left);
-        Debug.printlnAndWaitForInput("Traversing left after resolving %s to %d", root.left(), left);
-        resolveFromRoot(root.left(), left);
-      } else {
-        right = root.operation().solveForRight(expectedValue, left);
-        resolved.put(root.right(), right);
-        Debug.printlnAndWaitForInput("Traversing right after resolving %s to %d", root.right(), right);
-        resolveFromRoot(root.right(), right);
+      if (difference.slope().isZero()) {
+        throw new IllegalStateException("root's operands do not depend on humn");
       }
+      return difference.constant().negate().divide(difference.slope()).longValueExact();
     }
+  }
 
-    private boolean tryResolveMonkey(String id) {
-      if (id.equals(ROOT) || id.equals(HUMAN)) {
-        return false;
-      }
-      Monkey monkey = monkeys.get(id);
-      if (monkey.job == Job.NUMBER) {
-        resolved.put(id, (long) monkey.number());
-        return true;
-      }
+  /** slope * humn + constant. */
+  private static record Linear(Rational slope, Rational constant) {
+    static final Linear HUMAN = new Linear(Rational.ONE, Rational.ZERO);
 
-      Long left = resolved.get(monkey.left());
-      if (left == null) {
-        return false;
-      }
-      Long right = resolved.get(monkey.right());
-      if (right == null) {
-        return false;
-      }
-      resolved.put(id, monkey.operation().apply(left, right));
-      return true;      
+    static Linear constant(long value) {
+      return new Linear(Rational.ZERO, Rational.of(value));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s * humn + %s", slope, constant);
     }
   }
 
@@ -201,67 +239,48 @@ public class MonkeyMath {
   }
 
   private static enum Operation {
-    ADD((left, right) -> left + right),
-    SUBTRACT((left, right) -> left - right),
-    MULTIPLY((left, right) -> left * right),
-    DIVIDE((left, right) -> left / right);
-
-    private final BiFunction<Long, Long, Long> function;
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    DIVIDE;
 
-    Operation(BiFunction<Long, Long, Long> function) {
-      this.function = function;
-    }
-    
     long apply(long left, long right) {
-      return function.apply(left, right);
-    }
-
-    long solveForLeft(long result, long right) {
-      return solveForLeftFunction().apply(result, right);
-    }
-
-    long solveForRight(long result, long left) {
-      return solveForRightFunction().apply(result, left);
-    }
-
-    private BiFunction<Long, Long, Long> solveForLeftFunction() {
       switch (this) {
         case ADD:
-          return SUBTRACT.function;
+          return Math.addExact(left, right);
         case SUBTRACT:
-          // left - right = result
-          // left = result + right
-          return ADD.function;
+          return Math.subtractExact(left, right);
         case MULTIPLY:
-          // left * right = result
-          // left = result / right
-          return DIVIDE.function;
+          return Math.multiplyExact(left, right);
         case DIVIDE:
-          // left / right = result
-          // left = result * right
-          return MULTIPLY.function;
+          if (left % right != 0) {
+            throw new ArithmeticException(String.format("%d / %d is not exact", left, right));
+          }
+          return left / right;
         default:
           throw new IllegalArgumentException();
       }
     }
 
-    private BiFunction<Long, Long, Long> solveForRightFunction() {
+    Linear apply(Linear left, Linear right) {
       switch (this) {
         case ADD:
-          return SUBTRACT.function;
+          return new Linear(left.slope().add(right.slope()), left.constant().add(right.constant()));
         case SUBTRACT:
-          // left - right = result
-          // right = left - result
-          return (result, left) -> left - result;
+          return new Linear(left.slope().subtract(right.slope()), left.constant().subtract(right.constant()));
         case MULTIPLY:
-          // left * right = result
-          // right = result / left
-          return DIVIDE.function;
+          if (!left.slope().isZero() && !right.slope().isZero()) {
+            throw new IllegalStateException(String.format("(%s) * (%s) is not linear in humn", left, right));
+          }
+          // (a * humn + b) * (c * humn + d) with a * c = 0.
+          return new Linear(
+              left.slope().multiply(right.constant()).add(right.slope().multiply(left.constant())),
+              left.constant().multiply(right.constant()));
         case DIVIDE:
-          // left / right = result
-          // left = result * right
-          // right = left / result
-          return (result, left) -> left / result;
+          if (!right.slope().isZero()) {
+            throw new IllegalStateException(String.format("(%s) / (%s) is not linear in humn", left, right));
+          }
+          return new Linear(left.slope().divide(right.constant()), left.constant().divide(right.constant()));
         default:
           throw new IllegalArgumentException();
       }
@@ -6,7 +6,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import aoccommon.InputHelper;
 import aoccommon.Pair;
@@ -508,7 +507,7 @@ public class MonkeyMap {
   }
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> lines = InputHelper.readLines(INPUT);
 
     String instruction = lines.get(lines.size() - 1);
 
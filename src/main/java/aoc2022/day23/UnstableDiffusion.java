@@ -1,186 +1,307 @@
 package aoc2022.day23;
 
-import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
-import aoccommon.Debug;
+import aoccommon.BitGrid;
 import aoccommon.InputHelper;
-import aoccommon.Point;
+import aoccommon.Solver;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/23}. */
-public class UnstableDiffusion {
+public class UnstableDiffusion implements Solver<BitGrid> {
 
   private static final String INPUT = "aoc2022/day23/input.txt";
 
-  private static enum Direction {
-    NW(-1, -1),
-    N(0, -1),
-    NE(1, -1),
-    E(1, 0),
-    SE(1, 1),
-    S(0, 1),
-    SW(-1, 1),
-    W(-1, 0);
+  private final boolean parallel;
 
-    static final Map<Direction, EnumSet<Direction>> LOOKS = Map.of(
-        N, EnumSet.of(N, NE, NW),
-        S, EnumSet.of(S, SE, SW),
-        W, EnumSet.of(W, NW, SW),
-        E, EnumSet.of(E, NE, SE));
+  public UnstableDiffusion() {
+    this(true);
+  }
 
-    static final Direction[] LOOK_ORDER = new Direction[] { N, S, W, E };
+  /** If parallel, the rows of large groves are split across the common fork-join pool. */
+  public UnstableDiffusion(boolean parallel) {
+    this.parallel = parallel;
+  }
 
-    private final int xd;
-    private final int yd;
+  public static void main(String[] args) throws Exception {
+    Solver.run(new UnstableDiffusion(), INPUT);
+  }
 
-    Direction(int xd, int yd) {
-      this.xd = xd;
-      this.yd = yd;
+  @Override
+  public BitGrid parse(String resourceName) throws Exception {
+    List<String> lines = InputHelper.readLines(resourceName).stream().filter(line -> !line.isBlank()).toList();
+    BitGrid elves = new BitGrid(lines.get(0).length(), lines.size());
+    for (int y = 0; y < lines.size(); y++) {
+      for (int x = 0; x < lines.get(y).length(); x++) {
+        if (lines.get(y).charAt(x) == '#') {
+          elves.set(x, y);
+        }
+      }
     }
+    return elves;
+  }
 
-    Point move(Point point) {
-      return Point.of(point.getX() + xd, point.getY() + yd);
+  @Override
+  public Long part1(BitGrid elves) {
+    Grove grove = new Grove(elves, parallel);
+    for (int round = 0; round < 10; round++) {
+      grove.playRound();
     }
+    return grove.emptyGroundInBoundingBox();
   }
 
-  public static void main(String[] args) throws Exception {
-    Set<Point> elves = new HashSet<>();
-
-    List<String> input = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
-    for (int y = 0; y < input.size(); y++) {
-      String line = input.get(y);
-      for (int x = 0; x < line.length(); x++) {
-        if (line.charAt(x) == '#') {
-          elves.add(Point.of(x, y));
-        }
-      }
+  @Override
+  public Integer part2(BitGrid elves) {
+    Grove grove = new Grove(elves, parallel);
+    while (grove.playRound()) {
     }
+    return grove.rounds();
+  }
 
-    for (int round = 0; ; round++) {
-      // System.out.println("Round " + round);
-      // print(elves);
-      
-      int lookIndex = round % Direction.LOOK_ORDER.length;
-      Map<Point, Point> moves = new HashMap<>();
-      // First half, each elf determines if and where they are going to move.
-      final Set<Point> elvesRef = elves;
-      for (Point elf : elves) {
-        boolean anyElvesAdjacent = adjacent(elf, EnumSet.allOf(Direction.class))
-            .anyMatch(p -> elvesRef.contains(p));
-        if (!anyElvesAdjacent) {
-          continue;
-        }
-        for (int i = 0; i < Direction.LOOK_ORDER.length; i++) {
-          Direction direction = Direction.LOOK_ORDER[(lookIndex + i) % Direction.LOOK_ORDER.length];
-          anyElvesAdjacent = adjacent(elf, Direction.LOOKS.get(direction))
-              .anyMatch(p -> elvesRef.contains(p));
-          if (!anyElvesAdjacent) {
-            moves.put(elf, direction.move(elf));
-            break;
-          }
-        }
-      }
-      // System.out.println("Moves: " + moves);
-
-      Map<Point, Long> moveCounts = moves.values().stream()
-          .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-      // Second half, each elf moves if they were able and no other elf selected the
-      // same spot.
-      Set<Point> newElves = new HashSet<>();
-      for (Point elf : elves) {
-        Point newSpot = moves.get(elf);
-        if (newSpot == null) {
-          // Stay put.
-          newElves.add(elf);
-          continue;
-        }
+  /**
+   * The elves as rows of 64-bit words, bit i of word j of a row being column
+   * 64 * j + i. A round is two passes over the rows, each a few word
+   * operations per 64 cells:
+   * <ol>
+   *   <li>Every elf's eight neighbours are the row and its neighbour rows
+   *       shifted by one column, so each direction's "all three cells clear"
+   *       test is a mask, and the proposals are those masks taken in this
+   *       round's order.
+   *   <li>Two elves can only propose the same cell from opposite sides (any
+   *       other pair would have seen each other and chosen differently), so
+   *       a move north is blocked exactly when the elf two rows up proposes
+   *       south, and likewise for the other directions.
+   * </ol>
+   * Each pass reads only the previous pass's arrays, so rows can be
+   * processed in any order, or in parallel.
+   *
+   * <p>The grid grows whenever an elf reaches its outermost rows or columns,
+   * so every proposal stays inside it.
+   */
+  static final class Grove {
+    private static final int NORTH = 0;
+    private static final int SOUTH = 1;
+    private static final int WEST = 2;
+    private static final int EAST = 3;
+    private static final int DIRECTIONS = 4;
+    // Below this many words a round is too quick to be worth splitting.
+    private static final int PARALLEL_WORDS = 1 << 14;
 
-        if (moveCounts.get(newSpot) > 1) {
-          // Multiple elves want this spot, stay put.
-          newElves.add(elf);
-          continue;
-        }
+    private final boolean parallel;
+    private int height;
+    private int words;
+    // Coordinates of column 0 of row 0.
+    private int minX;
+    private int minY;
+    private long[] elves;
+    private long[] next;
+    // proposals[d] holds the elves proposing to move in direction d this round.
+    private final long[][] proposals = new long[DIRECTIONS][];
+    private int rounds = 0;
 
-        // All clear to move!
-        newElves.add(newSpot);
-      }
-      if (round == 9) {
-        System.out.println("Part 1: " + countEmptyGroupTilesInRectangleContainingAllElves(newElves));
+    Grove(BitGrid initial, boolean parallel) {
+      this.parallel = parallel;
+      this.words = (initial.width() + 63) / 64 + 2;
+      this.height = initial.height() + 4;
+      this.minX = initial.minX() - 64;
+      this.minY = initial.minY() - 2;
+      allocate();
+      initial.forEachSetBit((x, y) -> set(x - minX, y - minY));
+    }
+
+    int rounds() {
+      return rounds;
+    }
+
+    /** Plays one round, returning whether any elf moved. */
+    boolean playRound() {
+      int first = rounds % DIRECTIONS;
+      rows().forEach(y -> propose(y, first));
+      long moved = rows().mapToLong(this::move).sum();
+      long[] swap = elves;
+      elves = next;
+      next = swap;
+      rounds++;
+      if (Trace.TRACE) {
+        Trace.event("UnstableDiffusion.round", rounds, moved);
       }
-      if (elves.equals(newElves)) {
-        System.out.println("Part 2: " + (round + 1));
-        break;        
+      if (touchesBorder()) {
+        grow();
       }
-      elves = newElves;
-      // Debug.waitForInput();
+      return moved != 0;
     }
-  }
 
-  private static Stream<Point> adjacent(Point point, EnumSet<Direction> directions) {
-    return directions.stream().map(d -> d.move(point));
+    /** Empty cells in the smallest rectangle holding every elf. */
+    long emptyGroundInBoundingBox() {
+      int top = Integer.MAX_VALUE;
+      int bottom = Integer.MIN_VALUE;
+      int left = Integer.MAX_VALUE;
+      int right = Integer.MIN_VALUE;
+      long count = 0;
+      for (int y = 0; y < height; y++) {
+        for (int j = 0; j < words; j++) {
+          long word = elves[y * words + j];
+          if (word == 0) {
+            continue;
+          }
+          count += Long.bitCount(word);
+          top = Math.min(top, y);
+          bottom = Math.max(bottom, y);
+          left = Math.min(left, 64 * j + Long.numberOfTrailingZeros(word));
+          right = Math.max(right, 64 * j + 63 - Long.numberOfLeadingZeros(word));
+        }
+      }
+      if (count == 0) {
+        return 0;
+      }
+      return (long) (bottom - top + 1) * (right - left + 1) - count;
+    }
 
-  }
+    private IntStream rows() {
+      IntStream rows = IntStream.range(0, height);
+      return parallel && (long) height * words >= PARALLEL_WORDS ? rows.parallel() : rows;
+    }
 
-  private static int countEmptyGroupTilesInRectangleContainingAllElves(Set<Point> elves) {
-    Bounds bounds = Bounds.compute(elves);
-    return bounds.xsize() * bounds.ysize() - elves.size();
-  }
+    /** Fills row y of each direction's proposals, trying directions from first onwards. */
+    private void propose(int y, int first) {
+      int row = y * words;
+      int above = y > 0 ? row - words : -1;
+      int below = y + 1 < height ? row + words : -1;
+      long[] clear = new long[DIRECTIONS];
+      for (int j = 0; j < words; j++) {
+        long n = word(above, j);
+        long s = word(below, j);
+        // Bit x of fromWest(r) is cell x - 1 of r; fromEast(r) is cell x + 1.
+        long nw = fromWest(above, j);
+        long ne = fromEast(above, j);
+        long sw = fromWest(below, j);
+        long se = fromEast(below, j);
+        long w = fromWest(row, j);
+        long e = fromEast(row, j);
+        clear[NORTH] = ~(nw | n | ne);
+        clear[SOUTH] = ~(sw | s | se);
+        clear[WEST] = ~(nw | w | sw);
+        clear[EAST] = ~(ne | e | se);
+        // Elves with nobody around stay put.
+        long undecided = elves[row + j] & ~(clear[NORTH] & clear[SOUTH] & clear[WEST] & clear[EAST]);
+        for (int i = 0; i < DIRECTIONS; i++) {
+          int d = (first + i) % DIRECTIONS;
+          long proposing = undecided & clear[d];
+          proposals[d][row + j] = proposing;
+          undecided &= ~proposing;
+        }
+      }
+    }
 
-  private static void print(Set<Point> elves) {
-    Bounds bounds = Bounds.compute(elves);
-    StringBuilder sb = new StringBuilder();
-    for (int y = bounds.minY(); y <= bounds.maxY(); y++) {
-      for (int x = bounds.minX(); x <= bounds.maxX(); x++) {
-        sb.append(elves.contains(Point.of(x, y)) ? '#' : '.');
+    /** Fills row y of next with the elves after this round's moves, returning how many moved out of it. */
+    private long move(int y) {
+      int row = y * words;
+      long[] north = proposals[NORTH];
+      long[] south = proposals[SOUTH];
+      long[] west = proposals[WEST];
+      long[] east = proposals[EAST];
+      long moved = 0;
+      for (int j = 0; j < words; j++) {
+        int i = row + j;
+        // Moves out of this row or along it that nobody contests.
+        long goNorth = y >= 2 ? north[i] & ~south[i - 2 * words] : north[i];
+        long goSouth = y + 2 < height ? south[i] & ~north[i + 2 * words] : south[i];
+        // A move west from x and east from x - 2 both target x - 1.
+        long goWest = west[i] & ~((east[i] << 2) | (j > 0 ? east[i - 1] >>> 62 : 0));
+        long goEast = east[i] & ~((west[i] >>> 2) | (j + 1 < words ? west[i + 1] << 62 : 0));
+        // Uncontested moves into this row or along it.
+        long northMovers = y + 1 < height ? north[i + words] : 0;
+        long southMovers = y > 0 ? south[i - words] : 0;
+        long fromSouth = northMovers & ~southMovers;
+        long fromNorth = southMovers & ~northMovers;
+        // West movers from x + 1 and east movers from x - 1 both target x.
+        long westMovers = (west[i] >>> 1) | (j + 1 < words ? west[i + 1] << 63 : 0);
+        long eastMovers = (east[i] << 1) | (j > 0 ? east[i - 1] >>> 63 : 0);
+        long fromEast = westMovers & ~eastMovers;
+        long fromWest = eastMovers & ~westMovers;
+        long leaving = goNorth | goSouth | goWest | goEast;
+        next[i] = (elves[i] & ~leaving) | fromSouth | fromNorth | fromEast | fromWest;
+        moved += Long.bitCount(leaving);
       }
-      sb.append('\n');
+      return moved;
     }
-    System.out.println(sb.toString());
-  }
 
-  private static record Bounds(Point min, Point max) {
+    private long word(int row, int j) {
+      return row < 0 ? 0 : elves[row + j];
+    }
 
-    static Bounds compute(Set<Point> points) {
-      int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = 0, maxY = 0;
-      for (Point p : points) {
-        minX = Math.min(minX, p.getX());
-        minY = Math.min(minY, p.getY());
-        maxX = Math.max(maxX, p.getX());
-        maxY = Math.max(maxY, p.getY());
+    private long fromWest(int row, int j) {
+      if (row < 0) {
+        return 0;
       }
-      return new Bounds(Point.of(minX, minY), Point.of(maxX, maxY));
+      return (elves[row + j] << 1) | (j > 0 ? elves[row + j - 1] >>> 63 : 0);
     }
 
-    int minY() {
-      return min.getY();
+    private long fromEast(int row, int j) {
+      if (row < 0) {
+        return 0;
+      }
+      return (elves[row + j] >>> 1) | (j + 1 < words ? elves[row + j + 1] << 63 : 0);
     }
 
-    int minX() {
-      return min.getX();
+    /** Whether an elf is in the outermost row or column, where its next proposal could leave the grid. */
+    private boolean touchesBorder() {
+      for (int j = 0; j < words; j++) {
+        if ((elves[j] | elves[(height - 1) * words + j]) != 0) {
+          return true;
+        }
+      }
+      for (int y = 0; y < height; y++) {
+        if ((elves[y * words] & 1) != 0 || elves[y * words + words - 1] < 0) {
+          return true;
+        }
+      }
+      return false;
     }
 
-    int maxY() {
-      return max.getY();
+    /** Adds a word of columns either side and a quarter of the height above and below. */
+    private void grow() {
+      int margin = Math.max(8, height / 4);
+      long[] old = elves;
+      int oldWords = words;
+      int oldHeight = height;
+      words += 2;
+      height += 2 * margin;
+      minX -= 64;
+      minY -= margin;
+      allocate();
+      for (int y = 0; y < oldHeight; y++) {
+        System.arraycopy(old, y * oldWords, elves, (y + margin) * words + 1, oldWords);
+      }
+      if (Trace.DEBUG) {
+        Trace.event("UnstableDiffusion.grow", rounds, words, height);
+      }
     }
 
-    int maxX() {
-      return max.getX();
+    private void allocate() {
+      elves = new long[Math.multiplyExact(height, words)];
+      next = new long[elves.length];
+      for (int d = 0; d < DIRECTIONS; d++) {
+        proposals[d] = new long[elves.length];
+      }
     }
 
-    int ysize() {
-      return maxY() - minY() + 1;
+    private void set(int x, int y) {
+      elves[y * words + (x >>> 6)] |= 1L << x;
     }
 
-    int xsize() {
-      return maxX() - minX() + 1;
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format("(%d, %d)%n", minX, minY));
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < 64 * words; x++) {
+          sb.append((elves[y * words + (x >>> 6)] & (1L << x)) != 0 ? '#' : '.');
+        }
+        sb.append('\n');
+      }
+      return sb.toString();
     }
   }
 }
@@ -1,275 +1,273 @@
 package aoc2022.day24;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import aoccommon.InputHelper;
-import aoccommon.Point;
-import aoccommon.Stats;
+import aoccommon.MoreMath;
+import aoccommon.Solver;
+import aoccommon.Trace;
 
 /** Solution for {@link https://adventofcode.com/2022/day/24}. */
-public class BlizzardBasin {
+public class BlizzardBasin implements Solver<BlizzardBasin.Basin> {
 
   private static final String INPUT = "aoc2022/day24/input.txt";
 
-  private static enum Direction {
-    UP('^'),
-    DOWN('v'),
-    LEFT('<'),
-    RIGHT('>');
+  private final int part2Legs;
 
-    private static Map<Character, Direction> CHAR_TO_DIR = Arrays.stream(values())
-        .collect(Collectors.toMap(Direction::getChar, Function.identity()));
-
-    static Direction forChar(char c) {
-      return CHAR_TO_DIR.get(c);
-    }
-
-    private final char c;
-
-    private Direction(char c) {
-      this.c = c;
-    }
+  public BlizzardBasin() {
+    this(3);
+  }
 
-    char getChar() {
-      return c;
+  /** part2Legs is the number of crossings in part 2, alternating direction, starting towards the exit. */
+  public BlizzardBasin(int part2Legs) {
+    if (part2Legs < 1) {
+      throw new IllegalArgumentException("need at least one leg: " + part2Legs);
     }
+    this.part2Legs = part2Legs;
   }
 
-  private static record Blizzard(Direction direction, Point position) {
+  /** An optional argument overrides the number of legs of part 2, e.g. "5". */
+  public static void main(String[] args) throws Exception {
+    BlizzardBasin solver = args.length == 1 ? new BlizzardBasin(Integer.parseInt(args[0])) : new BlizzardBasin();
+    Solver.run(solver, INPUT);
   }
 
-  private static record Basin(int rightWall, int bottomWall, Point entrance, Point exit) {
-    Set<Blizzard> moveBlizzards(Set<Blizzard> blizzards) {
-      Set<Blizzard> result = blizzards.stream()
-          .map(b -> moveBlizzard(b))
-          .collect(Collectors.toSet());
-      return result;
+  /**
+   * The valley interior (inside the walls) as rows of 64-bit words, bit x of
+   * a row being column x. Holds the blizzards of each direction as they are
+   * at minute 0.
+   */
+  static record Basin(int width, int height, int entranceX, int exitX, long[][] up, long[][] down,
+      long[][] left, long[][] right) {
+
+    int wordsPerRow() {
+      return (width + 63) >>> 6;
     }
 
-    Blizzard moveBlizzard(Blizzard blizzard) {
-      int row = blizzard.position().getY();
-      int col = blizzard.position().getX();
-      switch (blizzard.direction()) {
-        case UP:
-          return new Blizzard(blizzard.direction(), Point.of(col, row == 1 ? bottomWall - 1 : row - 1));
-        case DOWN:
-          return new Blizzard(blizzard.direction(), Point.of(col, row == bottomWall - 1 ? 1 : row + 1));
-        case LEFT:
-          return new Blizzard(blizzard.direction(), Point.of(col == 1 ? rightWall - 1 : col - 1, row));
-        case RIGHT:
-          return new Blizzard(blizzard.direction(), Point.of(col == rightWall - 1 ? 1 : col + 1, row));
-        default:
-          throw new IllegalStateException();
+    static Basin parse(List<String> lines) {
+      int width = lines.get(0).length() - 2;
+      int height = lines.size() - 2;
+      if (width <= 0 || height <= 0) {
+        throw new IllegalArgumentException("basin has no interior");
+      }
+      int words = (width + 63) >>> 6;
+      long[][] up = new long[height][words];
+      long[][] down = new long[height][words];
+      long[][] left = new long[height][words];
+      long[][] right = new long[height][words];
+      for (int y = 0; y < height; y++) {
+        String line = lines.get(y + 1);
+        for (int x = 0; x < width; x++) {
+          long[][] blizzards;
+          switch (line.charAt(x + 1)) {
+            case '.':
+              continue;
+            case '^':
+              blizzards = up;
+              break;
+            case 'v':
+              blizzards = down;
+              break;
+            case '<':
+              blizzards = left;
+              break;
+            case '>':
+              blizzards = right;
+              break;
+            default:
+              throw new IllegalArgumentException(line);
+          }
+          blizzards[y][x >>> 6] |= 1L << x;
+        }
       }
+      return new Basin(width, height, lines.get(0).indexOf('.') - 1, lines.get(height + 1).indexOf('.') - 1,
+          up, down, left, right);
     }
   }
 
-  private static List<Set<Point>> precomputeBlizzardSpaces(Basin basin, Set<Blizzard> blizzards) {
-    Set<Set<Point>> seen = new HashSet<>();
-    List<Set<Point>> precomputed = new ArrayList<>();
-    Set<Point> spaces = blizzards.stream().map(Blizzard::position).collect(Collectors.toSet());
-    while (!seen.contains(spaces)) {
-      seen.add(spaces);
-      precomputed.add(spaces);
-      blizzards = basin.moveBlizzards(blizzards);
-      spaces = blizzards.stream().map(Blizzard::position).collect(Collectors.toSet());
-    }
-    return precomputed;
+  @Override
+  public Basin parse(String resourceName) throws Exception {
+    return Basin.parse(InputHelper.readLines(resourceName));
   }
 
-  private static record State(Point position, int minutes) {
+  @Override
+  public Integer part1(Basin basin) {
+    return new Expedition(basin).travel(1);
   }
 
-  private static record Positions(Point position, int blizzardIndex) {
+  @Override
+  public Integer part2(Basin basin) {
+    return new Expedition(basin).travel(part2Legs);
   }
 
-  private static int compare(State s1, State s2, Basin basin) {
-    // Prefer nodes with fewer minutes first.
-    int result = Integer.compare(s1.minutes(), s2.minutes());
-    if (result != 0) {
-      return result;
-    }
-    // Then compare distance to goal (roughly).
-    return Integer
-        .compare(estimateDistance(s1.position(), basin.exit()), estimateDistance(s2.position(), basin.exit()));
-  }
-
-  private static int estimateDistance(Point point, Point dest) {
-    return (dest.getY() - point.getY()) + (dest.getX() - point.getX());
-  }
-
-  private static class Navigator {
+  /**
+   * Breadth-first search over whole minutes, holding the set of cells the
+   * expedition could occupy as rows of bits. One minute is, per row, a
+   * rotation of the horizontal blizzards, a shift/or of the frontier with its
+   * neighbour rows, and an and-not with the blizzards, so the cost is a few
+   * word operations per 64 cells regardless of how many paths are alive.
+   *
+   * <p>Vertical blizzards move whole rows, so rather than being moved they
+   * are read from row (y + minute) or (y - minute) mod height of the initial
+   * layout. Horizontal blizzards are rotated one cell a minute in place.
+   */
+  static final class Expedition {
     private final Basin basin;
-    private final Queue<State> queue;
-    private final Set<Positions> visited;
-
-    Navigator(Basin basin) {
+    private final int height;
+    private final int words;
+    private final long lastWordMask;
+    private final long[][] left;
+    private final long[][] right;
+    private long[][] frontier;
+    private long[][] next;
+    private final long[] occupied;
+    private int minute = 0;
+
+    Expedition(Basin basin) {
       this.basin = basin;
-      // queue = new PriorityQueue<>((s1, s2) -> compare(s1, s2, basin));
-      queue = new LinkedList<>();
-      visited = new HashSet<>();
+      this.height = basin.height();
+      this.words = basin.wordsPerRow();
+      int used = basin.width() & 63;
+      this.lastWordMask = used == 0 ? -1L : (1L << used) - 1;
+      this.left = copy(basin.left());
+      this.right = copy(basin.right());
+      this.frontier = new long[height][words];
+      this.next = new long[height][words];
+      this.occupied = new long[words];
     }
 
-    int navigate(List<Set<Point>> blizzardSpaces, int startMinute) {
-      queue.offer(new State(basin.entrance(), startMinute));
-      while (!queue.isEmpty()) {
-        Stats.incrementCounter("visited");
-        State state = queue.poll();
-        if (state.position().equals(basin.exit())) {
-          return state.minutes();
-        }
-
-        int nextMinutes = state.minutes() + 1;
-        int blizzardIndex = nextMinutes % blizzardSpaces.size();
-        Set<Point> occupied = blizzardSpaces.get(blizzardIndex);
-
-        // Option 1: move right.
-        Stream.Builder<State> nextStates = Stream.builder();
-        Point next = Point.of(state.position().getX() + 1, state.position().getY());
-        if (next.getY() > 0 && next.getX() < basin.rightWall() && !occupied.contains(next)) {
-          nextStates.add(new State(next, nextMinutes));
-        }
-
-        // Option 2: move down.
-        next = Point.of(state.position().getX(), state.position().getY() + 1);
-        if ((basin.exit().equals(next) || next.getY() < basin.bottomWall()) && !occupied.contains(next)) {
-          nextStates.add(new State(next, nextMinutes));
-        }
-
-        // Option 3: stay put if a blizzard isn't coming.
-        if (!occupied.contains(state.position())) {
-          nextStates.add(new State(state.position(), nextMinutes));
+    /** Crosses the valley legs times, alternating direction, and returns the minute of the last arrival. */
+    int travel(int legs) {
+      for (int leg = 0; leg < legs; leg++) {
+        boolean towardsExit = leg % 2 == 0;
+        int start = minute;
+        cross(towardsExit ? basin.entranceX() : basin.exitX(), towardsExit ? 0 : height - 1,
+            towardsExit ? basin.exitX() : basin.entranceX(), towardsExit ? height - 1 : 0);
+        if (Trace.DEBUG) {
+          Trace.event("BlizzardBasin.leg", leg, start, minute);
         }
+      }
+      return minute;
+    }
 
-        // Option 4: move up.
-        next = Point.of(state.position().getX(), state.position().getY() - 1);
-        if ((basin.exit().equals(next) || next.getY() > 0) && !occupied.contains(next)) {
-          nextStates.add(new State(next, nextMinutes));
+    /**
+     * Walks from the opening above or below (startX, startRow) to the one
+     * beside (goalX, goalRow). The start opening is never in a blizzard, so
+     * the expedition may step in from it at any minute.
+     */
+    private void cross(int startX, int startRow, int goalX, int goalRow) {
+      for (long[] row : frontier) {
+        Arrays.fill(row, 0);
+      }
+      // A search state is a cell and the minute modulo the blizzard period, so a
+      // reachable goal is reached within one step per state (plus a period to enter).
+      long period = MoreMath.lcm(basin.width(), height);
+      long deadline = minute + Math.multiplyExact((long) basin.width() * height + 1, period);
+      while (!isSet(frontier[goalRow], goalX)) {
+        if (minute > deadline) {
+          throw new IllegalStateException("no way across the basin");
         }
-
-        // Option 5: move left.
-        next = Point.of(state.position().getX() - 1, state.position().getY());
-        if (next.getY() < basin.bottomWall() && next.getY() > 0 && next.getX() > 0 && !occupied.contains(next)) {
-          nextStates.add(new State(next, nextMinutes));
+        step();
+        if (isFree(startRow, startX)) {
+          next[startRow][startX >>> 6] |= 1L << startX;
         }
-
-        nextStates.build().forEach(s -> {
-          if (visited.add(new Positions(s.position(), blizzardIndex))) {
-            queue.offer(s);
-          }
-        });
+        long[][] swap = frontier;
+        frontier = next;
+        next = swap;
       }
-      return -1;
+      // One more minute to step out of the valley.
+      advanceBlizzards();
     }
-  }
-
-  public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
-    int entranceX = lines.get(0).indexOf('.');
-    int exitX = lines.get(lines.size() - 1).indexOf('.');
 
-    Basin basin = new Basin(lines.get(0).length() - 1, lines.size() - 1, Point.of(entranceX, 0),
-        Point.of(exitX, lines.size() - 1));
-
-    Set<Blizzard> blizzards = new HashSet<>();
-    for (int y = 1; y < basin.bottomWall(); y++) {
-      for (int x = 1; x < basin.rightWall(); x++) {
-        char c = lines.get(y).charAt(x);
-        if (c == '.') {
-          continue;
+    /**
+     * Advances one minute, filling next with the cells reachable from the
+     * frontier that no blizzard then covers.
+     */
+    private void step() {
+      advanceBlizzards();
+      for (int y = 0; y < height; y++) {
+        occupied(y);
+        long[] row = frontier[y];
+        long[] above = y > 0 ? frontier[y - 1] : null;
+        long[] below = y + 1 < height ? frontier[y + 1] : null;
+        long[] out = next[y];
+        for (int j = 0; j < words; j++) {
+          long word = row[j];
+          // Bit x + 1 from x (moving right) carries across words, as does x - 1 from x.
+          long fromLeft = (word << 1) | (j > 0 ? row[j - 1] >>> 63 : 0);
+          long fromRight = (word >>> 1) | (j + 1 < words ? row[j + 1] << 63 : 0);
+          long reach = word | fromLeft | fromRight;
+          if (above != null) {
+            reach |= above[j];
+          }
+          if (below != null) {
+            reach |= below[j];
+          }
+          reach &= ~occupied[j];
+          if (j == words - 1) {
+            reach &= lastWordMask;
+          }
+          out[j] = reach;
         }
-        blizzards.add(new Blizzard(Direction.forChar(c), Point.of(x, y)));
       }
     }
 
-    Stats.startTimer("precompute");
-    List<Set<Point>> blizzardSpaces = precomputeBlizzardSpaces(basin, blizzards);
-    Stats.endTimer("precompute");
-
-    Stats.startTimer("navigate");
-    Navigator navigator = new Navigator(basin);
-    int minutes = navigator.navigate(blizzardSpaces, 0);
-    Stats.endTimer("navigate");
-    System.out.println("Part 1: " + minutes);
-
-    Basin reversed = new Basin(basin.rightWall(), basin.bottomWall(), basin.exit(), basin.entrance());
-
-    Stats.startTimer("navigate");
-    navigator = new Navigator(reversed);
-    minutes = navigator.navigate(blizzardSpaces, minutes);
-    Stats.endTimer("navigate");
-
-    Stats.startTimer("navigate");
-    navigator = new Navigator(basin);
-    minutes = navigator.navigate(blizzardSpaces, minutes);
-    Stats.endTimer("navigate");
-    System.out.println("Part 2: " + minutes);
+    private boolean isFree(int y, int x) {
+      occupied(y);
+      return !isSet(occupied, x);
+    }
 
-    // Stats.print(System.out);
-  }
+    /** Fills occupied with the cells of row y covered by a blizzard at the current minute. */
+    private void occupied(int y) {
+      long[] up = basin.up()[Math.floorMod(y + minute, height)];
+      long[] down = basin.down()[Math.floorMod(y - minute, height)];
+      for (int j = 0; j < words; j++) {
+        occupied[j] = up[j] | down[j] | left[y][j] | right[y][j];
+      }
+    }
 
-  private static void print(Basin basin, Point position, Set<Blizzard> blizzards) {
-    StringBuilder sb = new StringBuilder();
-    Map<Point, Character> blizzardMap = new HashMap<>();
-    for (Blizzard blizzard : blizzards) {
-      Character c = blizzardMap.get(blizzard.position());
-      if (c == null) {
-        blizzardMap.put(blizzard.position(), blizzard.direction().getChar());
-      } else if (Character.isDigit(c)) {
-        int num = (c - '0') + 1;
-        blizzardMap.put(blizzard.position(), Character.forDigit(num, 10));
-      } else {
-        blizzardMap.put(blizzard.position(), '2');
+    private void advanceBlizzards() {
+      minute++;
+      int top = basin.width() - 1;
+      for (int y = 0; y < height; y++) {
+        rotateUp(right[y], top);
+        rotateDown(left[y], top);
       }
     }
-    for (int x = 0; x <= basin.rightWall; x++) {
-      if (position.equals(Point.of(x, 0))) {
-        sb.append('E');
-      } else if (basin.entrance.getX() == x) {
-        sb.append('.');
-      } else {
-        sb.append('#');
+
+    /** Moves every bit x of row to x + 1, and bit top to 0. */
+    private void rotateUp(long[] row, int top) {
+      long wrapped = isSet(row, top) ? 1 : 0;
+      for (int j = 0; j < words; j++) {
+        long carry = row[j] >>> 63;
+        row[j] = (row[j] << 1) | wrapped;
+        wrapped = carry;
       }
+      row[words - 1] &= lastWordMask;
     }
-    sb.append('\n');
-    for (int y = 1; y < basin.bottomWall; y++) {
-      sb.append('#');
-      for (int x = 1; x < basin.rightWall; x++) {
-        Point p = Point.of(x, y);
-        if (position.equals(p)) {
-          sb.append('E');
-        } else if (blizzardMap.containsKey(p)) {
-          sb.append(blizzardMap.get(p));
-        } else {
-          sb.append('.');
-        }
+
+    /** Moves every bit x of row to x - 1, and bit 0 to top. */
+    private void rotateDown(long[] row, int top) {
+      boolean wrapped = (row[0] & 1) != 0;
+      for (int j = 0; j < words; j++) {
+        row[j] = (row[j] >>> 1) | (j + 1 < words ? row[j + 1] << 63 : 0);
+      }
+      if (wrapped) {
+        row[top >>> 6] |= 1L << top;
       }
-      sb.append('#');
-      sb.append('\n');
     }
-    for (int x = 0; x <= basin.rightWall; x++) {
-      if (position.equals(Point.of(x, basin.bottomWall))) {
-        sb.append('E');
-      } else if (basin.exit.getX() == x) {
-        sb.append('.');
-      } else {
-        sb.append('#');
+
+    private static boolean isSet(long[] row, int x) {
+      return (row[x >>> 6] & (1L << x)) != 0;
+    }
+
+    private static long[][] copy(long[][] rows) {
+      long[][] copy = new long[rows.length][];
+      for (int i = 0; i < rows.length; i++) {
+        copy[i] = rows[i].clone();
       }
+      return copy;
     }
-    sb.append('\n');
-    System.out.println(sb.toString());
   }
 }
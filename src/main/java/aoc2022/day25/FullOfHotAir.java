@@ -80,7 +80,7 @@ public class FullOfHotAir {
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    List<Snafu> input = InputHelper.linesFromResource(INPUT).map(Snafu::new).collect(Collectors.toList());
+    List<Snafu> input = InputHelper.readLines(INPUT).stream().map(Snafu::new).collect(Collectors.toList());
     Snafu sum = input.stream().reduce(Snafu.zero(), (s1, s2) -> s1.add(s2));
     System.out.println("Part 1: " + sum);
   }
@@ -49,7 +49,7 @@ public class Trebuchet {
   }
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).collect(Collectors.toList());
+    List<String> lines = InputHelper.readLines(INPUT);
     // Part 1
     int sum = lines.stream()
         .mapToInt(line -> {
@@ -42,7 +42,7 @@ public class CubeConundrum {
 
   public static void main(String[] args) throws Exception {
     // Part 1.
-    List<Game> games = InputHelper.linesFromResource(INPUT).map(Game::parse).collect(Collectors.toList());
+    List<Game> games = InputHelper.readLines(INPUT).stream().map(Game::parse).collect(Collectors.toList());
     Map<String, Integer> constraints = Map.of("red", 12, "green", 13, "blue", 14);
     long sum = games.stream()
         .filter(g -> g.reveals.stream()
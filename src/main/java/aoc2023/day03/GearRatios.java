@@ -13,7 +13,7 @@ public class GearRatios {
   private static final String INPUT = "aoc2023/day03/input.txt";
 
   public static void main(String[] args) throws Exception {
-    List<String> schematic = InputHelper.linesFromResource(INPUT).toList();
+    List<String> schematic = InputHelper.readLines(INPUT);
 
     // Part 1.
     List<Integer> partNumbers = new ArrayList<>();
@@ -1,6 +1,7 @@
 package aoc2023.day04;
 
 import aoccommon.InputHelper;
+import aoccommon.LongMemo;
 import aoccommon.Stats;
 
 import java.util.*;
@@ -41,47 +42,37 @@ public class Scratchcards {
   private static class ScratchcardProcessor {
     private final List<Card> scratchcards;
 
-    // Maps a card index to the number of won cards at each index (recursive).
-    private final Map<Integer, Map<Integer, Long>> cache = new HashMap<>();
+    // Maps a card index to the total number of cards it ends up as, itself included (recursive).
+    private final LongMemo cache = LongMemo.unbounded("Scratchcards.cache");
 
     ScratchcardProcessor(List<Card> scratchcards) {
       this.scratchcards = scratchcards;
     }
 
-    Map<Integer, Long> process() {
-      Map<Integer, Long> cardCounts = new HashMap<>();
+    long process() {
+      long total = 0;
       for (int i = 0; i < scratchcards.size(); i++) {
-        processCard(i).forEach((card, count) -> {
-          Long prev = cardCounts.get(card);
-          cardCounts.put(card, count + ((prev == null) ? 0 : prev));
-        });
+        total += processCard(i);
       }
-      return cardCounts;
+      return total;
     }
 
-    private Map<Integer, Long> processCard(int index) {
+    private long processCard(int index) {
       if (index >= scratchcards.size()) {
-        return Map.of();
+        return 0;
       }
-      Map<Integer, Long> cached = cache.get(index);
-      if (cached != null) {
-        return cached;
-      }
-      Map<Integer, Long> cardCounts = new HashMap<>();
-      cardCounts.put(index, 1L);
-      for (int i = index + 1; i <= index + scratchcards.get(index).countWinners(); i++) {
-        processCard(i).forEach((card, count) -> {
-          Long prev = cardCounts.get(card);
-          cardCounts.put(card, count + ((prev == null) ? 0 : prev));
-        });
-      }
-      cache.put(index, cardCounts);
-      return cardCounts;
+      return cache.computeIfAbsent(index, key -> {
+        long cards = 1;
+        for (int i = index + 1; i <= index + scratchcards.get(index).countWinners(); i++) {
+          cards += processCard(i);
+        }
+        return cards;
+      });
     }
   }
 
   public static void main(String[] args) throws Exception {
-    List<Card> cards = InputHelper.linesFromResource(INPUT).map(Card::parse).toList();
+    List<Card> cards = InputHelper.readLines(INPUT).stream().map(Card::parse).toList();
     // Part 1.
     long sum = cards.stream().mapToLong(Card::countWinners).map(c -> (long) Math.pow(2, (c - 1))).sum();
     System.out.println("Part 1: " + sum);
@@ -89,8 +80,7 @@ public class Scratchcards {
     // Part 2.
     Stats.enablePrintOnExit();
     Stats.startTimer("part2");
-    Map<Integer, Long> processedCards = new ScratchcardProcessor(cards).process();
-    long totalCards = processedCards.values().stream().mapToLong(c -> c).sum();
+    long totalCards = new ScratchcardProcessor(cards).process();
     System.out.println("Part 2: " + totalCards);
     Stats.endTimer("part2");
   }
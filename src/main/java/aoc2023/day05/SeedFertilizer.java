@@ -1,12 +1,13 @@
 package aoc2023.day05;
 
 import aoccommon.InputHelper;
+import aoccommon.LongList;
+import aoccommon.LongRange;
+import aoccommon.LongRangeSet;
 
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.LongStream;
-import java.util.stream.Stream;
 
 /**
  * Solution for {@link https://adventofcode.com/2023/day/5}.
@@ -19,59 +20,52 @@ public class SeedFertilizer {
   private static final Pattern MAP_HEADER =
       Pattern.compile("^([a-z]+)\\-to\\-([a-z]+)\\ map:$");
 
-  private record SeedRange(long start, long length) {
-    LongStream stream() {
-      return LongStream.range(start, start + length);
-    }
-  }
-
   private record Mapping(long destStart, long srcStart, long length) {
     static Mapping parse(String line) {
       String[] split = line.split("\\s+");
       return new Mapping(Long.parseLong(split[0]), Long.parseLong(split[1]), Long.parseLong(split[2]));
     }
 
-    boolean contains(long src) {
-      return src >= srcStart && src <= (srcStart + length - 1);
-    }
-
-    long map(long src) {
-      return destStart + (src - srcStart);
+    LongRange source() {
+      return LongRange.ofLength(srcStart, length);
     }
   }
 
   private record Converter(String input, String output, List<Mapping> mappings) {
-    long convert(long src) {
+    LongRangeSet convert(LongRangeSet src) {
+        LongRangeSet out = new LongRangeSet();
+        LongRangeSet unmapped = src.copy();
         for (Mapping m : this.mappings) {
-          if (m.contains(src)) {
-            return m.map(src);
-          }
+          LongRange source = m.source();
+          // Intersect with what is still unmapped so the first matching mapping wins.
+          out.addAll(unmapped.intersection(source.lower(), source.upper()).shift(m.destStart - m.srcStart));
+          unmapped.remove(source);
         }
-        return src;
+        out.addAll(unmapped);
+        return out;
       }
     }
 
   /**
    * @param converters Assumed to be in order: seed -> soil -> fertilizer -> water -> light -> temperature -> humidity -> location.
    */
-  private record Almanac(List<SeedRange> seeds, List<Converter> converters) {
+  private record Almanac(LongRangeSet seeds, List<Converter> converters) {
 
     static Almanac parse(List<String> input, boolean treatAsRanges) {
         if (!input.get(0).startsWith("seeds:")) {
           throw new IllegalArgumentException("expected seeds on first line");
         }
-        List<SeedRange> seeds = null;
+        LongRangeSet seeds = new LongRangeSet();
+        LongList numbers = new LongList();
+        for (String number : input.get(0).split(":\\s+")[1].split("\\s+")) {
+          numbers.add(Long.parseLong(number));
+        }
         if (treatAsRanges) {
-          seeds = new ArrayList<>();
-          String [] split = input.get(0).split(":\\s+")[1].split("\\s+");
-          for (int i = 0; i < split.length; i += 2) {
-            seeds.add(new SeedRange(Long.parseLong(split[i]), Long.parseLong(split[i + 1])));
+          for (int i = 0; i < numbers.size(); i += 2) {
+            seeds.add(LongRange.ofLength(numbers.get(i), numbers.get(i + 1)));
           }
         } else {
-          seeds = Arrays.stream(input.get(0).split(":\\s+")[1].split("\\s+"))
-              .map(Long::parseLong)
-              .map(s -> new SeedRange(s, 1))
-              .toList();
+          numbers.forEach(s -> seeds.add(s, s));
         }
 
         List<Converter> converters = new ArrayList<>();
@@ -107,8 +101,8 @@ public class SeedFertilizer {
         return new Almanac(seeds, converters);
       }
 
-      long mapSeedToLocation(long seed) {
-        long out = seed;
+      LongRangeSet mapSeedsToLocations() {
+        LongRangeSet out = seeds;
         for (Converter converter : this.converters) {
           out = converter.convert(out);
         }
@@ -118,21 +112,13 @@ public class SeedFertilizer {
 
   public static void main(String[] args) throws Exception {
     // Part 1.
-    final Almanac almanac = Almanac.parse(InputHelper.linesFromResource(INPUT).toList(), false);
-    long lowestLocation = almanac.seeds.stream()
-        .flatMapToLong(SeedRange::stream)
-        .map(almanac::mapSeedToLocation)
-        .min()
-        .getAsLong();
+    final Almanac almanac = Almanac.parse(InputHelper.readLines(INPUT), false);
+    long lowestLocation = almanac.mapSeedsToLocations().min().getAsLong();
     System.out.println("Part 1: " + lowestLocation);
 
     // Part 2.
-    final Almanac revisedAlmanac = Almanac.parse(InputHelper.linesFromResource(INPUT).toList(), true);
-    lowestLocation = revisedAlmanac.seeds.stream()
-        .flatMapToLong(SeedRange::stream)
-        .map(almanac::mapSeedToLocation)
-        .min()
-        .getAsLong();
+    final Almanac revisedAlmanac = Almanac.parse(InputHelper.readLines(INPUT), true);
+    lowestLocation = revisedAlmanac.mapSeedsToLocations().min().getAsLong();
     System.out.println("Part 2: " + lowestLocation);
   }
 }
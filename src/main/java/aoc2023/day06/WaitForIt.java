@@ -1,22 +1,28 @@
 package aoc2023.day06;
 
 import aoccommon.InputHelper;
+import aoccommon.Solver;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /** Solution for {@link https://adventofcode.com/2023/day/6}. */
-public class WaitForIt {
+public class WaitForIt implements Solver<WaitForIt.Races> {
 
   private static final String INPUT = "aoc2023/day06/input.txt";
   private static final String EXAMPLE = "aoc2023/day06/example.txt";
 
+  record Races(int[] times, int[] distances) {}
+
   public static void main(String [] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).toList();
+    Solver.run(new WaitForIt(), INPUT);
+  }
+
+  @Override
+  public Races parse(String resourceName) throws Exception {
+    List<String> lines = InputHelper.readLines(resourceName);
     if (!lines.get(0).startsWith("Time:")) {
       throw new IllegalArgumentException("Expected first line to contain times");
     }
@@ -34,9 +40,14 @@ public class WaitForIt {
     if (times.length != distances.length) {
       throw new IllegalArgumentException("expected equal number of times and distances");
     }
+    return new Races(times, distances);
+  }
 
-    // Part 1.
-    long result = IntStream.range(0, times.length)
+  @Override
+  public Long part1(Races races) {
+    int[] times = races.times();
+    int[] distances = races.distances();
+    return IntStream.range(0, times.length)
         .mapToLong(i -> {
           int time = times[i];
           int dist = distances[i];
@@ -51,9 +62,12 @@ public class WaitForIt {
           return wins;
         })
         .reduce(1L, (a, b) -> a * b);
-    System.out.println("Part 1: " + result);
+  }
 
-    // Part 2.
+  @Override
+  public Long part2(Races races) {
+    int[] times = races.times();
+    int[] distances = races.distances();
     long time = Long.parseLong(Arrays.stream(times)
         .mapToObj(Integer::toString)
         .collect(Collectors.joining("")));
@@ -68,6 +82,6 @@ public class WaitForIt {
         wins++;
       }
     }
-    System.out.println("Part 2: " + wins);
+    return wins;
   }
 }
@@ -154,7 +154,7 @@ public class CamelCards {
   }
 
   public static void main(String[] args) throws Exception {
-    List<String> input = InputHelper.linesFromResource(INPUT).toList();
+    List<String> input = InputHelper.readLines(INPUT);
 
     // Part 1.
     List<Hand> hands = input.stream()
@@ -1,5 +1,6 @@
 package aoc2023.day08;
 
+import aoccommon.CycleDetector;
 import aoccommon.Debug;
 import aoccommon.InputHelper;
 import aoccommon.MoreMath;
@@ -9,6 +10,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,12 +25,12 @@ public class HauntedWasteland {
   private static final String INPUT = "aoc2023/day08/input.txt";
   private static final String EXAMPLE = "aoc2023/day08/example.txt";
 
-  private record Cycle(String node, long step, int instruction, long length) {
+  private record Position(String node, int instruction) {
   }
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    List<String> lines = InputHelper.linesFromResource(INPUT).toList();
+    List<String> lines = InputHelper.readLines(INPUT);
     String instructions = lines.get(0);
     Map<String, Pair<String, String>> nodes = new HashMap<>();
     for (int i = 1; i < lines.size(); i++) {
@@ -58,25 +60,42 @@ public class HauntedWasteland {
     // Part 2.
     List<String> ghosts = nodes.keySet().stream().filter(g -> g.endsWith("A")).toList();
 
-    // Assuming the ghosts hit a terminal node on a fixed frequency (seems to be true from input inspection).
-    long[] frequencies = new long[ghosts.size()];
+    // A ghost's future depends only on its node and position in the instructions, so once that
+    // pair repeats it loops forever. Assuming each loop passes exactly one terminal node, the ghost is
+    // on a terminal node at every step congruent to that hit modulo the loop length.
+    UnaryOperator<Position> move = p -> {
+      Pair<String, String> next = nodes.get(p.node());
+      return new Position(
+          instructions.charAt(p.instruction()) == 'L' ? next.first() : next.second(),
+          (p.instruction() + 1) % instructions.length());
+    };
+    long[] firstHits = new long[ghosts.size()];
+    long[] periods = new long[ghosts.size()];
     for (int i = 0; i < ghosts.size(); i++) {
-      String g = ghosts.get(i);
-      long step = 0;
-      current = g;
-      while (true) {
-        int index = (int) (step++ % instructions.length());
-        char c = instructions.charAt(index);
-        Pair<String, String> next = nodes.get(current);
-        current = c == 'L' ? next.first() : next.second();
-        if (current.endsWith("Z")) {
-          break;
+      Position start = new Position(ghosts.get(i), 0);
+      CycleDetector.Cycle cycle = CycleDetector.brent(start, move);
+      Position position = start;
+      long firstHit = -1;
+      for (long step = 0; step < cycle.prefixLength() + cycle.period(); step++) {
+        if (step >= cycle.prefixLength() && position.node().endsWith("Z")) {
+          if (firstHit >= 0) {
+            throw new IllegalStateException("more than one terminal node in the loop of " + start);
+          }
+          firstHit = step;
         }
+        position = move.apply(position);
       }
-      frequencies[i] = step;
+      if (firstHit < 0) {
+        throw new IllegalStateException("no terminal node in the loop of " + start);
+      }
+      firstHits[i] = firstHit;
+      periods[i] = cycle.period();
     }
-    Debug.println("frequencies=%s", Arrays.toString(frequencies));
-    long lcm = MoreMath.lcm(frequencies);
-    System.out.println("Part 2: " + lcm);
+    Debug.println("firstHits=%s periods=%s", Arrays.toString(firstHits), Arrays.toString(periods));
+    long latestFirstHit = Arrays.stream(firstHits).max().getAsLong();
+    long aligned = MoreMath.crt(firstHits, periods)
+        .orElseThrow(() -> new IllegalStateException("ghosts never align"))
+        .atLeast(latestFirstHit);
+    System.out.println("Part 2: " + aligned);
   }
 }
@@ -1,6 +1,9 @@
 package aoc2023.day09;
 
+import aoccommon.ByteInput;
 import aoccommon.InputHelper;
+import aoccommon.IntList;
+import aoccommon.Solver;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,12 +12,12 @@ import java.util.List;
 /**
  * Solution for {@link https://adventofcode.com/2023/day/9}.
  */
-public class MirageMaintenance {
+public class MirageMaintenance implements Solver<List<MirageMaintenance.SequenceCalculator>> {
 
   private static final String INPUT = "aoc2023/day09/input.txt";
   private static final String EXAMPLE = "aoc2023/day09/example.txt";
 
-  private record SequenceCalculator(List<int[]> sequences) {
+  record SequenceCalculator(List<int[]> sequences) {
     static SequenceCalculator create(int[] input) {
       List<int[]> sequences = new ArrayList<>();
       sequences.add(input);
@@ -49,23 +52,41 @@ public class MirageMaintenance {
   }
 
   public static void main(String[] args) throws Exception {
-    List<SequenceCalculator> calculators = InputHelper.linesFromResource(INPUT)
-        .map(l -> l.split("\\s+"))
-        .map(split -> Arrays.stream(split).mapToInt(Integer::parseInt).toArray())
-        .map(SequenceCalculator::create)
-        .toList();
+    Solver.run(new MirageMaintenance(), INPUT);
+  }
+
+  @Override
+  public List<SequenceCalculator> parse(String resourceName) throws Exception {
+    ByteInput input = InputHelper.bytesFromResource(resourceName);
+    ByteInput.Cursor cursor = input.cursor();
+    List<SequenceCalculator> calculators = new ArrayList<>();
+    IntList values = new IntList();
+    input.forEachLine((offset, length) -> {
+      if (length == 0) {
+        return;
+      }
+      values.clear();
+      cursor.reset(offset, length);
+      while (cursor.hasNextNumber()) {
+        values.add(cursor.nextInt());
+      }
+      calculators.add(SequenceCalculator.create(values.toArray()));
+    });
 
-    // Part 1.
-    long sum = calculators.stream()
+    return calculators;
+  }
+
+  @Override
+  public Long part1(List<SequenceCalculator> calculators) {
+    return calculators.stream()
         .mapToLong(SequenceCalculator::predictNextValue)
         .sum();
-    System.out.println("Part 1: " + sum);
+  }
 
-    // Part 2.
-    sum = calculators.stream()
+  @Override
+  public Long part2(List<SequenceCalculator> calculators) {
+    return calculators.stream()
         .mapToLong(SequenceCalculator::predictPreviousValue)
         .sum();
-    System.out.println("Part 2: " + sum);
-
   }
 }
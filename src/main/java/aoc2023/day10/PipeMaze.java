@@ -59,7 +59,7 @@ public class PipeMaze {
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
 
-    Maze maze = new Maze(InputHelper.linesFromResource(INPUT).toList());
+    Maze maze = new Maze(InputHelper.readLines(INPUT));
     Point start = IntStream.range(0, maze.rows.size())
         .mapToObj(row -> IntStream.range(0, maze.rows.get(row).length())
             .filter(col -> {
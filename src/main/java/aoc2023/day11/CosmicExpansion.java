@@ -70,7 +70,7 @@ public class CosmicExpansion {
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    Universe universe = Universe.create(InputHelper.linesFromResource(INPUT)
+    Universe universe = Universe.create(InputHelper.readLines(INPUT).stream()
         .map(str -> str.chars().mapToObj(i -> (char) i).toList())
         .toList());
 
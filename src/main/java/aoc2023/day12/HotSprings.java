@@ -1,11 +1,10 @@
 package aoc2023.day12;
 
 import aoccommon.InputHelper;
-import aoccommon.IntArray;
-import aoccommon.Pair;
+import aoccommon.IntList;
+import aoccommon.LongMemo;
 
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * Solution for {@link https://adventofcode.com/2023/day/12}.
@@ -19,100 +18,82 @@ public class HotSprings {
   private static final char DAMAGED = '#';
   private static final char UNKNOWN = '?';
 
-  private record Record(String row, IntArray groups, Map<Pair<Integer, IntArray>, Long> cache) {
+  private record Record(String row, int[] groups) {
 
     static Record parse(String line) {
       String[] split = line.split("\\s+");
-      return new Record(
-          split[0],
-          Arrays.stream(split[1].split(","))
-              .mapToInt(Integer::parseInt)
-              .collect(
-                  IntArray::builder,
-                  (builder, t) -> builder.add(t),
-                  (b1, b2) -> b1.addAll(b2)
-              )
-              .build(),
-          new HashMap<>());
+      IntList groups = new IntList();
+      for (String group : split[1].split(",")) {
+        groups.add(Integer.parseInt(group));
+      }
+      return new Record(split[0], groups.toArray());
     }
 
     Record unfold(int times) {
        StringBuilder sb = new StringBuilder();
-       int[] groups = new int[this.groups.get().length * times];
+       IntList groups = new IntList(this.groups.length * times);
        for (int i = 0; i < times; i++) {
          if (i > 0) {
            sb.append(UNKNOWN);
          }
          sb.append(row);
-         for (int g = 0; g < this.groups.get().length; g++) {
-           groups[(i * this.groups.get().length) + g] = this.groups.get()[g];
-         }
+         groups.addAll(this.groups);
        }
-       return new Record(sb.toString(), IntArray.wrap(groups), new HashMap<>());
+       return new Record(sb.toString(), groups.toArray());
     }
 
-    long countArrangements() {
-      return countArrangement(0, groups);
+    /** Counts arrangements using cache, which is cleared first as its keys only mean something for one record. */
+    long countArrangements(LongMemo cache) {
+      cache.clear();
+      // damagedFrom[i] is the number of damaged springs at or after i; groupSumFrom[g] the sum of groups from g.
+      int[] damagedFrom = new int[row.length() + 1];
+      for (int i = row.length() - 1; i >= 0; i--) {
+        damagedFrom[i] = damagedFrom[i + 1] + (row.charAt(i) == DAMAGED ? 1 : 0);
+      }
+      int[] groupSumFrom = new int[groups.length + 1];
+      for (int g = groups.length - 1; g >= 0; g--) {
+        groupSumFrom[g] = groupSumFrom[g + 1] + groups[g];
+      }
+      return countArrangement(0, 0, damagedFrom, groupSumFrom, cache);
     }
 
-    private long countArrangement(int index, IntArray remaining) {
-      Long cached = cache.get(Pair.of(index, remaining));
-      if (cached != null) {
-        return cached;
-      }
-      int target = remaining.get()[0];
-      // Find all the ways to make the first group, then recurse into the remaining.
-      long arrangements = 0;
-      for (int start = index; start <= row.length() - target; start++) {
-        boolean cantSkip = row.charAt(start) == DAMAGED;
-        boolean group = true;
-        for (int i = start; i < start + target; i++) {
-          char c = row.charAt(i);
-          if (c == OPERATIONAL) {
-            group = false;
+    /** Arrangements of groups[group..] within row[index..]. */
+    private long countArrangement(int index, int group, int[] damagedFrom, int[] groupSumFrom, LongMemo cache) {
+      long key = ((long) index << 32) | group;
+      return cache.computeIfAbsent(key, k -> {
+        int target = groups[group];
+        // Find all the ways to make the first group, then recurse into the remaining.
+        long arrangements = 0;
+        for (int start = index; start <= row.length() - target; start++) {
+          boolean cantSkip = row.charAt(start) == DAMAGED;
+          boolean fits = true;
+          for (int i = start; i < start + target; i++) {
+            if (row.charAt(i) == OPERATIONAL) {
+              fits = false;
+            }
           }
-        }
-        if (!group) {
-          if (cantSkip) {
-            break;
-          } else {
-            continue;
+          int next = start + target;
+          if (fits && next < row.length() && row.charAt(next) == DAMAGED) {
+            fits = false;
           }
-        }
-        int next = start + target;
-        if (next < row.length() && row.charAt(next) == DAMAGED) {
-          if (cantSkip) {
-            break;
-          } else {
-            continue;
+          // If there are too many remaining damaged springs past our last group we can't count this.
+          if (fits && damagedFrom[Math.min(next, row.length())] > groupSumFrom[group + 1]) {
+            fits = false;
+          }
+          if (fits) {
+            if (group + 1 < groups.length) {
+              arrangements += countArrangement(next + 1, group + 1, damagedFrom, groupSumFrom, cache);
+            } else {
+              arrangements += 1;
+            }
           }
-        }
-        // If there are too many remaining damaged springs past our last group we can't count this.
-        long remainingDamaged = row.chars().skip(next).filter(c -> ((char) c) == DAMAGED).count();
-        long remainingGroupSum = remaining.stream().skip(1).sum();
-        if (remainingDamaged > remainingGroupSum) {
           if (cantSkip) {
+            // Can't skip past a damaged spring.
             break;
-          } else {
-            continue;
           }
         }
-        if (remaining.get().length > 1) {
-          long sub = countArrangement(next + 1, IntArray.wrap(remaining.stream().skip(1).toArray()));
-          if (sub > 0) {
-            arrangements += sub;
-          }
-        } else {
-          arrangements += 1;
-        }
-        if (cantSkip) {
-          // Can't skip past a damaged spring.
-          break;
-        }
-      }
-
-      cache.put(Pair.of(index, remaining), arrangements);
-      return arrangements;
+        return arrangements;
+      });
     }
 
 //    void printArrangement(List<Integer> arrangement) {
@@ -135,15 +116,17 @@ public class HotSprings {
   }
 
   public static void main(String[] args) throws Exception {
-    List<Record> records = InputHelper.linesFromResource(INPUT).map(Record::parse).toList();
+    List<Record> records = InputHelper.readLines(INPUT).stream().map(Record::parse).toList();
+    // One memo for every record, so its Stats counters describe a single cache.
+    LongMemo cache = LongMemo.unbounded("HotSprings.cache");
 
     // Part 1.
-    long sum = records.stream().mapToLong(Record::countArrangements).sum();
+    long sum = records.stream().mapToLong(r -> r.countArrangements(cache)).sum();
     System.out.println("Part 1: " + sum);
 
     // Part 2.
     records = records.stream().map(r -> r.unfold(5)).toList();
-    sum = records.stream().mapToLong(Record::countArrangements).sum();
+    sum = records.stream().mapToLong(r -> r.countArrangements(cache)).sum();
     System.out.println("Part 2: " + sum);
   }
 }
@@ -109,7 +109,7 @@ public class PointOfIncidence {
   }
 
   public static void main(String[] args) throws Exception {
-    List<String> lines = InputHelper.linesFromResource(INPUT).toList();
+    List<String> lines = InputHelper.readLines(INPUT);
 
     List<Pattern> patterns = new ArrayList<>();
     List<String> rows = new ArrayList<>();
@@ -2,8 +2,6 @@ package aoc2023.day14;
 
 import aoccommon.*;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -48,6 +46,11 @@ public class ParabolicReflectorDish {
       return new Platform(copy);
     }
 
+    /** One spin cycle: tilt up, left, down, then right. */
+    Platform spin() {
+      return tilt(Direction.UP).tilt(Direction.LEFT).tilt(Direction.DOWN).tilt(Direction.RIGHT);
+    }
+
     static Optional<Point> findSpot(Matrix<Character> matrix, Point point, Direction dir) {
       Optional<Point> candidate = Optional.empty();
       point = dir.apply(point);
@@ -83,7 +86,7 @@ public class ParabolicReflectorDish {
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    Platform platform = new Platform(new Matrix(InputHelper.linesFromResource(INPUT)
+    Platform platform = new Platform(new Matrix(InputHelper.readLines(INPUT).stream()
         .filter(line -> !line.isBlank())
         .map(line -> line.chars().mapToObj(c -> (char) c).collect(Collectors.toList()))
         .toList()));
@@ -94,32 +97,12 @@ public class ParabolicReflectorDish {
     System.out.println("Part 1: " + load);
 
     // Part 2.
+    CycleDetector.Cycle spins = CycleDetector.brent(platform, Platform::spin);
+    Debug.println("Found cycle: %s", spins);
+    // Replay only up to the spin equivalent to the billionth.
     tilted = platform;
-    Direction[] cycle = new Direction[]{Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT};
-    Map<Integer, Long> cachedStates = new HashMap<>();
-
-    long i = 0;
-    long previous = -1;
-    cachedStates.put(tilted.hashCode(), i);
-    for (; i < 1000000000; i++) {
-      for (Direction dir : cycle) {
-        tilted = tilted.tilt(dir);
-      }
-
-      int hash = tilted.hashCode();
-      Long cached = cachedStates.put(hash, i);
-      if (cached != null) {
-        previous = cached;
-        Debug.println("Found cycle: %d-%d", previous, i);
-        break;
-      }
-    }
-    // We found a repeating cycle. Now just extrapolate where we will end up.
-    long remaining = (1000000000 - i) % (i - previous) - 1;
-    for (long j = 0; j < remaining; j++) {
-      for (Direction dir : cycle) {
-        tilted = tilted.tilt(dir);
-      }
+    for (long j = spins.equivalentStep(1000000000); j > 0; j--) {
+      tilted = tilted.spin();
     }
     load = tilted.calculateLoad();
     System.out.println("Part 2: " + load);
@@ -29,7 +29,7 @@ public class LensLibrary {
     // Part 1.
     final ToIntFunction<String> hasher = (step) ->
         step.chars().reduce(0, (current, c) -> ((current + c) * 17) % 256);
-    int sum = InputHelper.linesFromResource(input)
+    int sum = InputHelper.readLines(input).stream()
         .map(line -> line.split(","))
         .flatMap(Arrays::stream)
         .mapToInt(hasher)
@@ -39,7 +39,7 @@ public class LensLibrary {
     // Part 2.
     final LinkedHashMap<String, Integer>[] boxes = new LinkedHashMap[256];
     IntStream.range(0, 256).forEach(i -> boxes[i] = new LinkedHashMap<>());
-    InputHelper.linesFromResource(input)
+    InputHelper.readLines(input).stream()
         .map(line -> line.split(","))
         .flatMap(Arrays::stream)
         .forEach(step -> {
@@ -95,7 +95,7 @@ public class FloorWillBeLava {
   public static void main(String[] args) throws Exception {
     Debug.enablePrint();
     Contraption contraption = new Contraption(
-        new Matrix(InputHelper.linesFromResource(INPUT)
+        new Matrix(InputHelper.readLines(INPUT).stream()
             .map(line -> line.chars().mapToObj(c -> (char) c).toList())
             .toList()));
 
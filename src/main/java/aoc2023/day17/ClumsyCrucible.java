@@ -2,11 +2,10 @@ package aoc2023.day17;
 
 import aoccommon.Direction;
 import aoccommon.InputHelper;
-import aoccommon.Matrix;
-import aoccommon.Point;
-
-import java.util.*;
-import java.util.stream.Collectors;
+import aoccommon.IntGrid;
+import aoccommon.graph.Graph;
+import aoccommon.graph.Search;
+import aoccommon.graph.SearchResult;
 
 /**
  * Solution for {@link https://adventofcode.com/2023/day/17}.
@@ -16,74 +15,68 @@ public class ClumsyCrucible {
   private static final String INPUT = "aoc2023/day17/input.txt";
   private static final String EXAMPLE = "aoc2023/day17/example.txt";
 
-  private static final Map<Direction, EnumSet<Direction>> TURNS = Arrays.stream(Direction.values())
-      .collect(Collectors.toMap(d -> d, d -> EnumSet.complementOf(EnumSet.of(d, d.opposite()))));
+  private static final Direction[] DIRECTIONS = Direction.values();
 
-  private record Node(Point point, int heat, Direction direction, int line) implements Comparable<Node> {
-    Visited toVisited() {
-      return new Visited(point, direction, line);
+  /**
+   * Crucible states (cell, direction of travel, blocks travelled in a straight line) numbered as
+   * ((index * 4 + direction) * (maxLine + 1) + line).
+   */
+  private record Crucibles(IntGrid grid, int minLine, int maxLine) implements Graph {
+    int nodeCount() {
+      return grid.width() * grid.height() * DIRECTIONS.length * (maxLine + 1);
     }
 
-    @Override
-    public int compareTo(Node other) {
-      return Integer.compare(heat, other.heat);
+    int node(int index, Direction direction, int line) {
+      return (index * DIRECTIONS.length + direction.ordinal()) * (maxLine + 1) + line;
     }
-  }
 
-  private record Visited(Point p, Direction d, int line) {
-  }
+    int index(int node) {
+      return node / (maxLine + 1) / DIRECTIONS.length;
+    }
 
-  static int findMinimumHeatLoss(Matrix<Integer> matrix, int minLine, int maxLine) {
-    Point start = Point.of(0, 0);
-    Point end = Point.of(matrix.width() - 1, matrix.height() - 1);
+    int line(int node) {
+      return node % (maxLine + 1);
+    }
 
-    PriorityQueue<Node> queue = new PriorityQueue<>();
-    queue.add(new Node(start, 0, Direction.RIGHT, 0));
-    Map<Visited, Integer> visited = new HashMap<>();
-    while (!queue.isEmpty()) {
-      Node node = queue.remove();
-      if (node.point().equals(end) && node.line() >= minLine) {
-        return node.heat();
-      }
-      if (node.line() < maxLine) {
-        Point p = node.direction().apply(node.point());
-        if (matrix.contains(p)) {
-          Node next = new Node(p, node.heat() + matrix.get(p), node.direction(), node.line() + 1);
-          Visited v = next.toVisited();
-          Integer prev = visited.get(v);
-          if (prev == null || next.heat() < prev) {
-            visited.put(v, next.heat());
-            queue.add(next);
-          }
+    @Override
+    public void forEachEdge(int node, EdgeConsumer edges) {
+      int index = index(node);
+      int line = line(node);
+      Direction direction = DIRECTIONS[node / (maxLine + 1) % DIRECTIONS.length];
+      int x = index % grid.width();
+      int y = index / grid.width();
+      for (Direction d : DIRECTIONS) {
+        if (d == direction.opposite()) {
+          continue;
+        }
+        boolean straight = d == direction;
+        if (straight ? line >= maxLine : line < minLine) {
+          continue;
+        }
+        int nx = x + d.xd();
+        int ny = y + d.yd();
+        if (grid.contains(ny, nx)) {
+          edges.accept(node(grid.index(ny, nx), d, straight ? line + 1 : 1), grid.getUnchecked(ny, nx));
         }
       }
-      if (node.line() < minLine) {
-        continue;
-      }
-      TURNS.get(node.direction()).stream()
-          .forEach(d -> {
-            Point p = d.apply(node.point());
-            if (matrix.contains(p)) {
-              Node next = new Node(p, node.heat() + matrix.get(p), d, 1);
-              Visited v = next.toVisited();
-              Integer prev = visited.get(v);
-              if (prev == null || next.heat() < prev) {
-                visited.put(v, next.heat());
-                queue.add(next);
-              }
-            }
-          });
     }
-    return -1;
+  }
+
+  static int findMinimumHeatLoss(IntGrid grid, int minLine, int maxLine) {
+    Crucibles crucibles = new Crucibles(grid, minLine, maxLine);
+    int end = grid.index(grid.height() - 1, grid.width() - 1);
+    // The crucible starts in the top-left corner and may head right or down.
+    int[] starts = {crucibles.node(0, Direction.RIGHT, 0), crucibles.node(0, Direction.DOWN, 0)};
+    SearchResult result = Search.dijkstra(crucibles.nodeCount(), crucibles, starts,
+        node -> crucibles.index(node) == end && crucibles.line(node) >= minLine);
+    return result.foundTarget() ? result.targetDistance() : -1;
   }
 
   public static void main(String[] args) throws Exception {
-    Matrix<Integer> matrix = new Matrix(InputHelper.linesFromResource(INPUT)
-        .map(line -> line.chars().mapToObj(c -> c - '0').toList())
-        .toList());
+    IntGrid grid = IntGrid.parseDigits(InputHelper.readLines(INPUT));
 
     // Part 1.
-    System.out.println("Part 1: " + findMinimumHeatLoss(matrix, 0, 3));
-    System.out.println("Part 2: " + findMinimumHeatLoss(matrix, 4, 10));
+    System.out.println("Part 1: " + findMinimumHeatLoss(grid, 0, 3));
+    System.out.println("Part 2: " + findMinimumHeatLoss(grid, 4, 10));
   }
 }
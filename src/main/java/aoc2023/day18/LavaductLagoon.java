@@ -92,7 +92,7 @@ public class LavaductLagoon {
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    List<Instruction> plan = InputHelper.linesFromResource(INPUT)
+    List<Instruction> plan = InputHelper.readLines(INPUT).stream()
         .map(Instruction::parse)
         .toList();
 
@@ -1,6 +1,7 @@
 package aoc2023.day19;
 
 import aoccommon.InputHelper;
+import aoccommon.LongRangeSet;
 
 import java.util.*;
 import java.util.regex.Matcher;
@@ -116,75 +117,26 @@ public class Aplenty {
     }
   }
 
-  private record Range(int low, int high, boolean empty) {
-    Range {
-      if (low > high) {
-        throw new IllegalArgumentException();
-      }
-    }
-
-    static Range of(int low, int high) {
-      return new Range(low, high, false);
-    }
-
-    static Range none() {
-      return new Range(0, 0, true);
-    }
-
-    Range alsoGreaterThan(int floor) {
-      if (empty) {
-        return Range.none();
-      }
-      if (low > floor) {
-        return Range.of(low, high);
-      }
-      if (high > floor) {
-        return Range.of(floor + 1, high);
-      }
-      return Range.none();
-    }
-
-    Range alsoLessThan(int ceiling) {
-      if (empty) {
-        return Range.none();
-      }
-      if (high < ceiling) {
-        return Range.of(low, high);
-      }
-      if (low < ceiling) {
-        return Range.of(low, ceiling - 1);
-      }
-      return Range.none();
-    }
-
-    int size() {
-      if (empty) {
-        return 0;
-      }
-      return high - low + 1;
-    }
-  }
-
   interface Combo {
     long count();
   }
 
 
-  private record Ranges(Map<Character, Range> ranges) {
+  private record Ranges(Map<Character, LongRangeSet> ranges) {
     static Ranges all() {
       return new Ranges(Stream.of('x', 'm', 'a', 's')
-          .collect(Collectors.toMap(c -> c, c -> Range.of(1, 4000))));
+          .collect(Collectors.toMap(c -> c, c -> LongRangeSet.closed(1, 4000))));
     }
 
     Ranges greaterThan(char c, int floor) {
-      Map<Character, Range> copy = new HashMap<>(ranges);
-      copy.put(c, ranges.get(c).alsoGreaterThan(floor));
+      Map<Character, LongRangeSet> copy = new HashMap<>(ranges);
+      copy.put(c, ranges.get(c).intersection(floor + 1L, Long.MAX_VALUE));
       return new Ranges(copy);
     }
 
     Ranges lessThan(char c, int ceiling) {
-      Map<Character, Range> copy = new HashMap<>(ranges);
-      copy.put(c, ranges.get(c).alsoLessThan(ceiling));
+      Map<Character, LongRangeSet> copy = new HashMap<>(ranges);
+      copy.put(c, ranges.get(c).intersection(Long.MIN_VALUE, ceiling - 1L));
       return new Ranges(copy);
     }
   }
@@ -201,7 +153,7 @@ public class Aplenty {
       if (result == Result.REJECT) {
         return 0;
       }
-      return ranges.ranges().values().stream().mapToLong(Range::size).reduce(1, Math::multiplyExact);
+      return ranges.ranges().values().stream().mapToLong(LongRangeSet::size).reduce(1, Math::multiplyExact);
     }
   }
 
@@ -276,7 +228,7 @@ public class Aplenty {
   }
 
   public static void main(String[] args) throws Exception {
-    Iterator<String> lines = InputHelper.linesFromResource(INPUT).iterator();
+    Iterator<String> lines = InputHelper.readLines(INPUT).iterator();
 
     Map<String, Workflow> workflows = new HashMap<>();
     while (lines.hasNext()) {
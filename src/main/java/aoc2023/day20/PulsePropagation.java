@@ -132,7 +132,7 @@ public class PulsePropagation {
     Map<String, Module> modules = new HashMap<>();
     Map<String, Set<String>> inputs = new HashMap<>();
 
-    for (String line : InputHelper.linesFromResource(input).toList()) {
+    for (String line : InputHelper.readLines(input)) {
       Matcher m = REGEX.matcher(line);
       if (!m.matches()) {
         throw new IllegalArgumentException(line);
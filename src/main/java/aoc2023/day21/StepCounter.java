@@ -107,7 +107,7 @@ public class StepCounter {
 
   public static void main(String[] args) throws Exception {
     // Debug.enablePrint();
-    GardenMap map = new GardenMap(InputHelper.linesFromResource(INPUT).filter(s -> !s.isBlank()).toList());
+    GardenMap map = new GardenMap(InputHelper.readLines(INPUT).stream().filter(s -> !s.isBlank()).toList());
 
     // Part 1.
     System.out.println("Part 1: " + map.countPlotsReached(64));
@@ -122,16 +122,16 @@ public class StepCounter {
     // - The number of steps 26501365 can be expressed as a function of N * 131 + 65. (N=202300).
     // - If we solve x=0,y=f(65), x=1,y=f(131 + 65), x=2,y=f(2 * 131 + 65) we can compute a polynomial for f(x * 131 + 65)
 
-    // We could implement our own polynomial interpolator.
-    // ...or plug these values into a calculator
-    for (int x = 0; x < 3; x++) {
-      int y = infinite.countPlotsReached((131 * x) + 65);
-      Debug.println("x=%d y=%d", x, y);
+    // Sample f(x * period + offset) for x = 0, 1, 2 and extrapolate the quadratic through them.
+    int period = map.rows().size();
+    int offset = map.findStart().getY();
+    long[] samples = new long[3];
+    for (int x = 0; x < samples.length; x++) {
+      samples[x] = infinite.countPlotsReached((period * x) + offset);
+      Debug.println("x=%d y=%d", x, samples[x]);
     }
-    // x = {0, 1, 2} y = {3755, 33494, 92811}
-    // which gives y = 14789x^2 + 14950x + 3755
-    long x = (26501365L - 65) / 131L;
-    long y = (14789 * x * x) + (14950 * x) + 3755;
+    long x = (26501365L - offset) / period;
+    long y = MoreMath.extrapolate(samples, x);
     System.out.println("Part 2: " + y);
   }
 }
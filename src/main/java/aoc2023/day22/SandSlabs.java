@@ -50,7 +50,7 @@ public class SandSlabs {
     }
   }
   public static void main(String [] args) throws Exception {
-    List<Brick> bricks = InputHelper.linesFromResource(EXAMPLE).map(Brick::parse).toList();
+    List<Brick> bricks = InputHelper.readLines(EXAMPLE).stream().map(Brick::parse).toList();
     
   }
 }
@@ -0,0 +1,344 @@
+package aoccommon;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size 2D grid of bits stored as rows of 64-bit words, so that bulk
+ * operations (boolean combinations, shifts, neighbour masks, population
+ * counts) process 64 cells per instruction. Cells cover
+ * [minX, minX + width) x [minY, minY + height); reads outside are false.
+ * Cellular automata that spread outwards can {@link #grow} the border as
+ * they go.
+ *
+ * <p>Bit i of word w in a row is the cell at x = minX + 64 * w + i. Bits past
+ * the width in the last word of a row are always zero.
+ */
+public final class BitGrid {
+
+  /** Receives the coordinates of a set cell. */
+  @FunctionalInterface
+  public interface CellConsumer {
+    void accept(int x, int y);
+  }
+
+  private final int minX;
+  private final int minY;
+  private final int width;
+  private final int height;
+  private final int wordsPerRow;
+  private final long lastWordMask;
+  private final long[] words;
+
+  public BitGrid(int width, int height) {
+    this(0, 0, width, height);
+  }
+
+  public BitGrid(int minX, int minY, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException(String.format("dimensions must be positive: %dx%d", width, height));
+    }
+    this.minX = minX;
+    this.minY = minY;
+    this.width = width;
+    this.height = height;
+    this.wordsPerRow = BitRows.wordsFor(width);
+    this.lastWordMask = BitRows.lastWordMask(width);
+    this.words = new long[Math.multiplyExact(wordsPerRow, height)];
+  }
+
+  public int minX() {
+    return minX;
+  }
+
+  public int minY() {
+    return minY;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  public boolean contains(int x, int y) {
+    return x >= minX && x < minX + width && y >= minY && y < minY + height;
+  }
+
+  public boolean get(int x, int y) {
+    if (!contains(x, y)) {
+      return false;
+    }
+    int cx = x - minX;
+    return (words[(y - minY) * wordsPerRow + (cx >>> 6)] & (1L << cx)) != 0;
+  }
+
+  public boolean get(long packedPoint) {
+    return get(PackedPoint.x(packedPoint), PackedPoint.y(packedPoint));
+  }
+
+  public void set(int x, int y) {
+    set(x, y, true);
+  }
+
+  public void set(long packedPoint) {
+    set(PackedPoint.x(packedPoint), PackedPoint.y(packedPoint), true);
+  }
+
+  public void set(int x, int y, boolean value) {
+    if (!contains(x, y)) {
+      throw new IndexOutOfBoundsException(String.format("(%d, %d) is outside %s", x, y, bounds()));
+    }
+    int cx = x - minX;
+    int index = (y - minY) * wordsPerRow + (cx >>> 6);
+    if (value) {
+      words[index] |= 1L << cx;
+    } else {
+      words[index] &= ~(1L << cx);
+    }
+  }
+
+  public void clear(int x, int y) {
+    set(x, y, false);
+  }
+
+  public BitGrid copy() {
+    BitGrid copy = new BitGrid(minX, minY, width, height);
+    System.arraycopy(words, 0, copy.words, 0, words.length);
+    return copy;
+  }
+
+  /** Sets every cell to value. */
+  public BitGrid fill(boolean value) {
+    for (int row = 0; row < height; row++) {
+      BitRows.fillRow(words, row * wordsPerRow, wordsPerRow, lastWordMask, value);
+    }
+    return this;
+  }
+
+  /** In place: this &= other. Returns this. */
+  public BitGrid and(BitGrid other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: this |= other. Returns this. */
+  public BitGrid or(BitGrid other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] |= other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: this &= ~other. Returns this. */
+  public BitGrid andNot(BitGrid other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= ~other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: this ^= other. Returns this. */
+  public BitGrid xor(BitGrid other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] ^= other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: flips every cell. Returns this. */
+  public BitGrid not() {
+    for (int i = 0; i < words.length; i++) {
+      words[i] = ~words[i];
+    }
+    maskRows();
+    return this;
+  }
+
+  public long popCount() {
+    long count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** A new grid with the same bounds where cell (x + dx, y + dy) = this cell (x, y). */
+  public BitGrid shift(int dx, int dy) {
+    return shift(dx, dy, false);
+  }
+
+  /** As {@link #shift(int, int)}, with cells shifted in from outside the bounds set to fill. */
+  public BitGrid shift(int dx, int dy, boolean fill) {
+    BitGrid shifted = new BitGrid(minX, minY, width, height);
+    for (int row = 0; row < height; row++) {
+      int srcRow = row - dy;
+      int dstOffset = row * wordsPerRow;
+      if (srcRow < 0 || srcRow >= height) {
+        BitRows.fillRow(shifted.words, dstOffset, wordsPerRow, lastWordMask, fill);
+      } else {
+        BitRows.shiftRow(words, srcRow * wordsPerRow, shifted.words, dstOffset, wordsPerRow, lastWordMask, dx, fill);
+      }
+    }
+    return shifted;
+  }
+
+  /** Cells with at least one set orthogonal neighbour. */
+  public BitGrid neighbours4() {
+    return shift(1, 0).or(shift(-1, 0)).or(shift(0, 1)).or(shift(0, -1));
+  }
+
+  /** Cells with at least one set neighbour, diagonals included. */
+  public BitGrid neighbours8() {
+    BitGrid horizontal = shift(1, 0).or(shift(-1, 0));
+    BitGrid band = horizontal.copy().or(this);
+    return horizontal.or(band.shift(0, 1)).or(band.shift(0, -1));
+  }
+
+  /**
+   * A new grid with margin extra cells on every side, holding this grid's
+   * cells at the same coordinates and fill in the new border.
+   */
+  public BitGrid grow(int margin, boolean fill) {
+    if (margin < 0) {
+      throw new IllegalArgumentException("margin must be non-negative: " + margin);
+    }
+    BitGrid grown = new BitGrid(minX - margin, minY - margin, width + 2 * margin, height + 2 * margin);
+    grown.fill(fill);
+    // Each row is staged at the start of a wider row, then shifted right by margin.
+    long[] staged = new long[grown.wordsPerRow];
+    long[] moved = new long[grown.wordsPerRow];
+    for (int row = 0; row < height; row++) {
+      int dstOffset = (row + margin) * grown.wordsPerRow;
+      System.arraycopy(words, row * wordsPerRow, staged, 0, wordsPerRow);
+      BitRows.shiftRow(staged, 0, moved, 0, grown.wordsPerRow, grown.lastWordMask, margin, false);
+      for (int j = 0; j < grown.wordsPerRow; j++) {
+        long inside = insideMask(j, margin, width);
+        grown.words[dstOffset + j] = (grown.words[dstOffset + j] & ~inside) | (moved[j] & inside);
+      }
+    }
+    return grown;
+  }
+
+  /**
+   * Applies a boolean function of k same-shaped grids cell by cell, 64 cells
+   * at a time. table has 2^k entries; the cell's bit in inputs[0] is the most
+   * significant bit of the index into it.
+   */
+  public static BitGrid evaluate(BitGrid[] inputs, boolean[] table) {
+    if (inputs.length == 0 || inputs.length > 16 || table.length != 1 << inputs.length) {
+      throw new IllegalArgumentException("table needs 2^" + inputs.length + " entries, has " + table.length);
+    }
+    BitGrid first = inputs[0];
+    for (BitGrid input : inputs) {
+      first.checkSameShape(input);
+    }
+    BitGrid result = new BitGrid(first.minX, first.minY, first.width, first.height);
+    for (int i = 0; i < result.words.length; i++) {
+      result.words[i] = evaluateWord(inputs, i, table, 0, 0);
+    }
+    result.maskRows();
+    return result;
+  }
+
+  /** Shannon expansion on inputs[level], skipping a branch when the word is all zeros or all ones. */
+  private static long evaluateWord(BitGrid[] inputs, int i, boolean[] table, int level, int index) {
+    if (level == inputs.length) {
+      return table[index] ? -1L : 0L;
+    }
+    long word = inputs[level].words[i];
+    int bit = 1 << (inputs.length - 1 - level);
+    if (word == 0) {
+      return evaluateWord(inputs, i, table, level + 1, index);
+    }
+    long ones = evaluateWord(inputs, i, table, level + 1, index | bit);
+    if (word == -1L) {
+      return ones;
+    }
+    return (word & ones) | (~word & evaluateWord(inputs, i, table, level + 1, index));
+  }
+
+  public void forEachSetBit(CellConsumer consumer) {
+    for (int row = 0; row < height; row++) {
+      for (int j = 0; j < wordsPerRow; j++) {
+        for (long word = words[row * wordsPerRow + j]; word != 0; word &= word - 1) {
+          consumer.accept(minX + (j << 6) + Long.numberOfTrailingZeros(word), minY + row);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BitGrid)) {
+      return false;
+    }
+    BitGrid o = (BitGrid) other;
+    return minX == o.minX && minY == o.minY && width == o.width && height == o.height
+        && Arrays.equals(words, o.words);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * (31 * (31 * minX + minY) + width) + height) + Arrays.hashCode(words);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int y = minY; y < minY + height; y++) {
+      for (int x = minX; x < minX + width; x++) {
+        sb.append(get(x, y) ? '#' : '.');
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  /** Bits of word j covering cells [start, start + length) of a row. */
+  private static long insideMask(int j, int start, int length) {
+    long lo = (long) j << 6;
+    long from = Math.max(start, lo);
+    long to = Math.min((long) start + length, lo + 64);
+    if (from >= to) {
+      return 0;
+    }
+    long upper = to - lo == 64 ? -1L : (1L << (to - lo)) - 1;
+    return upper & ~((1L << (from - lo)) - 1);
+  }
+
+  private void maskRows() {
+    for (int row = 1; row <= height; row++) {
+      words[row * wordsPerRow - 1] &= lastWordMask;
+    }
+  }
+
+  private void checkSameShape(BitGrid other) {
+    if (minX != other.minX || minY != other.minY || width != other.width || height != other.height) {
+      throw new IllegalArgumentException(String.format("bounds differ: %s vs %s", bounds(), other.bounds()));
+    }
+  }
+
+  private String bounds() {
+    return String.format("[%d, %d) x [%d, %d)", minX, minX + width, minY, minY + height);
+  }
+}
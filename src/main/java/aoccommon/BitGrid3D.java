@@ -0,0 +1,249 @@
+package aoccommon;
+
+import java.util.Arrays;
+
+/**
+ * The 3D counterpart of {@link BitGrid}: a fixed-size box of bits covering
+ * [minX, minX + width) x [minY, minY + height) x [minZ, minZ + depth), stored
+ * as x-rows of 64-bit words ordered by z then y. Reads outside are false.
+ */
+public final class BitGrid3D {
+
+  /** Receives the coordinates of a set cell. */
+  @FunctionalInterface
+  public interface CellConsumer {
+    void accept(int x, int y, int z);
+  }
+
+  private final int minX;
+  private final int minY;
+  private final int minZ;
+  private final int width;
+  private final int height;
+  private final int depth;
+  private final int wordsPerRow;
+  private final long lastWordMask;
+  private final long[] words;
+
+  public BitGrid3D(int width, int height, int depth) {
+    this(0, 0, 0, width, height, depth);
+  }
+
+  public BitGrid3D(int minX, int minY, int minZ, int width, int height, int depth) {
+    if (width <= 0 || height <= 0 || depth <= 0) {
+      throw new IllegalArgumentException(
+          String.format("dimensions must be positive: %dx%dx%d", width, height, depth));
+    }
+    this.minX = minX;
+    this.minY = minY;
+    this.minZ = minZ;
+    this.width = width;
+    this.height = height;
+    this.depth = depth;
+    this.wordsPerRow = BitRows.wordsFor(width);
+    this.lastWordMask = BitRows.lastWordMask(width);
+    this.words = new long[Math.multiplyExact(Math.multiplyExact(wordsPerRow, height), depth)];
+  }
+
+  /** The smallest grid holding every point, plus margin cells on each side. */
+  public static BitGrid3D bounding(Iterable<Point> points, int margin) {
+    int[] min = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+    int[] max = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    for (Point p : points) {
+      int[] c = {p.getX(), p.getY(), p.getZ()};
+      for (int i = 0; i < 3; i++) {
+        min[i] = Math.min(min[i], c[i]);
+        max[i] = Math.max(max[i], c[i]);
+      }
+    }
+    if (min[0] > max[0]) {
+      throw new IllegalArgumentException("no points");
+    }
+    BitGrid3D grid = new BitGrid3D(min[0] - margin, min[1] - margin, min[2] - margin,
+        max[0] - min[0] + 1 + 2 * margin, max[1] - min[1] + 1 + 2 * margin, max[2] - min[2] + 1 + 2 * margin);
+    for (Point p : points) {
+      grid.set(p.getX(), p.getY(), p.getZ());
+    }
+    return grid;
+  }
+
+  public int minX() {
+    return minX;
+  }
+
+  public int minY() {
+    return minY;
+  }
+
+  public int minZ() {
+    return minZ;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  public int depth() {
+    return depth;
+  }
+
+  public boolean contains(int x, int y, int z) {
+    return x >= minX && x < minX + width && y >= minY && y < minY + height && z >= minZ && z < minZ + depth;
+  }
+
+  public boolean get(int x, int y, int z) {
+    if (!contains(x, y, z)) {
+      return false;
+    }
+    int cx = x - minX;
+    return (words[row(y, z) * wordsPerRow + (cx >>> 6)] & (1L << cx)) != 0;
+  }
+
+  public void set(int x, int y, int z) {
+    set(x, y, z, true);
+  }
+
+  public void set(int x, int y, int z, boolean value) {
+    if (!contains(x, y, z)) {
+      throw new IndexOutOfBoundsException(String.format("(%d, %d, %d) is outside the grid", x, y, z));
+    }
+    int cx = x - minX;
+    int index = row(y, z) * wordsPerRow + (cx >>> 6);
+    if (value) {
+      words[index] |= 1L << cx;
+    } else {
+      words[index] &= ~(1L << cx);
+    }
+  }
+
+  public BitGrid3D copy() {
+    BitGrid3D copy = new BitGrid3D(minX, minY, minZ, width, height, depth);
+    System.arraycopy(words, 0, copy.words, 0, words.length);
+    return copy;
+  }
+
+  /** In place: this &= other. Returns this. */
+  public BitGrid3D and(BitGrid3D other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: this |= other. Returns this. */
+  public BitGrid3D or(BitGrid3D other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] |= other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: this &= ~other. Returns this. */
+  public BitGrid3D andNot(BitGrid3D other) {
+    checkSameShape(other);
+    for (int i = 0; i < words.length; i++) {
+      words[i] &= ~other.words[i];
+    }
+    return this;
+  }
+
+  /** In place: flips every cell. Returns this. */
+  public BitGrid3D not() {
+    for (int i = 0; i < words.length; i++) {
+      words[i] = ~words[i];
+    }
+    for (int row = 1; row <= height * depth; row++) {
+      words[row * wordsPerRow - 1] &= lastWordMask;
+    }
+    return this;
+  }
+
+  public long popCount() {
+    long count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** A new grid with the same bounds where cell (x + dx, y + dy, z + dz) = this cell (x, y, z). */
+  public BitGrid3D shift(int dx, int dy, int dz) {
+    BitGrid3D shifted = new BitGrid3D(minX, minY, minZ, width, height, depth);
+    for (int z = 0; z < depth; z++) {
+      for (int y = 0; y < height; y++) {
+        int srcY = y - dy;
+        int srcZ = z - dz;
+        if (srcY >= 0 && srcY < height && srcZ >= 0 && srcZ < depth) {
+          BitRows.shiftRow(words, (srcZ * height + srcY) * wordsPerRow, shifted.words,
+              (z * height + y) * wordsPerRow, wordsPerRow, lastWordMask, dx, false);
+        }
+      }
+    }
+    return shifted;
+  }
+
+  /** Cells with at least one set face neighbour. */
+  public BitGrid3D neighbours6() {
+    return shift(1, 0, 0).or(shift(-1, 0, 0))
+        .or(shift(0, 1, 0)).or(shift(0, -1, 0))
+        .or(shift(0, 0, 1)).or(shift(0, 0, -1));
+  }
+
+  public void forEachSetBit(CellConsumer consumer) {
+    for (int z = 0; z < depth; z++) {
+      for (int y = 0; y < height; y++) {
+        int offset = (z * height + y) * wordsPerRow;
+        for (int j = 0; j < wordsPerRow; j++) {
+          for (long word = words[offset + j]; word != 0; word &= word - 1) {
+            consumer.accept(minX + (j << 6) + Long.numberOfTrailingZeros(word), minY + y, minZ + z);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BitGrid3D)) {
+      return false;
+    }
+    BitGrid3D o = (BitGrid3D) other;
+    return minX == o.minX && minY == o.minY && minZ == o.minZ
+        && width == o.width && height == o.height && depth == o.depth
+        && Arrays.equals(words, o.words);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * (31 * minX + minY) + minZ) + Arrays.hashCode(words);
+  }
+
+  private int row(int y, int z) {
+    return (z - minZ) * height + (y - minY);
+  }
+
+  private void checkSameShape(BitGrid3D other) {
+    if (minX != other.minX || minY != other.minY || minZ != other.minZ
+        || width != other.width || height != other.height || depth != other.depth) {
+      throw new IllegalArgumentException("grid bounds differ");
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package aoccommon;
+
+/** Shared word-level row operations for {@link BitGrid} and {@link BitGrid3D}. */
+final class BitRows {
+
+  private BitRows() {}
+
+  static int wordsFor(int width) {
+    return (width + 63) >>> 6;
+  }
+
+  /** Mask of the bits of the last word of a row that lie inside the row. */
+  static long lastWordMask(int width) {
+    int used = width & 63;
+    return used == 0 ? -1L : (1L << used) - 1;
+  }
+
+  /**
+   * Copies a row of words from src into dst moved by dx cells (towards higher
+   * x if positive). Cells shifted in from outside the row are fill.
+   */
+  static void shiftRow(long[] src, int srcOffset, long[] dst, int dstOffset, int words, long lastMask, int dx,
+      boolean fill) {
+    int wordShift = Math.abs(dx) >>> 6;
+    int bitShift = Math.abs(dx) & 63;
+    for (int j = 0; j < words; j++) {
+      long value;
+      if (dx >= 0) {
+        long hi = word(src, srcOffset, words, lastMask, j - wordShift, fill);
+        value = bitShift == 0
+            ? hi
+            : (hi << bitShift) | (word(src, srcOffset, words, lastMask, j - wordShift - 1, fill) >>> (64 - bitShift));
+      } else {
+        long lo = word(src, srcOffset, words, lastMask, j + wordShift, fill);
+        value = bitShift == 0
+            ? lo
+            : (lo >>> bitShift) | (word(src, srcOffset, words, lastMask, j + wordShift + 1, fill) << (64 - bitShift));
+      }
+      dst[dstOffset + j] = value;
+    }
+    dst[dstOffset + words - 1] &= lastMask;
+  }
+
+  /** Word k of a row, treating words beyond the row and padding bits as fill. */
+  private static long word(long[] src, int offset, int words, long lastMask, int k, boolean fill) {
+    if (k < 0 || k >= words) {
+      return fill ? -1L : 0L;
+    }
+    long value = src[offset + k];
+    return fill && k == words - 1 ? value | ~lastMask : value;
+  }
+
+  static void fillRow(long[] dst, int offset, int words, long lastMask, boolean fill) {
+    for (int j = 0; j < words; j++) {
+      dst[offset + j] = fill ? -1L : 0L;
+    }
+    dst[offset + words - 1] &= lastMask;
+  }
+}
@@ -0,0 +1,240 @@
+package aoccommon;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Puzzle input held as raw bytes (memory-mapped for files, a single heap
+ * buffer for resources) with helpers to walk lines and parse numbers in
+ * place, without decoding to Strings. Assumes ASCII input. Obtain one from
+ * {@link InputHelper#bytes(String)} or {@link InputHelper#bytesFromResource(String)}.
+ */
+public final class ByteInput {
+
+  /** Receives each line as an [offset, offset + length) slice of the input. */
+  @FunctionalInterface
+  public interface LineConsumer {
+    void accept(int offset, int length);
+  }
+
+  private final ByteBuffer buffer;
+  private final int size;
+
+  ByteInput(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.size = buffer.limit();
+  }
+
+  public static ByteInput wrap(byte[] bytes) {
+    return new ByteInput(ByteBuffer.wrap(bytes));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public byte byteAt(int index) {
+    return buffer.get(index);
+  }
+
+  /**
+   * Calls consumer with each line, excluding the terminator (\n or \r\n). A
+   * trailing newline does not produce an extra empty line.
+   */
+  public void forEachLine(LineConsumer consumer) {
+    int start = 0;
+    while (start < size) {
+      int end = indexOf((byte) '\n', start, size);
+      int next = end < 0 ? size : end + 1;
+      if (end < 0) {
+        end = size;
+      }
+      if (end > start && buffer.get(end - 1) == '\r') {
+        end--;
+      }
+      consumer.accept(start, end - start);
+      start = next;
+    }
+  }
+
+  public int lineCount() {
+    int[] count = new int[1];
+    forEachLine((offset, length) -> count[0]++);
+    return count[0];
+  }
+
+  /** Index of the first b in [from, to), or -1. */
+  public int indexOf(byte b, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Number of occurrences of b in [from, to). */
+  public int count(byte b, int from, int to) {
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == b) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Parses a signed decimal int occupying exactly [offset, offset + length). */
+  public int parseInt(int offset, int length) {
+    long value = parseLong(offset, length);
+    if (value != (int) value) {
+      throw new NumberFormatException("int overflow: " + string(offset, length));
+    }
+    return (int) value;
+  }
+
+  /** Parses a signed decimal long occupying exactly [offset, offset + length). */
+  public long parseLong(int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    if (i == end) {
+      throw new NumberFormatException("not a number: " + string(offset, length));
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = buffer.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("not a number: " + string(offset, length));
+      }
+      value = Math.addExact(Math.multiplyExact(value, 10), negative ? -digit : digit);
+    }
+    return value;
+  }
+
+  /** True if the bytes at [offset, offset + ascii.length()) equal ascii. */
+  public boolean matches(int offset, String ascii) {
+    if (offset + ascii.length() > size) {
+      return false;
+    }
+    for (int i = 0; i < ascii.length(); i++) {
+      if (buffer.get(offset + i) != ascii.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Decodes a slice to a String, for the occasional token that needs one. */
+  public String string(int offset, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(offset, bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  public Cursor cursor() {
+    return new Cursor(0, size);
+  }
+
+  /** A cursor limited to [offset, offset + length), e.g. a single line. */
+  public Cursor cursor(int offset, int length) {
+    return new Cursor(offset, offset + length);
+  }
+
+  /**
+   * A forward-only tokeniser over a slice of the input. Reusable via
+   * {@link #reset(int, int)} so per-line parsing needn't allocate.
+   */
+  public final class Cursor {
+    private int position;
+    private int end;
+
+    private Cursor(int position, int end) {
+      this.position = position;
+      this.end = end;
+    }
+
+    public Cursor reset(int offset, int length) {
+      this.position = offset;
+      this.end = offset + length;
+      return this;
+    }
+
+    public int position() {
+      return position;
+    }
+
+    public boolean atEnd() {
+      return position >= end;
+    }
+
+    /** True if another (possibly signed) number remains before the end. */
+    public boolean hasNextNumber() {
+      return skipToNumber() < end;
+    }
+
+    /** Skips any non-numeric bytes and parses the next signed int. */
+    public int nextInt() {
+      long value = nextLong();
+      if (value != (int) value) {
+        throw new NumberFormatException("int overflow at " + position);
+      }
+      return (int) value;
+    }
+
+    /** Skips any non-numeric bytes and parses the next signed long. */
+    public long nextLong() {
+      int start = skipToNumber();
+      if (start >= end) {
+        throw new IllegalStateException("no more numbers");
+      }
+      int i = start;
+      if (buffer.get(i) == '-') {
+        i++;
+      }
+      while (i < end && isDigit(buffer.get(i))) {
+        i++;
+      }
+      position = i;
+      return parseLong(start, i - start);
+    }
+
+    /**
+     * Advances past the next occurrence of b, returning the length of the
+     * token skipped over (excluding b). Consumes to the end if b is absent.
+     */
+    public int skipPast(byte b) {
+      int start = position;
+      int found = indexOf(b, position, end);
+      if (found < 0) {
+        position = end;
+        return end - start;
+      }
+      position = found + 1;
+      return found - start;
+    }
+
+    public void skip(int n) {
+      position = Math.min(end, position + n);
+    }
+
+    private int skipToNumber() {
+      while (position < end) {
+        byte b = buffer.get(position);
+        if (isDigit(b) || (b == '-' && position + 1 < end && isDigit(buffer.get(position + 1)))) {
+          break;
+        }
+        position++;
+      }
+      return position;
+    }
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -0,0 +1,278 @@
+package aoccommon;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed-size grid of chars backed by a single row-major array. A cheaper
+ * alternative to {@code Matrix<Character>} for hot paths: no boxing, and
+ * {@link #copy()} is a single array copy.
+ */
+public final class CharGrid {
+
+  private final int width;
+  private final int height;
+  private final char[] cells;
+
+  private CharGrid(int width, int height, char[] cells) {
+    this.width = width;
+    this.height = height;
+    this.cells = cells;
+  }
+
+  public static CharGrid create(int width, int height, char fill) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("dimensions must be non-negative");
+    }
+    char[] cells = new char[width * height];
+    Arrays.fill(cells, fill);
+    return new CharGrid(width, height, cells);
+  }
+
+  /** Wraps (without copying) a row-major array. */
+  public static CharGrid wrap(int width, int height, char[] cells) {
+    if (cells.length != width * height) {
+      throw new IllegalArgumentException("array length does not match dimensions");
+    }
+    return new CharGrid(width, height, cells);
+  }
+
+  public static CharGrid parse(List<String> lines) {
+    int height = lines.size();
+    int width = height == 0 ? 0 : lines.get(0).length();
+    char[] cells = new char[width * height];
+    for (int r = 0; r < height; r++) {
+      String line = lines.get(r);
+      if (line.length() != width) {
+        throw new IllegalArgumentException("rows must be same size");
+      }
+      line.getChars(0, width, cells, r * width);
+    }
+    return new CharGrid(width, height, cells);
+  }
+
+  public static CharGrid fromMatrix(Matrix<Character> matrix) {
+    int width = matrix.width();
+    int height = matrix.height();
+    char[] cells = new char[width * height];
+    for (int r = 0; r < height; r++) {
+      List<Character> row = matrix.rows().get(r);
+      for (int c = 0; c < width; c++) {
+        cells[r * width + c] = row.get(c);
+      }
+    }
+    return new CharGrid(width, height, cells);
+  }
+
+  public Matrix<Character> toMatrix() {
+    List<List<Character>> rows = new ArrayList<>(height);
+    for (int r = 0; r < height; r++) {
+      List<Character> row = new ArrayList<>(width);
+      for (int c = 0; c < width; c++) {
+        row.add(cells[r * width + c]);
+      }
+      rows.add(row);
+    }
+    return new Matrix<>(rows);
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  /** The backing row-major array. Writes are visible in this grid. */
+  public char[] array() {
+    return cells;
+  }
+
+  public boolean contains(int row, int col) {
+    return row >= 0 && row < height && col >= 0 && col < width;
+  }
+
+  public boolean contains(Point point) {
+    return contains(point.getY(), point.getX());
+  }
+
+  public boolean contains(long packedPoint) {
+    return contains(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint));
+  }
+
+  public int index(int row, int col) {
+    return row * width + col;
+  }
+
+  public char get(int row, int col) {
+    checkBounds(row, col);
+    return cells[row * width + col];
+  }
+
+  public char get(Point point) {
+    return get(point.getY(), point.getX());
+  }
+
+  public char get(long packedPoint) {
+    return get(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint));
+  }
+
+  /** Returns the cell without checking row/col individually; caller guarantees bounds. */
+  public char getUnchecked(int row, int col) {
+    return cells[row * width + col];
+  }
+
+  public char getAt(int index) {
+    return cells[index];
+  }
+
+  /** Returns the cell if in bounds, otherwise {@code outside}. */
+  public char getOrDefault(int row, int col, char outside) {
+    return contains(row, col) ? cells[row * width + col] : outside;
+  }
+
+  public void set(int row, int col, char value) {
+    checkBounds(row, col);
+    cells[row * width + col] = value;
+  }
+
+  public void set(Point point, char value) {
+    set(point.getY(), point.getX(), value);
+  }
+
+  public void set(long packedPoint, char value) {
+    set(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint), value);
+  }
+
+  public void setUnchecked(int row, int col, char value) {
+    cells[row * width + col] = value;
+  }
+
+  public void setAt(int index, char value) {
+    cells[index] = value;
+  }
+
+  public void fill(char value) {
+    Arrays.fill(cells, value);
+  }
+
+  public int count(char value) {
+    int count = 0;
+    for (char c : cells) {
+      if (c == value) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** A live view of the given row; writes go through to the grid. */
+  public CharBuffer row(int row) {
+    if (row < 0 || row >= height) {
+      throw new IndexOutOfBoundsException("row " + row);
+    }
+    return CharBuffer.wrap(cells, row * width, width).slice();
+  }
+
+  /** Copies the given column into a new array. */
+  public char[] col(int col) {
+    return copyCol(col, new char[height]);
+  }
+
+  /** Copies the given column into dest and returns it. */
+  public char[] copyCol(int col, char[] dest) {
+    if (col < 0 || col >= width) {
+      throw new IndexOutOfBoundsException("col " + col);
+    }
+    for (int r = 0, i = col; r < height; r++, i += width) {
+      dest[r] = cells[i];
+    }
+    return dest;
+  }
+
+  public CharGrid copy() {
+    return new CharGrid(width, height, cells.clone());
+  }
+
+  /** Copies the contents of other (which must have the same dimensions) into this grid. */
+  public void copyFrom(CharGrid other) {
+    if (other.width != width || other.height != height) {
+      throw new IllegalArgumentException("mismatched dimensions");
+    }
+    System.arraycopy(other.cells, 0, cells, 0, cells.length);
+  }
+
+  public CharGrid transpose() {
+    char[] out = new char[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[c * height + r] = cells[r * width + c];
+      }
+    }
+    return new CharGrid(height, width, out);
+  }
+
+  public CharGrid rotateClockwise() {
+    char[] out = new char[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[c * height + (height - 1 - r)] = cells[r * width + c];
+      }
+    }
+    return new CharGrid(height, width, out);
+  }
+
+  public CharGrid rotateCounterClockwise() {
+    char[] out = new char[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[(width - 1 - c) * height + r] = cells[r * width + c];
+      }
+    }
+    return new CharGrid(height, width, out);
+  }
+
+  /** A 64-bit content hash, less collision-prone than {@link #hashCode()} for state caching. */
+  public long contentHash() {
+    long h = 1125899906842597L;
+    for (char c : cells) {
+      h = 31 * h + c;
+    }
+    return h ^ ((long) width << 32 | height);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * width + Arrays.hashCode(cells);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof CharGrid)) {
+      return false;
+    }
+    CharGrid o = (CharGrid) other;
+    return width == o.width && height == o.height && Arrays.equals(cells, o.cells);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(height * (width + 1));
+    for (int r = 0; r < height; r++) {
+      sb.append(cells, r * width, width).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private void checkBounds(int row, int col) {
+    if (!contains(row, col)) {
+      throw new IndexOutOfBoundsException(String.format("(%d, %d) outside %dx%d grid", row, col, height, width));
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package aoccommon;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Subsets, combinations and permutations without per-element allocation.
+ * Subsets of up to 62 items are represented as long bitmasks, where bit i set
+ * means item i is selected.
+ */
+public final class Combinatorics {
+
+  public static final int MAX_ITEMS = 62;
+
+  // BINOMIAL[n][k] = n choose k, saturating at Long.MAX_VALUE.
+  private static final long[][] BINOMIAL = new long[MAX_ITEMS + 2][];
+
+  static {
+    for (int n = 0; n < BINOMIAL.length; n++) {
+      BINOMIAL[n] = new long[n + 1];
+      BINOMIAL[n][0] = BINOMIAL[n][n] = 1;
+      for (int k = 1; k < n; k++) {
+        long sum = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+        BINOMIAL[n][k] = sum < 0 ? Long.MAX_VALUE : sum;
+      }
+    }
+  }
+
+  /** Receives a subset mask together with a value computed for it. */
+  @FunctionalInterface
+  public interface MaskConsumer {
+    void accept(long mask, long value);
+  }
+
+  private Combinatorics() {}
+
+  public static long binomial(int n, int k) {
+    checkItems(n);
+    return k < 0 || k > n ? 0 : BINOMIAL[n][k];
+  }
+
+  /** The smallest mask with k bits set. */
+  public static long firstCombination(int k) {
+    return k == 0 ? 0 : (1L << k) - 1;
+  }
+
+  /**
+   * The next larger mask with the same number of bits set (Gosper's hack).
+   * Callers stop once the result reaches {@code 1L << n}.
+   */
+  public static long nextCombination(long mask) {
+    if (mask == 0) {
+      return 1L << 63;
+    }
+    long lowest = mask & -mask;
+    long ripple = mask + lowest;
+    return (((ripple ^ mask) >>> 2) / lowest) | ripple;
+  }
+
+  /** The mask of the combination at the given rank, in increasing mask order. */
+  public static long unrankCombination(int n, int k, long rank) {
+    long mask = 0;
+    // Walk bits from the top: the combinations with bit b clear come first.
+    for (int bit = n - 1; bit >= 0 && k > 0; bit--) {
+      long withoutBit = binomial(bit, k);
+      if (rank >= withoutBit) {
+        mask |= 1L << bit;
+        rank -= withoutBit;
+        k--;
+      }
+    }
+    return mask;
+  }
+
+  /** All k-element subsets of n items, as masks in increasing order. */
+  public static LongStream combinations(int n, int k) {
+    checkItems(n);
+    if (k < 0 || k > n) {
+      return LongStream.empty();
+    }
+    return StreamSupport.longStream(new CombinationSpliterator(n, k, 0, BINOMIAL[n][k]), false);
+  }
+
+  /** All subsets of n items, as masks in increasing order. */
+  public static LongStream subsets(int n) {
+    checkItems(n);
+    return LongStream.range(0, 1L << n);
+  }
+
+  public static void forEachCombination(int n, int k, LongConsumer consumer) {
+    checkItems(n);
+    if (k < 0 || k > n) {
+      return;
+    }
+    long limit = 1L << n;
+    for (long mask = firstCombination(k); mask < limit; mask = nextCombination(mask)) {
+      consumer.accept(mask);
+      if (mask == 0) {
+        break;
+      }
+    }
+  }
+
+  /** The items selected by mask, in index order. */
+  public static <T> List<T> select(List<T> items, long mask) {
+    List<T> selected = new ArrayList<>(Long.bitCount(mask));
+    for (long m = mask; m != 0; m &= m - 1) {
+      selected.add(items.get(Long.numberOfTrailingZeros(m)));
+    }
+    return selected;
+  }
+
+  /** Copies the values selected by mask into dest and returns how many were written. */
+  public static int select(int[] values, long mask, int[] dest) {
+    int n = 0;
+    for (long m = mask; m != 0; m &= m - 1) {
+      dest[n++] = values[Long.numberOfTrailingZeros(m)];
+    }
+    return n;
+  }
+
+  /**
+   * Sum of the selected values for every subset, indexed by mask. Each entry
+   * costs one addition, reusing the sum of the mask without its lowest bit.
+   */
+  public static long[] subsetSums(long[] values) {
+    checkItems(values.length);
+    if (values.length > 30) {
+      throw new IllegalArgumentException("too many values for a sum table: " + values.length);
+    }
+    long[] sums = new long[1 << values.length];
+    for (int mask = 1; mask < sums.length; mask++) {
+      sums[mask] = sums[mask & (mask - 1)] + values[Integer.numberOfTrailingZeros(mask)];
+    }
+    return sums;
+  }
+
+  /**
+   * Visits every subset with its sum in Gray-code order, so consecutive
+   * subsets differ by one item and each step is a single add or subtract.
+   * Uses constant memory regardless of the number of values.
+   */
+  public static void forEachSubsetSum(long[] values, MaskConsumer consumer) {
+    checkItems(values.length);
+    long mask = 0;
+    long sum = 0;
+    consumer.accept(0, 0);
+    long count = 1L << values.length;
+    for (long i = 1; i < count; i++) {
+      int bit = Long.numberOfTrailingZeros(i);
+      mask ^= 1L << bit;
+      sum += (mask & (1L << bit)) != 0 ? values[bit] : -values[bit];
+      consumer.accept(mask, sum);
+    }
+  }
+
+  /**
+   * Visits every permutation of items using Heap's algorithm. The same array
+   * is permuted in place and passed to the consumer each time, so copy it if
+   * a permutation needs to be kept. The array is left in the last permutation
+   * visited.
+   */
+  public static void forEachPermutation(int[] items, Consumer<int[]> consumer) {
+    int n = items.length;
+    int[] counters = new int[n];
+    consumer.accept(items);
+    int i = 1;
+    while (i < n) {
+      if (counters[i] < i) {
+        int j = (i & 1) == 0 ? 0 : counters[i];
+        int t = items[j];
+        items[j] = items[i];
+        items[i] = t;
+        consumer.accept(items);
+        counters[i]++;
+        i = 1;
+      } else {
+        counters[i] = 0;
+        i++;
+      }
+    }
+  }
+
+  private static void checkItems(int n) {
+    if (n < 0 || n > MAX_ITEMS) {
+      throw new IllegalArgumentException("item count must be in [0, " + MAX_ITEMS + "]: " + n);
+    }
+  }
+
+  /** Combinations by rank range, split in half by unranking the midpoint. */
+  private static final class CombinationSpliterator implements Spliterator.OfLong {
+    private final int n;
+    private final int k;
+    private long rank;
+    private final long endRank;
+    private long mask;
+
+    CombinationSpliterator(int n, int k, long rank, long endRank) {
+      this.n = n;
+      this.k = k;
+      this.rank = rank;
+      this.endRank = endRank;
+      this.mask = unrankCombination(n, k, rank);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (rank >= endRank) {
+        return false;
+      }
+      action.accept(mask);
+      rank++;
+      if (rank < endRank) {
+        mask = nextCombination(mask);
+      }
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      long m = mask;
+      for (long r = rank; r < endRank; r++) {
+        action.accept(m);
+        if (r + 1 < endRank) {
+          m = nextCombination(m);
+        }
+      }
+      rank = endRank;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      long remaining = endRank - rank;
+      if (remaining < 2) {
+        return null;
+      }
+      long mid = rank + remaining / 2;
+      CombinationSpliterator prefix = new CombinationSpliterator(n, k, rank, mid);
+      rank = mid;
+      mask = unrankCombination(n, k, mid);
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return endRank - rank;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+      return null;
+    }
+  }
+}
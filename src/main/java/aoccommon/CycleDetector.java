@@ -0,0 +1,141 @@
+package aoccommon;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Finds where a deterministic simulation starts repeating, so that the state
+ * (or a measure of it, such as a height or a load) after a huge number of
+ * steps can be computed from the first prefixLength + period steps.
+ *
+ * <p>Two strategies are offered:
+ * <ul>
+ *   <li>{@link #brent} holds a constant number of states. The step function
+ *       must return a new state rather than mutate its argument, and states
+ *       are compared with {@code equals}.
+ *   <li>{@link #history} records a fingerprint of every state in a hash map
+ *       and confirms a repeat with {@code equals} on the fingerprint, so hash
+ *       collisions can never produce a false cycle. The step function may
+ *       mutate and return the same state, and the measure of every step is
+ *       kept so no replay is needed afterwards.
+ * </ul>
+ * Both loop forever if the sequence never repeats.
+ */
+public final class CycleDetector {
+
+  /**
+   * State n equals state n + period for every n >= prefixLength. cycleDelta
+   * is how much the measure grows per period (0 if no measure was given).
+   */
+  public record Cycle(long prefixLength, long period, long cycleDelta) {
+
+    /** The step in [0, prefixLength + period) whose state equals the state after n steps. */
+    public long equivalentStep(long n) {
+      return n < prefixLength ? n : prefixLength + (n - prefixLength) % period;
+    }
+
+    /** How many whole periods separate step n from {@link #equivalentStep(long)}. */
+    public long cyclesSkipped(long n) {
+      return n < prefixLength ? 0 : (n - prefixLength) / period;
+    }
+
+    /** The measure after n steps, given the measure at {@link #equivalentStep(long)}. */
+    public long extrapolate(long n, long measureAtEquivalentStep) {
+      return Math.addExact(measureAtEquivalentStep, Math.multiplyExact(cyclesSkipped(n), cycleDelta));
+    }
+  }
+
+  /** A cycle found by {@link #history}, with the measure of every step up to the end of the first period. */
+  public static final class History {
+    private final Cycle cycle;
+    private final long[] measures;
+
+    private History(Cycle cycle, long[] measures) {
+      this.cycle = cycle;
+      this.measures = measures;
+    }
+
+    public Cycle cycle() {
+      return cycle;
+    }
+
+    /** The measure after n steps, for any n >= 0. */
+    public long measureAt(long n) {
+      if (n < measures.length) {
+        return measures[(int) n];
+      }
+      return cycle.extrapolate(n, measures[(int) cycle.equivalentStep(n)]);
+    }
+  }
+
+  private CycleDetector() {}
+
+  public static <S> Cycle brent(S initial, UnaryOperator<S> step) {
+    return brent(initial, step, s -> 0);
+  }
+
+  /** Brent's algorithm: at most three states are held at any time. */
+  public static <S> Cycle brent(S initial, UnaryOperator<S> step, ToLongFunction<? super S> measure) {
+    // Find the period: the tortoise teleports to the hare at each power of two.
+    long power = 1;
+    long period = 1;
+    S tortoise = initial;
+    S hare = step.apply(initial);
+    while (!Objects.equals(tortoise, hare)) {
+      if (power == period) {
+        tortoise = hare;
+        power <<= 1;
+        period = 0;
+      }
+      hare = step.apply(hare);
+      period++;
+    }
+
+    // Find the prefix: start the hare one period ahead and walk both until they meet.
+    tortoise = initial;
+    hare = initial;
+    for (long i = 0; i < period; i++) {
+      hare = step.apply(hare);
+    }
+    long prefixLength = 0;
+    while (!Objects.equals(tortoise, hare)) {
+      tortoise = step.apply(tortoise);
+      hare = step.apply(hare);
+      prefixLength++;
+    }
+    return new Cycle(prefixLength, period, measure.applyAsLong(hare) - measure.applyAsLong(tortoise));
+  }
+
+  public static <S> History history(S initial, UnaryOperator<S> step, Function<? super S, ?> fingerprint) {
+    return history(initial, step, fingerprint, s -> 0);
+  }
+
+  /**
+   * Hashed history. fingerprint must capture everything that determines the
+   * future of the simulation and implement equals and hashCode; it is taken
+   * before each step, so it must not share mutable data with the state.
+   */
+  public static <S> History history(S initial, UnaryOperator<S> step, Function<? super S, ?> fingerprint,
+      ToLongFunction<? super S> measure) {
+    Map<Object, Long> seen = new HashMap<>();
+    long[] measures = new long[16];
+    S state = initial;
+    for (int n = 0; ; n++) {
+      if (n == measures.length) {
+        measures = Arrays.copyOf(measures, n * 2);
+      }
+      measures[n] = measure.applyAsLong(state);
+      Long previous = seen.putIfAbsent(fingerprint.apply(state), (long) n);
+      if (previous != null) {
+        Cycle cycle = new Cycle(previous, n - previous, measures[n] - measures[previous.intValue()]);
+        return new History(cycle, Arrays.copyOf(measures, n + 1));
+      }
+      state = step.apply(state);
+    }
+  }
+}
@@ -2,6 +2,11 @@ package aoccommon;
 
 import java.io.IOException;
 
+/**
+ * Console output for interactive debugging, switched on from code with
+ * {@link #enablePrint()}. Arguments are still evaluated (and boxed) when
+ * printing is off; for tracing hot loops use {@link Trace}.
+ */
 public final class Debug {
   private static boolean LOGGING_ENABLED = false;
   private static int COUNTER = 0;
@@ -26,7 +31,10 @@ public final class Debug {
   }
 
   public static void println(String fmt, Object... args) {
-    print("%s\n", String.format(fmt, args));
+    if (!LOGGING_ENABLED) {
+      return;
+    }
+    System.out.println(String.format(fmt, args));
   }
 
   public static void printlnAndWaitForInput(String fmt, Object... args) {
@@ -21,6 +21,19 @@ public enum Direction {
     return Point.of(point.getX() + xd, point.getY() + yd);
   }
 
+  /** Applies this direction to a point packed with {@link PackedPoint}. */
+  public long apply(long packedPoint) {
+    return PackedPoint.move(packedPoint, this);
+  }
+
+  public int xd() {
+    return xd;
+  }
+
+  public int yd() {
+    return yd;
+  }
+
   public Direction opposite() {
     return values()[(ordinal() + 2) % 4];
   }
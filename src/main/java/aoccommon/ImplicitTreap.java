@@ -0,0 +1,166 @@
+package aoccommon;
+
+import java.util.SplittableRandom;
+
+/**
+ * An ordering of the elements 0..n-1 supporting lookup by position, position
+ * of an element, and moving an element to a new position, each in expected
+ * O(log n). For puzzles that repeatedly shuffle items within a long list,
+ * where a linked list would walk O(n) nodes per move.
+ *
+ * <p>Implemented as an implicit treap (a randomized balanced tree keyed by
+ * position) stored in parallel int arrays indexed by element, with parent
+ * links so an element's position can be found from the element itself.
+ */
+public final class ImplicitTreap {
+
+  private static final int NONE = -1;
+
+  private final int[] left;
+  private final int[] right;
+  private final int[] parent;
+  private final int[] size;
+  private final int[] priority;
+  private int root = NONE;
+
+  // Results of split(), to avoid allocating a pair per call.
+  private int splitLeft;
+  private int splitRight;
+
+  /** The elements 0..n-1 in ascending order. */
+  public ImplicitTreap(int n) {
+    left = new int[n];
+    right = new int[n];
+    parent = new int[n];
+    size = new int[n];
+    priority = new int[n];
+    SplittableRandom random = new SplittableRandom(n);
+    for (int i = 0; i < n; i++) {
+      left[i] = right[i] = parent[i] = NONE;
+      size[i] = 1;
+      priority[i] = random.nextInt();
+      root = merge(root, i);
+    }
+  }
+
+  public int size() {
+    return size(root);
+  }
+
+  /** The element at position rank. */
+  public int get(int rank) {
+    checkRank(rank, size());
+    int node = root;
+    while (true) {
+      int leftSize = size(left[node]);
+      if (rank < leftSize) {
+        node = left[node];
+      } else if (rank == leftSize) {
+        return node;
+      } else {
+        rank -= leftSize + 1;
+        node = right[node];
+      }
+    }
+  }
+
+  /** The current position of element. */
+  public int rankOf(int element) {
+    int rank = size(left[element]);
+    for (int node = element; parent[node] != NONE; node = parent[node]) {
+      if (right[parent[node]] == node) {
+        rank += size(left[parent[node]]) + 1;
+      }
+    }
+    return rank;
+  }
+
+  /** Moves element to position rank in the order that results (so 0..size-1). */
+  public void move(int element, int rank) {
+    checkRank(rank, size());
+    int from = rankOf(element);
+    split(root, from);
+    int before = splitLeft;
+    split(splitRight, 1);
+    int rest = merge(before, splitRight);
+    split(rest, rank);
+    root = merge(merge(splitLeft, element), splitRight);
+  }
+
+  /** The elements in order. */
+  public int[] toArray() {
+    int[] out = new int[size()];
+    fill(root, out, 0);
+    return out;
+  }
+
+  private int fill(int node, int[] out, int index) {
+    if (node == NONE) {
+      return index;
+    }
+    index = fill(left[node], out, index);
+    out[index++] = node;
+    return fill(right[node], out, index);
+  }
+
+  /** Splits the tree at node into its first count elements (splitLeft) and the rest (splitRight). */
+  private void split(int node, int count) {
+    if (node == NONE) {
+      splitLeft = splitRight = NONE;
+      return;
+    }
+    if (size(left[node]) < count) {
+      split(right[node], count - size(left[node]) - 1);
+      right[node] = splitLeft;
+      update(node);
+      splitLeft = node;
+    } else {
+      split(left[node], count);
+      left[node] = splitRight;
+      update(node);
+      splitRight = node;
+    }
+    parent[node] = NONE;
+  }
+
+  /** Concatenates two trees, returning the new root. */
+  private int merge(int a, int b) {
+    if (a == NONE || b == NONE) {
+      int only = a == NONE ? b : a;
+      if (only != NONE) {
+        parent[only] = NONE;
+      }
+      return only;
+    }
+    if (priority[a] > priority[b]) {
+      right[a] = merge(right[a], b);
+      update(a);
+      parent[a] = NONE;
+      return a;
+    }
+    left[b] = merge(a, left[b]);
+    update(b);
+    parent[b] = NONE;
+    return b;
+  }
+
+  private void update(int node) {
+    size[node] = 1 + size(left[node]) + size(right[node]);
+    if (left[node] != NONE) {
+      parent[left[node]] = node;
+    }
+    if (right[node] != NONE) {
+      parent[right[node]] = node;
+    }
+  }
+
+  private int size(int node) {
+    return node == NONE ? 0 : size[node];
+  }
+
+  private static void checkRank(int rank, int size) {
+    if (rank < 0 || rank >= size) {
+      throw new IndexOutOfBoundsException(String.format("rank %d of size %d", rank, size));
+    }
+  }
+}
@@ -2,9 +2,16 @@ package aoccommon;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class InputHelper {
@@ -13,16 +20,61 @@ public final class InputHelper {
     return Files.newBufferedReader(Paths.get(filepath));
   }
 
+  /** Lines of the file; closing the stream closes the underlying reader. */
   public static Stream<String> lines(String filepath) throws IOException {
-    return newBufferedFileReader(filepath).lines();
+    return closing(newBufferedFileReader(filepath));
   }
 
   public static BufferedReader newBufferedResourceReader(String resourceName) throws IOException {
-    return new BufferedReader(
-        new InputStreamReader(InputHelper.class.getClassLoader().getResourceAsStream(resourceName)));
+    return new BufferedReader(new InputStreamReader(openResource(resourceName)));
   }
 
+  /** Lines of the resource; closing the stream closes the underlying reader. */
   public static Stream<String> linesFromResource(String resourceName) throws IOException {
-    return newBufferedResourceReader(resourceName).lines();
+    return closing(newBufferedResourceReader(resourceName));
+  }
+
+  /** All lines of the resource, read before returning so the reader is always closed. */
+  public static List<String> readLines(String resourceName) throws IOException {
+    try (BufferedReader reader = newBufferedResourceReader(resourceName)) {
+      return reader.lines().collect(Collectors.toList());
+    }
+  }
+
+  /** Memory-maps the file for byte-level parsing. Files must be under 2GB. */
+  public static ByteInput bytes(String filepath) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large to map: " + filepath);
+      }
+      ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      return new ByteInput(mapped);
+    }
+  }
+
+  /** Reads the whole resource into a single buffer for byte-level parsing. */
+  public static ByteInput bytesFromResource(String resourceName) throws IOException {
+    try (InputStream in = openResource(resourceName)) {
+      return ByteInput.wrap(in.readAllBytes());
+    }
+  }
+
+  private static InputStream openResource(String resourceName) throws IOException {
+    InputStream in = InputHelper.class.getClassLoader().getResourceAsStream(resourceName);
+    if (in == null) {
+      throw new IOException("Resource not found: " + resourceName);
+    }
+    return in;
+  }
+
+  private static Stream<String> closing(BufferedReader reader) {
+    return reader.lines().onClose(() -> {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
   }
 }
@@ -67,20 +67,20 @@ public class IntArray {
   }
 
   public static class Builder {
-    private final IntStream.Builder streamBuilder = IntStream.builder();
+    private final IntList list = new IntList();
 
     public Builder add(int t) {
-      streamBuilder.add(t);
+      list.add(t);
       return this;
     }
 
     public Builder addAll(Builder other) {
-      other.streamBuilder.build().forEach(streamBuilder::add);
+      list.addAll(other.list);
       return this;
     }
 
     public IntArray build() {
-      return new IntArray(streamBuilder.build().toArray());
+      return list.toIntArray();
     }
   }
 
@@ -0,0 +1,289 @@
+package aoccommon;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed-size grid of ints backed by a single row-major array. A cheaper
+ * alternative to {@code Matrix<Integer>} for hot paths: no boxing, and
+ * {@link #copy()} is a single array copy.
+ */
+public final class IntGrid {
+
+  private final int width;
+  private final int height;
+  private final int[] cells;
+
+  private IntGrid(int width, int height, int[] cells) {
+    this.width = width;
+    this.height = height;
+    this.cells = cells;
+  }
+
+  public static IntGrid create(int width, int height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("dimensions must be non-negative");
+    }
+    return new IntGrid(width, height, new int[width * height]);
+  }
+
+  public static IntGrid create(int width, int height, int fill) {
+    IntGrid grid = create(width, height);
+    Arrays.fill(grid.cells, fill);
+    return grid;
+  }
+
+  /** Wraps (without copying) a row-major array. */
+  public static IntGrid wrap(int width, int height, int[] cells) {
+    if (cells.length != width * height) {
+      throw new IllegalArgumentException("array length does not match dimensions");
+    }
+    return new IntGrid(width, height, cells);
+  }
+
+  /** Parses a grid of single decimal digits. */
+  public static IntGrid parseDigits(List<String> lines) {
+    int height = lines.size();
+    int width = height == 0 ? 0 : lines.get(0).length();
+    int[] cells = new int[width * height];
+    for (int r = 0; r < height; r++) {
+      String line = lines.get(r);
+      if (line.length() != width) {
+        throw new IllegalArgumentException("rows must be same size");
+      }
+      for (int c = 0; c < width; c++) {
+        cells[r * width + c] = line.charAt(c) - '0';
+      }
+    }
+    return new IntGrid(width, height, cells);
+  }
+
+  public static IntGrid fromMatrix(Matrix<Integer> matrix) {
+    int width = matrix.width();
+    int height = matrix.height();
+    int[] cells = new int[width * height];
+    for (int r = 0; r < height; r++) {
+      List<Integer> row = matrix.rows().get(r);
+      for (int c = 0; c < width; c++) {
+        cells[r * width + c] = row.get(c);
+      }
+    }
+    return new IntGrid(width, height, cells);
+  }
+
+  public Matrix<Integer> toMatrix() {
+    List<List<Integer>> rows = new ArrayList<>(height);
+    for (int r = 0; r < height; r++) {
+      List<Integer> row = new ArrayList<>(width);
+      for (int c = 0; c < width; c++) {
+        row.add(cells[r * width + c]);
+      }
+      rows.add(row);
+    }
+    return new Matrix<>(rows);
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  /** The backing row-major array. Writes are visible in this grid. */
+  public int[] array() {
+    return cells;
+  }
+
+  public boolean contains(int row, int col) {
+    return row >= 0 && row < height && col >= 0 && col < width;
+  }
+
+  public boolean contains(Point point) {
+    return contains(point.getY(), point.getX());
+  }
+
+  public boolean contains(long packedPoint) {
+    return contains(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint));
+  }
+
+  public int index(int row, int col) {
+    return row * width + col;
+  }
+
+  public int get(int row, int col) {
+    checkBounds(row, col);
+    return cells[row * width + col];
+  }
+
+  public int get(Point point) {
+    return get(point.getY(), point.getX());
+  }
+
+  public int get(long packedPoint) {
+    return get(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint));
+  }
+
+  /** Returns the cell without checking row/col individually; caller guarantees bounds. */
+  public int getUnchecked(int row, int col) {
+    return cells[row * width + col];
+  }
+
+  public int getAt(int index) {
+    return cells[index];
+  }
+
+  /** Returns the cell if in bounds, otherwise {@code outside}. */
+  public int getOrDefault(int row, int col, int outside) {
+    return contains(row, col) ? cells[row * width + col] : outside;
+  }
+
+  public void set(int row, int col, int value) {
+    checkBounds(row, col);
+    cells[row * width + col] = value;
+  }
+
+  public void set(Point point, int value) {
+    set(point.getY(), point.getX(), value);
+  }
+
+  public void set(long packedPoint, int value) {
+    set(PackedPoint.y(packedPoint), PackedPoint.x(packedPoint), value);
+  }
+
+  public void setUnchecked(int row, int col, int value) {
+    cells[row * width + col] = value;
+  }
+
+  public void setAt(int index, int value) {
+    cells[index] = value;
+  }
+
+  public void fill(int value) {
+    Arrays.fill(cells, value);
+  }
+
+  public long sum() {
+    long sum = 0;
+    for (int v : cells) {
+      sum += v;
+    }
+    return sum;
+  }
+
+  /** A live view of the given row; writes go through to the grid. */
+  public IntBuffer row(int row) {
+    if (row < 0 || row >= height) {
+      throw new IndexOutOfBoundsException("row " + row);
+    }
+    return IntBuffer.wrap(cells, row * width, width).slice();
+  }
+
+  /** Copies the given column into a new array. */
+  public int[] col(int col) {
+    return copyCol(col, new int[height]);
+  }
+
+  /** Copies the given column into dest and returns it. */
+  public int[] copyCol(int col, int[] dest) {
+    if (col < 0 || col >= width) {
+      throw new IndexOutOfBoundsException("col " + col);
+    }
+    for (int r = 0, i = col; r < height; r++, i += width) {
+      dest[r] = cells[i];
+    }
+    return dest;
+  }
+
+  public IntGrid copy() {
+    return new IntGrid(width, height, cells.clone());
+  }
+
+  /** Copies the contents of other (which must have the same dimensions) into this grid. */
+  public void copyFrom(IntGrid other) {
+    if (other.width != width || other.height != height) {
+      throw new IllegalArgumentException("mismatched dimensions");
+    }
+    System.arraycopy(other.cells, 0, cells, 0, cells.length);
+  }
+
+  public IntGrid transpose() {
+    int[] out = new int[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[c * height + r] = cells[r * width + c];
+      }
+    }
+    return new IntGrid(height, width, out);
+  }
+
+  public IntGrid rotateClockwise() {
+    int[] out = new int[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[c * height + (height - 1 - r)] = cells[r * width + c];
+      }
+    }
+    return new IntGrid(height, width, out);
+  }
+
+  public IntGrid rotateCounterClockwise() {
+    int[] out = new int[cells.length];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        out[(width - 1 - c) * height + r] = cells[r * width + c];
+      }
+    }
+    return new IntGrid(height, width, out);
+  }
+
+  /** A 64-bit content hash, less collision-prone than {@link #hashCode()} for state caching. */
+  public long contentHash() {
+    long h = 1125899906842597L;
+    for (int v : cells) {
+      h = 31 * h + v;
+    }
+    return h ^ ((long) width << 32 | height);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * width + Arrays.hashCode(cells);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof IntGrid)) {
+      return false;
+    }
+    IntGrid o = (IntGrid) other;
+    return width == o.width && height == o.height && Arrays.equals(cells, o.cells);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        if (c > 0) {
+          sb.append(' ');
+        }
+        sb.append(cells[r * width + c]);
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  private void checkBounds(int row, int col) {
+    if (!contains(row, col)) {
+      throw new IndexOutOfBoundsException(String.format("(%d, %d) outside %dx%d grid", row, col, height, width));
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package aoccommon;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A growable list of primitive ints backed by a single int[], for parsers and
+ * solvers that accumulate numbers without boxing or going through streams.
+ * Appends are amortised O(1).
+ *
+ * <p>{@link #slice} returns a view sharing this list's array: {@link #set} on
+ * either is visible to both. Appending to a slice first copies it, so it never
+ * overwrites elements of the list it came from.
+ */
+public final class IntList {
+
+  private static final int[] EMPTY = {};
+
+  private int[] elements;
+  private int offset;
+  private int size;
+  // Elements may be stored in [offset, limit) of the array; a slice's limit is its own end.
+  private int limit;
+
+  public IntList() {
+    this(0);
+  }
+
+  public IntList(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must be non-negative: " + expectedSize);
+    }
+    this.elements = expectedSize == 0 ? EMPTY : new int[expectedSize];
+    this.limit = expectedSize;
+  }
+
+  private IntList(int[] elements, int offset, int size) {
+    this.elements = elements;
+    this.offset = offset;
+    this.size = size;
+    this.limit = offset + size;
+  }
+
+  public static IntList of(int... values) {
+    return new IntList(values.clone(), 0, values.length);
+  }
+
+  /** A list using array as its storage, without copying. */
+  public static IntList wrap(int[] array) {
+    return new IntList(array, 0, array.length);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int get(int index) {
+    checkIndex(index);
+    return elements[offset + index];
+  }
+
+  public void set(int index, int value) {
+    checkIndex(index);
+    elements[offset + index] = value;
+  }
+
+  public int last() {
+    if (size == 0) {
+      throw new IllegalStateException("empty list");
+    }
+    return elements[offset + size - 1];
+  }
+
+  public IntList add(int value) {
+    if (offset + size == limit) {
+      ensureCapacity(size + 1);
+    }
+    elements[offset + size++] = value;
+    return this;
+  }
+
+  public IntList addAll(int... values) {
+    return addAll(values, 0, values.length);
+  }
+
+  public IntList addAll(IntList other) {
+    return addAll(other.elements, other.offset, other.size);
+  }
+
+  public IntList addAll(int[] values, int from, int length) {
+    ensureCapacity(size + length);
+    System.arraycopy(values, from, elements, offset + size, length);
+    size += length;
+    return this;
+  }
+
+  /** Removes and returns the last element. */
+  public int removeLast() {
+    int value = last();
+    size--;
+    return value;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public void ensureCapacity(int capacity) {
+    if (offset + capacity <= limit) {
+      return;
+    }
+    // Grow by half again, so n appends copy O(n) elements in total.
+    int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, 10 + (long) size * 3 / 2));
+    if (newCapacity < capacity) {
+      throw new OutOfMemoryError("IntList capacity overflow: " + capacity);
+    }
+    elements = Arrays.copyOfRange(elements, offset, offset + newCapacity);
+    offset = 0;
+    limit = newCapacity;
+  }
+
+  /** Sorts the list in ascending order. */
+  public IntList sort() {
+    Arrays.sort(elements, offset, offset + size);
+    return this;
+  }
+
+  /**
+   * As {@link Arrays#binarySearch(int[], int)}: the index of key in this sorted
+   * list, or -(insertion point) - 1.
+   */
+  public int binarySearch(int key) {
+    int index = Arrays.binarySearch(elements, offset, offset + size, key);
+    return index >= 0 ? index - offset : index + offset;
+  }
+
+  /** A view of elements [from, to). */
+  public IntList slice(int from, int to) {
+    if (from < 0 || to > size || from > to) {
+      throw new IndexOutOfBoundsException(String.format("slice [%d, %d) of size %d", from, to, size));
+    }
+    return new IntList(elements, offset + from, to - from);
+  }
+
+  public void forEach(IntConsumer consumer) {
+    for (int i = offset; i < offset + size; i++) {
+      consumer.accept(elements[i]);
+    }
+  }
+
+  /** A copy of the elements. */
+  public int[] toArray() {
+    return Arrays.copyOfRange(elements, offset, offset + size);
+  }
+
+  /**
+   * The elements as an {@link IntArray}. When the backing array holds exactly
+   * the elements it is wrapped without copying, so later {@link #set} calls
+   * show through; appends never do.
+   */
+  public IntArray toIntArray() {
+    return IntArray.wrap(offset == 0 && size == elements.length ? elements : toArray());
+  }
+
+  public IntStream stream() {
+    return Arrays.stream(elements, offset, offset + size);
+  }
+
+  public IntList copy() {
+    return new IntList(toArray(), 0, size);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = 1;
+    for (int i = offset; i < offset + size; i++) {
+      h = 31 * h + elements[i];
+    }
+    return h;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof IntList)) {
+      return false;
+    }
+    IntList o = (IntList) other;
+    return Arrays.equals(elements, offset, offset + size, o.elements, o.offset, o.offset + o.size);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(String.format("index %d of size %d", index, size));
+    }
+  }
+}
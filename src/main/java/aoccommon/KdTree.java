@@ -0,0 +1,332 @@
+package aoccommon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * A k-d tree over {@link Point}s of a fixed number of dimensions, answering
+ * box, Manhattan-radius and nearest-neighbour queries without scanning every
+ * point. Duplicates are kept.
+ *
+ * <p>The tree is built in bulk with median splits. Points added afterwards go
+ * to a small unsorted buffer that queries scan linearly, and the tree is
+ * rebuilt once the buffer outgrows a fraction of it, so interleaved adds and
+ * queries stay cheap.
+ */
+public final class KdTree {
+
+  private static final int MIN_PENDING = 32;
+
+  private final int dimensions;
+  // The tree occupies [0, built): node [lo, hi) is stored at its median (lo + hi) / 2, split on depth % dimensions.
+  private Point[] points = new Point[0];
+  private int[] coords = new int[0];
+  private int built;
+  private final List<Point> pending = new ArrayList<>();
+
+  public KdTree(int dimensions) {
+    if (dimensions <= 0) {
+      throw new IllegalArgumentException("dimensions must be positive: " + dimensions);
+    }
+    this.dimensions = dimensions;
+  }
+
+  /** A tree holding points, which must be non-empty so the dimension count is known. */
+  public static KdTree of(Collection<Point> points) {
+    if (points.isEmpty()) {
+      throw new IllegalArgumentException("no points");
+    }
+    KdTree tree = new KdTree(points.iterator().next().dimensions());
+    tree.addAll(points);
+    return tree;
+  }
+
+  public int dimensions() {
+    return dimensions;
+  }
+
+  public int size() {
+    return built + pending.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public void add(Point point) {
+    checkDimensions(point);
+    pending.add(point);
+    if (pending.size() > Math.max(MIN_PENDING, built / 4)) {
+      rebuild();
+    }
+  }
+
+  public void addAll(Collection<Point> newPoints) {
+    for (Point point : newPoints) {
+      checkDimensions(point);
+    }
+    pending.addAll(newPoints);
+    if (pending.size() > MIN_PENDING) {
+      rebuild();
+    }
+  }
+
+  public boolean contains(Point point) {
+    checkDimensions(point);
+    int[] target = point.coordinates().get();
+    return pending.contains(point) || find(0, built, 0, target);
+  }
+
+  /** Visits every point p with min <= p <= max on every axis. */
+  public void forEachInBox(Point min, Point max, Consumer<Point> consumer) {
+    checkDimensions(min);
+    checkDimensions(max);
+    int[] lower = min.coordinates().get();
+    int[] upper = max.coordinates().get();
+    for (Point point : pending) {
+      if (inBox(point.coordinates().get(), 0, lower, upper)) {
+        consumer.accept(point);
+      }
+    }
+    inBox(0, built, 0, lower, upper, consumer);
+  }
+
+  public List<Point> inBox(Point min, Point max) {
+    List<Point> found = new ArrayList<>();
+    forEachInBox(min, max, found::add);
+    return found;
+  }
+
+  public int countInBox(Point min, Point max) {
+    int[] count = {0};
+    forEachInBox(min, max, p -> count[0]++);
+    return count[0];
+  }
+
+  /** Visits every point within Manhattan distance radius of center, inclusive. */
+  public void forEachWithinManhattan(Point center, long radius, Consumer<Point> consumer) {
+    checkDimensions(center);
+    int[] target = center.coordinates().get();
+    for (Point point : pending) {
+      if (manhattan(point.coordinates().get(), 0, target) <= radius) {
+        consumer.accept(point);
+      }
+    }
+    withinManhattan(0, built, 0, target, new long[dimensions], 0, radius, consumer);
+  }
+
+  public List<Point> withinManhattan(Point center, long radius) {
+    List<Point> found = new ArrayList<>();
+    forEachWithinManhattan(center, radius, found::add);
+    return found;
+  }
+
+  /** A point at the smallest Manhattan distance from target, or empty if the tree is. */
+  public Optional<Point> nearest(Point target) {
+    checkDimensions(target);
+    int[] query = target.coordinates().get();
+    Nearest nearest = new Nearest(query);
+    for (Point point : pending) {
+      long distance = manhattan(point.coordinates().get(), 0, query);
+      if (distance < nearest.distance) {
+        nearest.distance = distance;
+        nearest.point = point;
+      }
+    }
+    nearest.search(0, built, 0, 0);
+    return Optional.ofNullable(nearest.point);
+  }
+
+  private void rebuild() {
+    int n = size();
+    Point[] all = new Point[n];
+    System.arraycopy(points, 0, all, 0, built);
+    for (int i = built; i < n; i++) {
+      all[i] = pending.get(i - built);
+    }
+    int[] flat = new int[n * dimensions];
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(all[i].coordinates().get(), 0, flat, i * dimensions, dimensions);
+    }
+    points = all;
+    coords = flat;
+    built = n;
+    pending.clear();
+    build(0, n, 0);
+  }
+
+  private void build(int lo, int hi, int depth) {
+    if (hi - lo <= 1) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    select(lo, hi - 1, mid, depth % dimensions);
+    build(lo, mid, depth + 1);
+    build(mid + 1, hi, depth + 1);
+  }
+
+  /** Quickselect: afterwards node k holds the k-th smallest on axis, with nothing larger before it or smaller after. */
+  private void select(int left, int right, int k, int axis) {
+    while (left < right) {
+      int pivot = coord((left + right) >>> 1, axis);
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (coord(i, axis) < pivot) {
+          i++;
+        }
+        while (coord(j, axis) > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(i++, j--);
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private boolean find(int lo, int hi, int depth, int[] target) {
+    if (lo >= hi) {
+      return false;
+    }
+    int mid = (lo + hi) >>> 1;
+    int axis = depth % dimensions;
+    int split = coord(mid, axis);
+    if (target[axis] == split && manhattan(coords, mid * dimensions, target) == 0) {
+      return true;
+    }
+    return (target[axis] <= split && find(lo, mid, depth + 1, target))
+        || (target[axis] >= split && find(mid + 1, hi, depth + 1, target));
+  }
+
+  private void inBox(int lo, int hi, int depth, int[] lower, int[] upper, Consumer<Point> consumer) {
+    if (lo >= hi) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    int axis = depth % dimensions;
+    int split = coord(mid, axis);
+    if (inBox(coords, mid * dimensions, lower, upper)) {
+      consumer.accept(points[mid]);
+    }
+    if (lower[axis] <= split) {
+      inBox(lo, mid, depth + 1, lower, upper, consumer);
+    }
+    if (upper[axis] >= split) {
+      inBox(mid + 1, hi, depth + 1, lower, upper, consumer);
+    }
+  }
+
+  /**
+   * offsets[a] is the distance along axis a from target to the current
+   * subtree's region; bound is their sum, a lower bound on the distance from
+   * target to any point in the subtree.
+   */
+  private void withinManhattan(int lo, int hi, int depth, int[] target, long[] offsets, long bound, long radius,
+      Consumer<Point> consumer) {
+    if (lo >= hi) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    int axis = depth % dimensions;
+    long diff = (long) target[axis] - coord(mid, axis);
+    if (manhattan(coords, mid * dimensions, target) <= radius) {
+      consumer.accept(points[mid]);
+    }
+    int nearLo = diff <= 0 ? lo : mid + 1;
+    int nearHi = diff <= 0 ? mid : hi;
+    withinManhattan(nearLo, nearHi, depth + 1, target, offsets, bound, radius, consumer);
+    long saved = offsets[axis];
+    long farBound = bound - saved + Math.abs(diff);
+    if (farBound <= radius) {
+      offsets[axis] = Math.abs(diff);
+      withinManhattan(diff <= 0 ? mid + 1 : lo, diff <= 0 ? hi : mid, depth + 1, target, offsets, farBound, radius,
+          consumer);
+      offsets[axis] = saved;
+    }
+  }
+
+  private final class Nearest {
+    private final int[] target;
+    private final long[] offsets = new long[dimensions];
+    private long distance = Long.MAX_VALUE;
+    private Point point;
+
+    Nearest(int[] target) {
+      this.target = target;
+    }
+
+    /** As {@link KdTree#withinManhattan}, with the radius shrinking to the best distance found. */
+    void search(int lo, int hi, int depth, long bound) {
+      if (lo >= hi) {
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      int axis = depth % dimensions;
+      long diff = (long) target[axis] - coord(mid, axis);
+      long d = manhattan(coords, mid * dimensions, target);
+      if (d < distance) {
+        distance = d;
+        point = points[mid];
+      }
+      search(diff <= 0 ? lo : mid + 1, diff <= 0 ? mid : hi, depth + 1, bound);
+      long saved = offsets[axis];
+      long farBound = bound - saved + Math.abs(diff);
+      if (farBound < distance) {
+        offsets[axis] = Math.abs(diff);
+        search(diff <= 0 ? mid + 1 : lo, diff <= 0 ? hi : mid, depth + 1, farBound);
+        offsets[axis] = saved;
+      }
+    }
+  }
+
+  private int coord(int node, int axis) {
+    return coords[node * dimensions + axis];
+  }
+
+  private long manhattan(int[] values, int offset, int[] target) {
+    long distance = 0;
+    for (int a = 0; a < dimensions; a++) {
+      distance += Math.abs((long) values[offset + a] - target[a]);
+    }
+    return distance;
+  }
+
+  private boolean inBox(int[] values, int offset, int[] lower, int[] upper) {
+    for (int a = 0; a < dimensions; a++) {
+      int v = values[offset + a];
+      if (v < lower[a] || v > upper[a]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void swap(int i, int j) {
+    Point p = points[i];
+    points[i] = points[j];
+    points[j] = p;
+    for (int a = 0; a < dimensions; a++) {
+      int t = coords[i * dimensions + a];
+      coords[i * dimensions + a] = coords[j * dimensions + a];
+      coords[j * dimensions + a] = t;
+    }
+  }
+
+  private void checkDimensions(Point point) {
+    if (point.dimensions() != dimensions) {
+      throw new IllegalArgumentException(
+          String.format("expected %d dimensions, got %d: %s", dimensions, point.dimensions(), point));
+    }
+  }
+}
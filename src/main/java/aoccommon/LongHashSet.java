@@ -0,0 +1,240 @@
+package aoccommon;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * An open-addressing hash set of primitive longs, intended for keys packed
+ * with {@link PackedPoint} or {@link PackedPoint3D}. Uses linear probing and
+ * backward-shift deletion, so removals leave no tombstones behind.
+ */
+public final class LongHashSet {
+
+  private final float loadFactor;
+
+  // A slot holding 0 is free; the key 0 itself is tracked by containsZero.
+  private long[] keys;
+  private boolean containsZero;
+  private int mask;
+  private int maxFill;
+  private int size;
+
+  public LongHashSet() {
+    this(LongHashing.DEFAULT_EXPECTED_SIZE, LongHashing.DEFAULT_LOAD_FACTOR);
+  }
+
+  public LongHashSet(int expectedSize) {
+    this(expectedSize, LongHashing.DEFAULT_LOAD_FACTOR);
+  }
+
+  public LongHashSet(int expectedSize, float loadFactor) {
+    LongHashing.checkLoadFactor(loadFactor);
+    this.loadFactor = loadFactor;
+    allocate(LongHashing.capacityFor(expectedSize, loadFactor));
+  }
+
+  public static LongHashSet of(long... values) {
+    LongHashSet set = new LongHashSet(values.length);
+    for (long value : values) {
+      set.add(value);
+    }
+    return set;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(long key) {
+    if (key == 0) {
+      return containsZero;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        return true;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return false;
+  }
+
+  /** Adds the key, returning true if it was not already present. */
+  public boolean add(long key) {
+    if (key == 0) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        return false;
+      }
+      pos = (pos + 1) & mask;
+    }
+    keys[pos] = key;
+    if (++size > maxFill) {
+      rehash(LongHashing.grow(keys.length));
+    }
+    return true;
+  }
+
+  public void addAll(LongHashSet other) {
+    other.forEach(this::add);
+  }
+
+  /** Removes the key, returning true if it was present. */
+  public boolean remove(long key) {
+    if (key == 0) {
+      if (!containsZero) {
+        return false;
+      }
+      containsZero = false;
+      size--;
+      return true;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        size--;
+        shiftKeys(pos);
+        return true;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return false;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  public void forEach(LongConsumer consumer) {
+    if (containsZero) {
+      consumer.accept(0);
+    }
+    for (long key : keys) {
+      if (key != 0) {
+        consumer.accept(key);
+      }
+    }
+  }
+
+  public long[] toArray() {
+    long[] out = new long[size];
+    int i = 0;
+    if (containsZero) {
+      out[i++] = 0;
+    }
+    for (long key : keys) {
+      if (key != 0) {
+        out[i++] = key;
+      }
+    }
+    return out;
+  }
+
+  public LongStream stream() {
+    return Arrays.stream(toArray());
+  }
+
+  public LongHashSet copy() {
+    LongHashSet copy = new LongHashSet(0, loadFactor);
+    copy.keys = keys.clone();
+    copy.containsZero = containsZero;
+    copy.mask = mask;
+    copy.maxFill = maxFill;
+    copy.size = size;
+    return copy;
+  }
+
+  @Override
+  public int hashCode() {
+    // Order-independent so that equal sets hash equally regardless of layout.
+    int h = 0;
+    for (long key : keys) {
+      h += Long.hashCode(key);
+    }
+    return h;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof LongHashSet)) {
+      return false;
+    }
+    LongHashSet o = (LongHashSet) other;
+    if (size != o.size || containsZero != o.containsZero) {
+      return false;
+    }
+    for (long key : keys) {
+      if (key != 0 && !o.contains(key)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    mask = capacity - 1;
+    maxFill = LongHashing.maxFill(capacity, loadFactor);
+  }
+
+  private void rehash(int capacity) {
+    long[] old = keys;
+    allocate(capacity);
+    for (long key : old) {
+      if (key != 0) {
+        int pos = LongHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+      }
+    }
+  }
+
+  /** Backward-shift deletion: pulls later entries of the probe run into the freed slot. */
+  private void shiftKeys(int pos) {
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      long current;
+      while (true) {
+        if ((current = keys[pos]) == 0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = LongHashing.mix(current) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = current;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package aoccommon;
+
+/** Shared sizing and hashing logic for the open-addressing long-keyed collections. */
+final class LongHashing {
+
+  static final float DEFAULT_LOAD_FACTOR = 0.75f;
+  static final int DEFAULT_EXPECTED_SIZE = 16;
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private LongHashing() {}
+
+  /** Spreads the bits of a key so that packed coordinates don't cluster. */
+  static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    return (int) (h ^ (h >>> 16));
+  }
+
+  static void checkLoadFactor(float loadFactor) {
+    if (!(loadFactor > 0 && loadFactor < 1)) {
+      throw new IllegalArgumentException("load factor must be in (0, 1): " + loadFactor);
+    }
+  }
+
+  /** Smallest power-of-two table size that holds expected entries at the given load factor. */
+  static int capacityFor(int expected, float loadFactor) {
+    if (expected < 0) {
+      throw new IllegalArgumentException("expected size must be non-negative");
+    }
+    long needed = Math.max(2, (long) Math.ceil(expected / (double) loadFactor));
+    if (needed > MAX_CAPACITY) {
+      throw new IllegalArgumentException("too many entries: " + expected);
+    }
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+
+  static int maxFill(int capacity, float loadFactor) {
+    return Math.min(capacity - 1, (int) Math.ceil(capacity * (double) loadFactor));
+  }
+
+  static int grow(int capacity) {
+    if (capacity >= MAX_CAPACITY) {
+      throw new IllegalStateException("table is full");
+    }
+    return capacity << 1;
+  }
+}
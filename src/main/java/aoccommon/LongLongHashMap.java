@@ -0,0 +1,298 @@
+package aoccommon;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * An open-addressing hash map from primitive longs to primitive long values,
+ * intended for keys packed with {@link PackedPoint} or {@link PackedPoint3D}.
+ * Uses linear probing and backward-shift deletion, so removals leave no
+ * tombstones behind.
+ */
+public final class LongLongHashMap {
+
+  /** Receives each entry during {@link LongLongHashMap#forEach}. */
+  @FunctionalInterface
+  public interface EntryConsumer {
+    void accept(long key, long value);
+  }
+
+  private final float loadFactor;
+
+  // A slot whose key is 0 is free; the key 0 itself is tracked by containsZero.
+  private long[] keys;
+  private long[] values;
+  private boolean containsZero;
+  private long zeroValue;
+  private int mask;
+  private int maxFill;
+  private int size;
+
+  public LongLongHashMap() {
+    this(LongHashing.DEFAULT_EXPECTED_SIZE, LongHashing.DEFAULT_LOAD_FACTOR);
+  }
+
+  public LongLongHashMap(int expectedSize) {
+    this(expectedSize, LongHashing.DEFAULT_LOAD_FACTOR);
+  }
+
+  public LongLongHashMap(int expectedSize, float loadFactor) {
+    LongHashing.checkLoadFactor(loadFactor);
+    this.loadFactor = loadFactor;
+    allocate(LongHashing.capacityFor(expectedSize, loadFactor));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(long key) {
+    return key == 0 ? containsZero : find(key) >= 0;
+  }
+
+  /** Returns the value for key, or 0 if absent. */
+  public long get(long key) {
+    return getOrDefault(key, 0);
+  }
+
+  public long getOrDefault(long key, long defaultValue) {
+    if (key == 0) {
+      return containsZero ? zeroValue : defaultValue;
+    }
+    int pos = find(key);
+    return pos < 0 ? defaultValue : values[pos];
+  }
+
+  /** Associates value with key, returning true if the key was not already present. */
+  public boolean put(long key, long value) {
+    if (key == 0) {
+      zeroValue = value;
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        values[pos] = value;
+        return false;
+      }
+      pos = (pos + 1) & mask;
+    }
+    insertAt(pos, key, value);
+    return true;
+  }
+
+  /** Adds delta to the value for key (treating an absent key as 0) and returns the new value. */
+  public long addTo(long key, long delta) {
+    if (key == 0) {
+      if (!containsZero) {
+        containsZero = true;
+        zeroValue = 0;
+        size++;
+      }
+      return zeroValue += delta;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        return values[pos] += delta;
+      }
+      pos = (pos + 1) & mask;
+    }
+    insertAt(pos, key, delta);
+    return delta;
+  }
+
+  /**
+   * Stores value if key is absent or currently maps to something larger.
+   * Returns true if the map changed. Handy for best-distance tables.
+   */
+  public boolean putIfLess(long key, long value) {
+    if (key == 0) {
+      if (containsZero && zeroValue <= value) {
+        return false;
+      }
+      if (!containsZero) {
+        containsZero = true;
+        size++;
+      }
+      zeroValue = value;
+      return true;
+    }
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        if (values[pos] <= value) {
+          return false;
+        }
+        values[pos] = value;
+        return true;
+      }
+      pos = (pos + 1) & mask;
+    }
+    insertAt(pos, key, value);
+    return true;
+  }
+
+  /** Removes key, returning true if it was present. */
+  public boolean remove(long key) {
+    if (key == 0) {
+      if (!containsZero) {
+        return false;
+      }
+      containsZero = false;
+      size--;
+      return true;
+    }
+    int pos = find(key);
+    if (pos < 0) {
+      return false;
+    }
+    size--;
+    shiftKeys(pos);
+    return true;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  public void forEach(EntryConsumer consumer) {
+    if (containsZero) {
+      consumer.accept(0, zeroValue);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  public void forEachKey(LongConsumer consumer) {
+    if (containsZero) {
+      consumer.accept(0);
+    }
+    for (long key : keys) {
+      if (key != 0) {
+        consumer.accept(key);
+      }
+    }
+  }
+
+  public long[] keys() {
+    long[] out = new long[size];
+    int n = 0;
+    if (containsZero) {
+      out[n++] = 0;
+    }
+    for (long key : keys) {
+      if (key != 0) {
+        out[n++] = key;
+      }
+    }
+    return out;
+  }
+
+  public LongLongHashMap copy() {
+    LongLongHashMap copy = new LongLongHashMap(0, loadFactor);
+    copy.keys = keys.clone();
+    copy.values = values.clone();
+    copy.containsZero = containsZero;
+    copy.zeroValue = zeroValue;
+    copy.mask = mask;
+    copy.maxFill = maxFill;
+    copy.size = size;
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach((key, value) -> {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(key).append('=').append(value);
+    });
+    return sb.append('}').toString();
+  }
+
+  private int find(long key) {
+    int pos = LongHashing.mix(key) & mask;
+    long current;
+    while ((current = keys[pos]) != 0) {
+      if (current == key) {
+        return pos;
+      }
+      pos = (pos + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void insertAt(int pos, long key, long value) {
+    keys[pos] = key;
+    values[pos] = value;
+    if (++size > maxFill) {
+      rehash(LongHashing.grow(keys.length));
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+    maxFill = LongHashing.maxFill(capacity, loadFactor);
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != 0) {
+        int pos = LongHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+          pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = oldValues[i];
+      }
+    }
+  }
+
+  /** Backward-shift deletion: pulls later entries of the probe run into the freed slot. */
+  private void shiftKeys(int pos) {
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      long current;
+      while (true) {
+        if ((current = keys[pos]) == 0) {
+          keys[last] = 0;
+          return;
+        }
+        int slot = LongHashing.mix(current) & mask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+          break;
+        }
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = current;
+      values[last] = values[pos];
+    }
+  }
+}
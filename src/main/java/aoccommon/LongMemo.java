@@ -0,0 +1,236 @@
+package aoccommon;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A memoization table from one or two packed long keys to a long value, for
+ * recursive solvers. Pack the arguments that determine a result into the
+ * keys (e.g. an index in the high bits and a bitmask in the low bits) rather
+ * than allocating a key object per call.
+ *
+ * <p>An {@link #unbounded} memo keeps everything. A {@link #bounded} memo
+ * is a fixed-size, 4-way set-associative table: when all four slots a key
+ * may occupy are taken, one of them is evicted, so memory stays constant and
+ * evicted results are simply recomputed.
+ *
+ * <p>A named memo reports "name.hits", "name.misses", "name.evictions" and
+ * "name.size" as {@link Stats} counters. Not thread-safe.
+ */
+public final class LongMemo {
+
+  private static final int WAYS = 4;
+
+  private final boolean bounded;
+  private final Stats.Counter hits;
+  private final Stats.Counter misses;
+  private final Stats.Counter evictions;
+  private final Stats.Counter sizeCounter;
+
+  private long[] keys1;
+  private long[] keys2;
+  private long[] values;
+  private boolean[] used;
+  private int mask;
+  private int size;
+  private int maxFill;
+  private int victim;
+
+  private LongMemo(String name, int capacity, boolean bounded) {
+    this.bounded = bounded;
+    if (name != null) {
+      hits = Stats.counter(name + ".hits");
+      misses = Stats.counter(name + ".misses");
+      evictions = Stats.counter(name + ".evictions");
+      sizeCounter = Stats.counter(name + ".size");
+    } else {
+      hits = misses = evictions = sizeCounter = null;
+    }
+    allocate(capacity);
+  }
+
+  /** A memo that never evicts. name may be null to skip Stats reporting. */
+  public static LongMemo unbounded(String name) {
+    return new LongMemo(name, LongHashing.capacityFor(LongHashing.DEFAULT_EXPECTED_SIZE,
+        LongHashing.DEFAULT_LOAD_FACTOR), false);
+  }
+
+  /** A memo holding at most capacity entries (rounded up to a power of two). */
+  public static LongMemo bounded(String name, int capacity) {
+    if (capacity < WAYS) {
+      throw new IllegalArgumentException("capacity must be at least " + WAYS + ": " + capacity);
+    }
+    return new LongMemo(name, Integer.highestOneBit(capacity - 1) << 1, true);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(long key) {
+    return contains(key, 0);
+  }
+
+  public boolean contains(long key1, long key2) {
+    return find(key1, key2) >= 0;
+  }
+
+  public long getOrDefault(long key, long defaultValue) {
+    return getOrDefault(key, 0, defaultValue);
+  }
+
+  public long getOrDefault(long key1, long key2, long defaultValue) {
+    int slot = find(key1, key2);
+    return slot >= 0 ? values[slot] : defaultValue;
+  }
+
+  /**
+   * The memoized value for key, computing and storing it on a miss. compute
+   * may recurse into this memo.
+   */
+  public long computeIfAbsent(long key, LongUnaryOperator compute) {
+    int slot = find(key, 0);
+    if (slot >= 0) {
+      count(hits);
+      return values[slot];
+    }
+    count(misses);
+    long value = compute.applyAsLong(key);
+    put(key, 0, value);
+    return value;
+  }
+
+  /** As {@link #computeIfAbsent(long, LongUnaryOperator)} with a two-long key. */
+  public long computeIfAbsent(long key1, long key2, LongBinaryOperator compute) {
+    int slot = find(key1, key2);
+    if (slot >= 0) {
+      count(hits);
+      return values[slot];
+    }
+    count(misses);
+    long value = compute.applyAsLong(key1, key2);
+    put(key1, key2, value);
+    return value;
+  }
+
+  public void put(long key, long value) {
+    put(key, 0, value);
+  }
+
+  public void put(long key1, long key2, long value) {
+    if (bounded) {
+      putBounded(key1, key2, value);
+    } else {
+      putUnbounded(key1, key2, value);
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(used, false);
+    if (sizeCounter != null) {
+      sizeCounter.add(-size);
+    }
+    size = 0;
+  }
+
+  private void allocate(int capacity) {
+    keys1 = new long[capacity];
+    keys2 = new long[capacity];
+    values = new long[capacity];
+    used = new boolean[capacity];
+    mask = capacity - 1;
+    maxFill = LongHashing.maxFill(capacity, LongHashing.DEFAULT_LOAD_FACTOR);
+  }
+
+  private static int hash(long key1, long key2) {
+    return LongHashing.mix(key1 ^ Long.rotateLeft(key2 * 0xC2B2AE3D27D4EB4FL, 31));
+  }
+
+  private int find(long key1, long key2) {
+    int h = hash(key1, key2);
+    if (bounded) {
+      int set = h & mask & ~(WAYS - 1);
+      for (int slot = set; slot < set + WAYS; slot++) {
+        if (used[slot] && keys1[slot] == key1 && keys2[slot] == key2) {
+          return slot;
+        }
+      }
+      return -1;
+    }
+    for (int slot = h & mask; used[slot]; slot = (slot + 1) & mask) {
+      if (keys1[slot] == key1 && keys2[slot] == key2) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void putBounded(long key1, long key2, long value) {
+    int set = hash(key1, key2) & mask & ~(WAYS - 1);
+    int free = -1;
+    for (int slot = set; slot < set + WAYS; slot++) {
+      if (!used[slot]) {
+        free = free < 0 ? slot : free;
+      } else if (keys1[slot] == key1 && keys2[slot] == key2) {
+        values[slot] = value;
+        return;
+      }
+    }
+    if (free < 0) {
+      // Rotate the victim way so no one slot of a busy set is always the one replaced.
+      free = set + (victim++ & (WAYS - 1));
+      count(evictions);
+    } else {
+      size++;
+      count(sizeCounter);
+    }
+    store(free, key1, key2, value);
+  }
+
+  private void putUnbounded(long key1, long key2, long value) {
+    int slot = hash(key1, key2) & mask;
+    for (; used[slot]; slot = (slot + 1) & mask) {
+      if (keys1[slot] == key1 && keys2[slot] == key2) {
+        values[slot] = value;
+        return;
+      }
+    }
+    store(slot, key1, key2, value);
+    size++;
+    count(sizeCounter);
+    if (size > maxFill) {
+      rehash(LongHashing.grow(keys1.length));
+    }
+  }
+
+  private void store(int slot, long key1, long key2, long value) {
+    keys1[slot] = key1;
+    keys2[slot] = key2;
+    values[slot] = value;
+    used[slot] = true;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys1 = keys1;
+    long[] oldKeys2 = keys2;
+    long[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(capacity);
+    for (int i = 0; i < oldUsed.length; i++) {
+      if (oldUsed[i]) {
+        int slot = hash(oldKeys1[i], oldKeys2[i]) & mask;
+        while (used[slot]) {
+          slot = (slot + 1) & mask;
+        }
+        store(slot, oldKeys1[i], oldKeys2[i], oldValues[i]);
+      }
+    }
+  }
+
+  private static void count(Stats.Counter counter) {
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+}
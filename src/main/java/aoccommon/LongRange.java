@@ -0,0 +1,64 @@
+package aoccommon;
+
+import java.util.Optional;
+
+/**
+ * A non-empty closed range [lower, upper] of longs. See {@link LongRangeSet}
+ * for sets of ranges (which may be empty).
+ */
+public record LongRange(long lower, long upper) {
+  public LongRange {
+    if (lower > upper) {
+      throw new IllegalArgumentException(String.format("lower %d > upper %d", lower, upper));
+    }
+  }
+
+  /** Range [lower, upper] with closed endpoints. */
+  public static LongRange closed(long lower, long upper) {
+    return new LongRange(lower, upper);
+  }
+
+  /** Range [start, start + length), for length >= 1. */
+  public static LongRange ofLength(long start, long length) {
+    if (length < 1) {
+      throw new IllegalArgumentException("length must be positive: " + length);
+    }
+    return new LongRange(start, Math.addExact(start, length - 1));
+  }
+
+  public static LongRange singleton(long value) {
+    return new LongRange(value, value);
+  }
+
+  /** Number of values in the range; throws ArithmeticException if it overflows. */
+  public long size() {
+    return Math.addExact(Math.subtractExact(upper, lower), 1);
+  }
+
+  public boolean contains(long value) {
+    return value >= lower && value <= upper;
+  }
+
+  public boolean contains(LongRange other) {
+    return other.lower >= lower && other.upper <= upper;
+  }
+
+  public boolean overlaps(LongRange other) {
+    return other.lower <= upper && other.upper >= lower;
+  }
+
+  public Optional<LongRange> intersection(LongRange other) {
+    long lo = Math.max(lower, other.lower);
+    long hi = Math.min(upper, other.upper);
+    return lo <= hi ? Optional.of(new LongRange(lo, hi)) : Optional.empty();
+  }
+
+  public LongRange shift(long delta) {
+    return new LongRange(Math.addExact(lower, delta), Math.addExact(upper, delta));
+  }
+
+  @Override
+  public String toString() {
+    return "[" + lower + ".." + upper + "]";
+  }
+}
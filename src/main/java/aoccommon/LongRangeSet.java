@@ -0,0 +1,314 @@
+package aoccommon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * A mutable set of longs stored as sorted, disjoint, non-adjacent closed
+ * ranges in parallel primitive arrays. Adjacent or overlapping ranges are
+ * coalesced on insertion. Membership and locating the ranges touched by an
+ * update are binary searches; set-to-set operations are linear merges.
+ */
+public final class LongRangeSet {
+
+  /** Receives each range of the set in ascending order. */
+  @FunctionalInterface
+  public interface RangeConsumer {
+    void accept(long lower, long upper);
+  }
+
+  private long[] lowers;
+  private long[] uppers;
+  private int count;
+
+  public LongRangeSet() {
+    this(4);
+  }
+
+  private LongRangeSet(int capacity) {
+    lowers = new long[Math.max(1, capacity)];
+    uppers = new long[Math.max(1, capacity)];
+  }
+
+  public static LongRangeSet of(LongRange... ranges) {
+    LongRangeSet set = new LongRangeSet(ranges.length);
+    for (LongRange range : ranges) {
+      set.add(range);
+    }
+    return set;
+  }
+
+  public static LongRangeSet closed(long lower, long upper) {
+    LongRangeSet set = new LongRangeSet(1);
+    set.add(lower, upper);
+    return set;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /** Number of disjoint ranges. */
+  public int rangeCount() {
+    return count;
+  }
+
+  /** Total number of values in the set; throws ArithmeticException if it overflows. */
+  public long size() {
+    long size = 0;
+    for (int i = 0; i < count; i++) {
+      size = Math.addExact(size, Math.addExact(Math.subtractExact(uppers[i], lowers[i]), 1));
+    }
+    return size;
+  }
+
+  public OptionalLong min() {
+    return count == 0 ? OptionalLong.empty() : OptionalLong.of(lowers[0]);
+  }
+
+  public OptionalLong max() {
+    return count == 0 ? OptionalLong.empty() : OptionalLong.of(uppers[count - 1]);
+  }
+
+  public boolean contains(long value) {
+    int i = lastLowerAtMost(value);
+    return i >= 0 && uppers[i] >= value;
+  }
+
+  /** True if every value in [lower, upper] is in the set. */
+  public boolean containsAll(long lower, long upper) {
+    int i = lastLowerAtMost(lower);
+    return i >= 0 && uppers[i] >= upper;
+  }
+
+  /** Adds [lower, upper], coalescing with any overlapping or adjacent ranges. */
+  public void add(long lower, long upper) {
+    if (lower > upper) {
+      throw new IllegalArgumentException(String.format("lower %d > upper %d", lower, upper));
+    }
+    // Ranges i..j (inclusive) overlap or touch the new range.
+    int i = firstUpperAtLeast(lower == Long.MIN_VALUE ? lower : lower - 1);
+    int j = lastLowerAtMost(upper == Long.MAX_VALUE ? upper : upper + 1);
+    if (i > j) {
+      splice(i, i, 1);
+      lowers[i] = lower;
+      uppers[i] = upper;
+      return;
+    }
+    long mergedLower = Math.min(lower, lowers[i]);
+    long mergedUpper = Math.max(upper, uppers[j]);
+    splice(i, j + 1, 1);
+    lowers[i] = mergedLower;
+    uppers[i] = mergedUpper;
+  }
+
+  public void add(LongRange range) {
+    add(range.lower(), range.upper());
+  }
+
+  public void addAll(LongRangeSet other) {
+    for (int i = 0; i < other.count; i++) {
+      add(other.lowers[i], other.uppers[i]);
+    }
+  }
+
+  /** Removes every value in [lower, upper]. */
+  public void remove(long lower, long upper) {
+    if (lower > upper) {
+      return;
+    }
+    int i = firstUpperAtLeast(lower);
+    int j = lastLowerAtMost(upper);
+    if (i > j) {
+      return;
+    }
+    boolean keepLeft = lowers[i] < lower;
+    boolean keepRight = uppers[j] > upper;
+    long leftLower = lowers[i];
+    long rightUpper = uppers[j];
+    int pieces = (keepLeft ? 1 : 0) + (keepRight ? 1 : 0);
+    splice(i, j + 1, pieces);
+    int k = i;
+    if (keepLeft) {
+      lowers[k] = leftLower;
+      uppers[k] = lower - 1;
+      k++;
+    }
+    if (keepRight) {
+      lowers[k] = upper + 1;
+      uppers[k] = rightUpper;
+    }
+  }
+
+  public void remove(LongRange range) {
+    remove(range.lower(), range.upper());
+  }
+
+  public void removeAll(LongRangeSet other) {
+    for (int i = 0; i < other.count; i++) {
+      remove(other.lowers[i], other.uppers[i]);
+    }
+  }
+
+  public void clear() {
+    count = 0;
+  }
+
+  public LongRangeSet copy() {
+    LongRangeSet copy = new LongRangeSet(count);
+    System.arraycopy(lowers, 0, copy.lowers, 0, count);
+    System.arraycopy(uppers, 0, copy.uppers, 0, count);
+    copy.count = count;
+    return copy;
+  }
+
+  public LongRangeSet union(LongRangeSet other) {
+    LongRangeSet result = copy();
+    result.addAll(other);
+    return result;
+  }
+
+  public LongRangeSet intersection(LongRangeSet other) {
+    LongRangeSet result = new LongRangeSet(Math.max(count, other.count));
+    int i = 0;
+    int j = 0;
+    while (i < count && j < other.count) {
+      long lo = Math.max(lowers[i], other.lowers[j]);
+      long hi = Math.min(uppers[i], other.uppers[j]);
+      if (lo <= hi) {
+        result.append(lo, hi);
+      }
+      if (uppers[i] < other.uppers[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return result;
+  }
+
+  public LongRangeSet intersection(long lower, long upper) {
+    return intersection(closed(lower, upper));
+  }
+
+  public LongRangeSet subtract(LongRangeSet other) {
+    LongRangeSet result = copy();
+    result.removeAll(other);
+    return result;
+  }
+
+  /** Values in [lower, upper] that are not in this set. */
+  public LongRangeSet complement(long lower, long upper) {
+    LongRangeSet result = closed(lower, upper);
+    result.removeAll(this);
+    return result;
+  }
+
+  /** A copy with every range moved by delta. */
+  public LongRangeSet shift(long delta) {
+    LongRangeSet result = new LongRangeSet(count);
+    for (int i = 0; i < count; i++) {
+      result.append(Math.addExact(lowers[i], delta), Math.addExact(uppers[i], delta));
+    }
+    return result;
+  }
+
+  public void forEach(RangeConsumer consumer) {
+    for (int i = 0; i < count; i++) {
+      consumer.accept(lowers[i], uppers[i]);
+    }
+  }
+
+  public List<LongRange> ranges() {
+    List<LongRange> ranges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ranges.add(new LongRange(lowers[i], uppers[i]));
+    }
+    return ranges;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = count;
+    for (int i = 0; i < count; i++) {
+      h = 31 * (31 * h + Long.hashCode(lowers[i])) + Long.hashCode(uppers[i]);
+    }
+    return h;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof LongRangeSet)) {
+      return false;
+    }
+    LongRangeSet o = (LongRangeSet) other;
+    return count == o.count
+        && Arrays.equals(lowers, 0, count, o.lowers, 0, count)
+        && Arrays.equals(uppers, 0, count, o.uppers, 0, count);
+  }
+
+  @Override
+  public String toString() {
+    return ranges().toString();
+  }
+
+  /** Appends a range that starts after every existing range starts. */
+  private void append(long lower, long upper) {
+    if (count > 0 && (uppers[count - 1] >= lower || uppers[count - 1] == lower - 1)) {
+      // Overlaps or touches the last range; coalesce.
+      uppers[count - 1] = Math.max(uppers[count - 1], upper);
+      return;
+    }
+    splice(count, count, 1);
+    lowers[count - 1] = lower;
+    uppers[count - 1] = upper;
+  }
+
+  /** Replaces ranges [from, to) with room for replacement ranges starting at from. */
+  private void splice(int from, int to, int replacement) {
+    int newCount = count - (to - from) + replacement;
+    if (newCount > lowers.length) {
+      int capacity = Math.max(newCount, lowers.length * 2);
+      lowers = Arrays.copyOf(lowers, capacity);
+      uppers = Arrays.copyOf(uppers, capacity);
+    }
+    System.arraycopy(lowers, to, lowers, from + replacement, count - to);
+    System.arraycopy(uppers, to, uppers, from + replacement, count - to);
+    count = newCount;
+  }
+
+  /** Index of the first range whose upper >= value, or count if none. */
+  private int firstUpperAtLeast(long value) {
+    int lo = 0;
+    int hi = count;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (uppers[mid] >= value) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+
+  /** Index of the last range whose lower <= value, or -1 if none. */
+  private int lastLowerAtMost(long value) {
+    int lo = 0;
+    int hi = count;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (lowers[mid] <= value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo - 1;
+  }
+}
@@ -1,8 +1,29 @@
 package aoccommon;
 
+import java.math.BigInteger;
+import java.util.Optional;
+
 public class MoreMath {
 
+  /** Result of the extended Euclidean algorithm: gcd = a * x + b * y. */
+  public record ExtendedGcd(long gcd, long x, long y) {}
+
+  /** The set of integers congruent to remainder modulo modulus, with 0 <= remainder < modulus. */
+  public record Congruence(long remainder, long modulus) {
+
+    /** The smallest member of this congruence that is >= minimum. */
+    public long atLeast(long minimum) {
+      if (remainder >= minimum) {
+        return remainder;
+      }
+      long steps = Math.floorDiv(minimum - remainder + modulus - 1, modulus);
+      return Math.addExact(remainder, Math.multiplyExact(steps, modulus));
+    }
+  }
+
   public static long gcd(long a, long b) {
+    a = Math.abs(a);
+    b = Math.abs(b);
     // Euclid's algorithm.
     while (b > 0) {
       long t = b;
@@ -23,8 +44,12 @@ public class MoreMath {
     return gcd;
   }
 
+  /** Least common multiple; throws ArithmeticException rather than overflowing. */
   public static long lcm(long a, long b) {
-    return (a * b) / gcd(a, b);
+    if (a == 0 || b == 0) {
+      return 0;
+    }
+    return Math.abs(Math.multiplyExact(a / gcd(a, b), b));
   }
 
   public static long lcm(long [] input) {
@@ -37,4 +62,180 @@ public class MoreMath {
     }
     return lcm;
   }
+
+  public static ExtendedGcd extendedGcd(long a, long b) {
+    long oldR = a, r = b;
+    long oldS = 1, s = 0;
+    long oldT = 0, t = 1;
+    while (r != 0) {
+      long q = oldR / r;
+      long tmp = r;
+      r = oldR - q * r;
+      oldR = tmp;
+      tmp = s;
+      s = oldS - q * s;
+      oldS = tmp;
+      tmp = t;
+      t = oldT - q * t;
+      oldT = tmp;
+    }
+    if (oldR < 0) {
+      return new ExtendedGcd(-oldR, -oldS, -oldT);
+    }
+    return new ExtendedGcd(oldR, oldS, oldT);
+  }
+
+  /** (a * b) mod m without overflow, for m > 0. Result is in [0, m). */
+  public static long mulMod(long a, long b, long m) {
+    a = Math.floorMod(a, m);
+    b = Math.floorMod(b, m);
+    long high = Math.multiplyHigh(a, b);
+    long low = a * b;
+    if (high == 0 && low >= 0) {
+      return low % m;
+    }
+    return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(BigInteger.valueOf(m)).longValue();
+  }
+
+  /** base^exponent mod m by repeated squaring, for exponent >= 0 and m > 0. */
+  public static long modPow(long base, long exponent, long m) {
+    if (exponent < 0) {
+      throw new ArithmeticException("negative exponent");
+    }
+    long result = 1 % m;
+    base = Math.floorMod(base, m);
+    while (exponent > 0) {
+      if ((exponent & 1) == 1) {
+        result = mulMod(result, base, m);
+      }
+      base = mulMod(base, base, m);
+      exponent >>= 1;
+    }
+    return result;
+  }
+
+  /** x such that a * x = 1 (mod m); throws ArithmeticException if a and m are not coprime. */
+  public static long modInverse(long a, long m) {
+    ExtendedGcd e = extendedGcd(Math.floorMod(a, m), m);
+    if (e.gcd() != 1) {
+      throw new ArithmeticException(a + " has no inverse mod " + m);
+    }
+    return Math.floorMod(e.x(), m);
+  }
+
+  /**
+   * Chinese Remainder Theorem for moduli that need not be coprime: the
+   * combined congruence satisfying x = remainders[i] (mod moduli[i]) for all
+   * i, or empty if the system is inconsistent. Throws ArithmeticException if
+   * the combined modulus does not fit in a long.
+   */
+  public static Optional<Congruence> crt(long[] remainders, long[] moduli) {
+    if (remainders.length != moduli.length) {
+      throw new IllegalArgumentException("mismatched remainders and moduli");
+    }
+    long r = 0;
+    long m = 1;
+    for (int i = 0; i < moduli.length; i++) {
+      if (moduli[i] <= 0) {
+        throw new IllegalArgumentException("moduli must be positive");
+      }
+      long ri = Math.floorMod(remainders[i], moduli[i]);
+      long mi = moduli[i];
+      long g = gcd(m, mi);
+      if ((ri - r) % g != 0) {
+        return Optional.empty();
+      }
+      // Solve r + m * k = ri (mod mi)  =>  (m / g) * k = (ri - r) / g (mod mi / g).
+      long step = mi / g;
+      long k = step == 1 ? 0 : mulMod((ri - r) / g, modInverse((m / g) % step, step), step);
+      long combined = Math.multiplyExact(m, step);
+      long add = mulMod(m, k, combined);
+      r = r >= combined - add ? r - (combined - add) : r + add;
+      m = combined;
+    }
+    return Optional.of(new Congruence(r, m));
+  }
+
+  /**
+   * Leading forward differences of values: result[k] is the k-th difference
+   * at index 0. Throws ArithmeticException on overflow.
+   */
+  public static long[] forwardDifferences(long[] values) {
+    long[] row = values.clone();
+    long[] leading = new long[values.length];
+    for (int k = 0; k < values.length; k++) {
+      leading[k] = row[0];
+      for (int i = 0; i < values.length - k - 1; i++) {
+        row[i] = Math.subtractExact(row[i + 1], row[i]);
+      }
+    }
+    return leading;
+  }
+
+  /**
+   * Given values[i] = f(i) for a polynomial f of degree < values.length,
+   * returns f(x) via Newton's forward-difference formula. Exact for any x.
+   */
+  public static BigInteger extrapolate(long[] values, BigInteger x) {
+    long[] differences = forwardDifferences(values);
+    BigInteger result = BigInteger.ZERO;
+    // C(x, k) built incrementally: C(x, k) = C(x, k - 1) * (x - k + 1) / k.
+    BigInteger choose = BigInteger.ONE;
+    for (int k = 0; k < differences.length; k++) {
+      if (k > 0) {
+        choose = choose.multiply(x.subtract(BigInteger.valueOf(k - 1))).divide(BigInteger.valueOf(k));
+      }
+      result = result.add(choose.multiply(BigInteger.valueOf(differences[k])));
+    }
+    return result;
+  }
+
+  /** As {@link #extrapolate(long[], BigInteger)}, throwing ArithmeticException if f(x) overflows a long. */
+  public static long extrapolate(long[] values, long x) {
+    return extrapolate(values, BigInteger.valueOf(x)).longValueExact();
+  }
+
+  /**
+   * Lagrange interpolation through the points (xs[i], ys[i]) with distinct
+   * xs, evaluated at x. Computed exactly over rationals; throws
+   * ArithmeticException if the result is not an integer.
+   */
+  public static BigInteger lagrange(long[] xs, long[] ys, BigInteger x) {
+    if (xs.length != ys.length || xs.length == 0) {
+      throw new IllegalArgumentException("need matching, non-empty xs and ys");
+    }
+    BigInteger numerator = BigInteger.ZERO;
+    BigInteger denominator = BigInteger.ONE;
+    for (int i = 0; i < xs.length; i++) {
+      BigInteger termNumerator = BigInteger.valueOf(ys[i]);
+      BigInteger termDenominator = BigInteger.ONE;
+      for (int j = 0; j < xs.length; j++) {
+        if (i == j) {
+          continue;
+        }
+        if (xs[i] == xs[j]) {
+          throw new IllegalArgumentException("xs must be distinct");
+        }
+        termNumerator = termNumerator.multiply(x.subtract(BigInteger.valueOf(xs[j])));
+        termDenominator = termDenominator.multiply(BigInteger.valueOf(xs[i]).subtract(BigInteger.valueOf(xs[j])));
+      }
+      // numerator / denominator + termNumerator / termDenominator
+      numerator = numerator.multiply(termDenominator).add(termNumerator.multiply(denominator));
+      denominator = denominator.multiply(termDenominator);
+      BigInteger g = numerator.gcd(denominator);
+      if (g.signum() != 0) {
+        numerator = numerator.divide(g);
+        denominator = denominator.divide(g);
+      }
+    }
+    BigInteger[] qr = numerator.divideAndRemainder(denominator);
+    if (qr[1].signum() != 0) {
+      throw new ArithmeticException("interpolated value is not an integer");
+    }
+    return qr[0];
+  }
+
+  public static long lagrange(long[] xs, long[] ys, long x) {
+    return lagrange(xs, ys, BigInteger.valueOf(x)).longValueExact();
+  }
 }
@@ -0,0 +1,152 @@
+package aoccommon;
+
+/**
+ * Static helpers for 2-dimensional points packed into a single long, for use
+ * on hot paths where allocating a {@link Point} per step is too expensive.
+ * The x coordinate occupies the high 32 bits and y the low 32 bits, so any
+ * pair of ints round-trips exactly. None of these methods allocate.
+ */
+public final class PackedPoint {
+
+  private static final long LOW_MASK = 0xFFFFFFFFL;
+
+  private PackedPoint() {}
+
+  public static long of(int x, int y) {
+    return ((long) x << 32) | (y & LOW_MASK);
+  }
+
+  public static int x(long p) {
+    return (int) (p >> 32);
+  }
+
+  public static int y(long p) {
+    return (int) p;
+  }
+
+  public static long fromPoint(Point point) {
+    if (point.dimensions() != 2) {
+      throw new IllegalArgumentException("Must provide 2-dimensional point");
+    }
+    return of(point.getX(), point.getY());
+  }
+
+  public static Point toPoint(long p) {
+    return Point.of(x(p), y(p));
+  }
+
+  public static long add(long a, long b) {
+    return of(x(a) + x(b), y(a) + y(b));
+  }
+
+  public static long subtract(long a, long b) {
+    return of(x(a) - x(b), y(a) - y(b));
+  }
+
+  public static long translate(long p, int dx, int dy) {
+    return of(x(p) + dx, y(p) + dy);
+  }
+
+  public static long scale(long p, int factor) {
+    return of(x(p) * factor, y(p) * factor);
+  }
+
+  public static long min(long a, long b) {
+    return of(Math.min(x(a), x(b)), Math.min(y(a), y(b)));
+  }
+
+  public static long max(long a, long b) {
+    return of(Math.max(x(a), x(b)), Math.max(y(a), y(b)));
+  }
+
+  public static int manhattanDistance(long a, long b) {
+    return Math.abs(x(a) - x(b)) + Math.abs(y(a) - y(b));
+  }
+
+  public static int chebyshevDistance(long a, long b) {
+    return Math.max(Math.abs(x(a) - x(b)), Math.abs(y(a) - y(b)));
+  }
+
+  /** True if 0 <= x < width and 0 <= y < height. */
+  public static boolean inBounds(long p, int width, int height) {
+    int x = x(p);
+    int y = y(p);
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  public static long move(long p, Direction direction) {
+    return of(x(p) + direction.xd(), y(p) + direction.yd());
+  }
+
+  public static long move(long p, Direction direction, int steps) {
+    return of(x(p) + direction.xd() * steps, y(p) + direction.yd() * steps);
+  }
+
+  /**
+   * Writes the 4 orthogonal neighbours of p into out (in {@link Direction}
+   * order) and returns the number written.
+   */
+  public static int neighbors(long p, long[] out) {
+    int x = x(p);
+    int y = y(p);
+    out[0] = of(x, y - 1);
+    out[1] = of(x + 1, y);
+    out[2] = of(x, y + 1);
+    out[3] = of(x - 1, y);
+    return 4;
+  }
+
+  /**
+   * Writes the 8 orthogonal and diagonal neighbours of p into out (clockwise
+   * starting from the top-left) and returns the number written.
+   */
+  public static int neighborsWithDiagonals(long p, long[] out) {
+    int x = x(p);
+    int y = y(p);
+    out[0] = of(x - 1, y - 1);
+    out[1] = of(x, y - 1);
+    out[2] = of(x + 1, y - 1);
+    out[3] = of(x + 1, y);
+    out[4] = of(x + 1, y + 1);
+    out[5] = of(x, y + 1);
+    out[6] = of(x - 1, y + 1);
+    out[7] = of(x - 1, y);
+    return 8;
+  }
+
+  /**
+   * Writes the in-bounds orthogonal neighbours of p into out and returns the
+   * number written.
+   */
+  public static int neighborsInBounds(long p, int width, int height, long[] out) {
+    int x = x(p);
+    int y = y(p);
+    int n = 0;
+    if (y > 0) {
+      out[n++] = of(x, y - 1);
+    }
+    if (x + 1 < width) {
+      out[n++] = of(x + 1, y);
+    }
+    if (y + 1 < height) {
+      out[n++] = of(x, y + 1);
+    }
+    if (x > 0) {
+      out[n++] = of(x - 1, y);
+    }
+    return n;
+  }
+
+  /** Row-major index of p within a grid of the given width. */
+  public static int index(long p, int width) {
+    return y(p) * width + x(p);
+  }
+
+  public static long fromIndex(int index, int width) {
+    return of(index % width, index / width);
+  }
+
+  public static String toString(long p) {
+    return "[" + x(p) + ", " + y(p) + "]";
+  }
+}
@@ -0,0 +1,115 @@
+package aoccommon;
+
+/**
+ * Static helpers for 3-dimensional points packed into a single long. Each
+ * coordinate is stored as a signed 21-bit value, so coordinates must lie in
+ * [{@link #MIN_COORDINATE}, {@link #MAX_COORDINATE}]. None of these methods
+ * allocate.
+ */
+public final class PackedPoint3D {
+
+  public static final int BITS = 21;
+  public static final int MIN_COORDINATE = -(1 << (BITS - 1));
+  public static final int MAX_COORDINATE = (1 << (BITS - 1)) - 1;
+
+  private static final long MASK = (1L << BITS) - 1;
+  private static final int SHIFT = 64 - BITS;
+
+  private PackedPoint3D() {}
+
+  public static long of(int x, int y, int z) {
+    return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+  }
+
+  /** Like {@link #of(int, int, int)} but throws if a coordinate does not fit. */
+  public static long checkedOf(int x, int y, int z) {
+    checkRange(x);
+    checkRange(y);
+    checkRange(z);
+    return of(x, y, z);
+  }
+
+  public static int x(long p) {
+    return (int) ((p << (SHIFT - 2 * BITS)) >> SHIFT);
+  }
+
+  public static int y(long p) {
+    return (int) ((p << (SHIFT - BITS)) >> SHIFT);
+  }
+
+  public static int z(long p) {
+    return (int) ((p << SHIFT) >> SHIFT);
+  }
+
+  public static long fromPoint(Point point) {
+    if (point.dimensions() != 3) {
+      throw new IllegalArgumentException("Must provide 3-dimensional point");
+    }
+    return checkedOf(point.getX(), point.getY(), point.getZ());
+  }
+
+  public static Point toPoint(long p) {
+    return Point.of(x(p), y(p), z(p));
+  }
+
+  public static long add(long a, long b) {
+    return of(x(a) + x(b), y(a) + y(b), z(a) + z(b));
+  }
+
+  public static long subtract(long a, long b) {
+    return of(x(a) - x(b), y(a) - y(b), z(a) - z(b));
+  }
+
+  public static long translate(long p, int dx, int dy, int dz) {
+    return of(x(p) + dx, y(p) + dy, z(p) + dz);
+  }
+
+  public static long min(long a, long b) {
+    return of(Math.min(x(a), x(b)), Math.min(y(a), y(b)), Math.min(z(a), z(b)));
+  }
+
+  public static long max(long a, long b) {
+    return of(Math.max(x(a), x(b)), Math.max(y(a), y(b)), Math.max(z(a), z(b)));
+  }
+
+  public static int manhattanDistance(long a, long b) {
+    return Math.abs(x(a) - x(b)) + Math.abs(y(a) - y(b)) + Math.abs(z(a) - z(b));
+  }
+
+  /** True if every coordinate of p lies within [min, max] of the bounding box. */
+  public static boolean within(long p, long min, long max) {
+    int x = x(p);
+    int y = y(p);
+    int z = z(p);
+    return x >= x(min) && x <= x(max)
+        && y >= y(min) && y <= y(max)
+        && z >= z(min) && z <= z(max);
+  }
+
+  /**
+   * Writes the 6 face-adjacent neighbours of p into out and returns the number
+   * written.
+   */
+  public static int neighbors(long p, long[] out) {
+    int x = x(p);
+    int y = y(p);
+    int z = z(p);
+    out[0] = of(x + 1, y, z);
+    out[1] = of(x - 1, y, z);
+    out[2] = of(x, y + 1, z);
+    out[3] = of(x, y - 1, z);
+    out[4] = of(x, y, z + 1);
+    out[5] = of(x, y, z - 1);
+    return 6;
+  }
+
+  public static String toString(long p) {
+    return "[" + x(p) + ", " + y(p) + ", " + z(p) + "]";
+  }
+
+  private static void checkRange(int value) {
+    if (value < MIN_COORDINATE || value > MAX_COORDINATE) {
+      throw new IllegalArgumentException("Coordinate out of packable range: " + value);
+    }
+  }
+}
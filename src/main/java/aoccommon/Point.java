@@ -17,17 +17,12 @@ public record Point(IntArray coordinates) {
     return new Point(IntArray.wrap(Arrays.stream(csv.split(",")).mapToInt(Integer::parseInt).toArray()));
   }
 
-  public static Collector<Integer, IntArray.Builder, Point> collect() {
+  public static Collector<Integer, IntList, Point> collect() {
     return Collector.of(
-        () -> IntArray.builder(),
-        (builder, t) -> builder.add(t),
-        (b1, b2) -> {
-          IntArray.Builder builder = IntArray.builder();
-          b1.build().stream().forEach(builder::add);
-          b2.build().stream().forEach(builder::add);
-          return builder;
-        },
-        (builder) -> new Point(builder.build()));
+        IntList::new,
+        IntList::add,
+        IntList::addAll,
+        list -> new Point(list.toIntArray()));
 
   }
 
@@ -106,11 +101,11 @@ public record Point(IntArray coordinates) {
     if (dimensions() != other.dimensions()) {
       throw new IllegalArgumentException("Mismatched number of dimensions for merging");
     }
-    IntArray.Builder builder = IntArray.builder();
-    for (int i = 0; i < dimensions(); i++) {
-      builder.add(operator.applyAsInt(getN(i), other.getN(i)));
+    int[] merged = new int[dimensions()];
+    for (int i = 0; i < merged.length; i++) {
+      merged[i] = operator.applyAsInt(getN(i), other.getN(i));
     }
-    return new Point(builder.build());
+    return Point.of(merged);
   }
 
   @Override
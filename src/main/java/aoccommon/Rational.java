@@ -0,0 +1,103 @@
+package aoccommon;
+
+/**
+ * An exact fraction of longs, always in lowest terms with a positive
+ * denominator. Arithmetic throws ArithmeticException rather than overflowing
+ * or dividing by zero.
+ */
+public record Rational(long numerator, long denominator) implements Comparable<Rational> {
+
+  public static final Rational ZERO = new Rational(0, 1);
+  public static final Rational ONE = new Rational(1, 1);
+
+  public Rational {
+    if (denominator <= 0) {
+      throw new IllegalArgumentException("denominator must be positive; use Rational.of: " + denominator);
+    }
+    // gcd(0, d) is d, so zero is only accepted as 0/1.
+    if (MoreMath.gcd(numerator, denominator) != 1) {
+      throw new IllegalArgumentException(
+          String.format("%d/%d is not in lowest terms; use Rational.of", numerator, denominator));
+    }
+  }
+
+  public static Rational of(long value) {
+    return new Rational(value, 1);
+  }
+
+  public static Rational of(long numerator, long denominator) {
+    if (denominator == 0) {
+      throw new ArithmeticException("zero denominator");
+    }
+    if (numerator == 0) {
+      return ZERO;
+    }
+    long gcd = MoreMath.gcd(numerator, denominator);
+    long n = numerator / gcd;
+    long d = denominator / gcd;
+    return d < 0 ? new Rational(Math.negateExact(n), Math.negateExact(d)) : new Rational(n, d);
+  }
+
+  public boolean isZero() {
+    return numerator == 0;
+  }
+
+  public boolean isInteger() {
+    return denominator == 1;
+  }
+
+  /** The value as a long, throwing ArithmeticException if it is not an integer. */
+  public long longValueExact() {
+    if (!isInteger()) {
+      throw new ArithmeticException(this + " is not an integer");
+    }
+    return numerator;
+  }
+
+  public Rational negate() {
+    return new Rational(Math.negateExact(numerator), denominator);
+  }
+
+  public Rational add(Rational other) {
+    // Scale by the lcm of the denominators, not their product, to keep intermediates small.
+    long gcd = MoreMath.gcd(denominator, other.denominator);
+    long left = Math.multiplyExact(numerator, other.denominator / gcd);
+    long right = Math.multiplyExact(other.numerator, denominator / gcd);
+    return of(Math.addExact(left, right), Math.multiplyExact(denominator, other.denominator / gcd));
+  }
+
+  public Rational subtract(Rational other) {
+    return add(other.negate());
+  }
+
+  public Rational multiply(Rational other) {
+    // Cancel across the two fractions first, so an exact result never overflows needlessly.
+    long g1 = MoreMath.gcd(numerator, other.denominator);
+    long g2 = MoreMath.gcd(other.numerator, denominator);
+    return of(Math.multiplyExact(numerator / g1, other.numerator / g2),
+        Math.multiplyExact(denominator / g2, other.denominator / g1));
+  }
+
+  public Rational divide(Rational other) {
+    if (other.isZero()) {
+      throw new ArithmeticException("division by zero");
+    }
+    return multiply(of(other.denominator, other.numerator));
+  }
+
+  @Override
+  public int compareTo(Rational other) {
+    // Compares the 128-bit cross products: high words signed, then low words unsigned.
+    long high = Math.multiplyHigh(numerator, other.denominator);
+    long otherHigh = Math.multiplyHigh(other.numerator, denominator);
+    if (high != otherHigh) {
+      return Long.compare(high, otherHigh);
+    }
+    return Long.compareUnsigned(numerator * other.denominator, other.numerator * denominator);
+  }
+
+  @Override
+  public String toString() {
+    return isInteger() ? Long.toString(numerator) : numerator + "/" + denominator;
+  }
+}
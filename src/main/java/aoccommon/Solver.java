@@ -0,0 +1,28 @@
+package aoccommon;
+
+/**
+ * Common shape for a day's solution: parse the input once, then compute each
+ * part from the parsed value. Parts should treat the parsed input as
+ * read-only, so they can be run (and timed) independently and in any order.
+ */
+public interface Solver<T> {
+
+  /** Parses the puzzle input held in the given classpath resource. */
+  T parse(String resourceName) throws Exception;
+
+  Object part1(T input) throws Exception;
+
+  Object part2(T input) throws Exception;
+
+  /** The default puzzle input: input.txt alongside the solver's class. */
+  default String inputResource() {
+    return getClass().getPackageName().replace('.', '/') + "/input.txt";
+  }
+
+  /** Solves both parts for the given resource and prints them, for use from main. */
+  static <T> void run(Solver<T> solver, String resourceName) throws Exception {
+    T input = solver.parse(resourceName);
+    System.out.println("Part 1: " + solver.part1(input));
+    System.out.println("Part 2: " + solver.part2(input));
+  }
+}
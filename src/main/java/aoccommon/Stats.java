@@ -1,19 +1,20 @@
 package aoccommon;
 
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class Stats {
   private static final Map<String, Long> ACTIVE = new ConcurrentHashMap<>();
-  private static final Map<String, List<Long>> COMPLETED = new ConcurrentHashMap<>();
+  private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
 
-  private static final Map<String, AtomicLong> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
   private static final Map<String, Map<Object, AtomicLong>> HISTOGRAMS = new ConcurrentHashMap<>();
 
   private static AtomicBoolean printOnExit = new AtomicBoolean(false);
@@ -32,53 +33,277 @@ public class Stats {
     });
   }
 
+  /**
+   * A named counter. Resolve once with {@link Stats#counter(String)} and keep
+   * the handle, so hot loops only pay for a {@link LongAdder} increment.
+   */
+  public static final class Counter {
+    private final LongAdder adder = new LongAdder();
+
+    private Counter() {}
+
+    public void increment() {
+      adder.increment();
+    }
+
+    public void add(long delta) {
+      adder.add(delta);
+    }
+
+    public long get() {
+      return adder.sum();
+    }
+  }
+
+  /**
+   * A named timer recording nanosecond durations into a fixed-size histogram
+   * of logarithmic buckets (8 sub-buckets per power of two, so quantiles are
+   * within 12.5%). Memory use does not grow with the number of samples.
+   */
+  public static final class Timer {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    private Timer() {}
+
+    public void record(long nanos) {
+      if (nanos < 0) {
+        nanos = 0;
+      }
+      buckets.incrementAndGet(bucketIndex(nanos));
+      count.increment();
+      total.add(nanos);
+      min.accumulateAndGet(nanos, Math::min);
+      max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Starts timing; the elapsed time is recorded when the scope is closed. */
+    public Scope start() {
+      return new Scope(this, System.nanoTime());
+    }
+
+    public long count() {
+      return count.sum();
+    }
+
+    public long totalNanos() {
+      return total.sum();
+    }
+
+    public long minNanos() {
+      return count() == 0 ? 0 : min.get();
+    }
+
+    public long maxNanos() {
+      return max.get();
+    }
+
+    public long meanNanos() {
+      long n = count();
+      return n == 0 ? 0 : totalNanos() / n;
+    }
+
+    /** Approximate value at the given quantile in [0, 1]. */
+    public long percentileNanos(double quantile) {
+      long n = count();
+      if (n == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(quantile * n));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= rank) {
+          return Math.max(minNanos(), Math.min(bucketUpperBound(i), maxNanos()));
+        }
+      }
+      return maxNanos();
+    }
+
+    static int bucketIndex(long value) {
+      if (value < SUB_BUCKETS) {
+        return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+      if (index < SUB_BUCKETS) {
+        return index;
+      }
+      int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      long sub = index % SUB_BUCKETS;
+      long lower = (1L << exponent) + (sub << (exponent - SUB_BUCKET_BITS));
+      return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+  }
+
+  /** A running timer for use with try-with-resources. */
+  public static final class Scope implements AutoCloseable {
+    private final Timer timer;
+    private final long start;
+
+    private Scope(Timer timer, long start) {
+      this.timer = timer;
+      this.start = start;
+    }
+
+    @Override
+    public void close() {
+      timer.record(System.nanoTime() - start);
+    }
+  }
+
+  public static Counter counter(String name) {
+    return COUNTERS.computeIfAbsent(name, k -> new Counter());
+  }
+
+  public static Timer timer(String name) {
+    return TIMERS.computeIfAbsent(name, k -> new Timer());
+  }
+
+  /** {@code try (Stats.Scope s = Stats.time("name")) { ... }} */
+  public static Scope time(String name) {
+    return timer(name).start();
+  }
+
   public static void startTimer(String name) {
-    ACTIVE.put(name, System.currentTimeMillis());
+    ACTIVE.put(name, System.nanoTime());
   }
 
   public static void endTimer(String name) {
-    long elapsed = System.currentTimeMillis() - ACTIVE.remove(name);
-    COMPLETED.computeIfAbsent(name, k -> new ArrayList<>()).add(elapsed);
+    long elapsed = System.nanoTime() - ACTIVE.remove(name);
+    timer(name).record(elapsed);
   }
 
   public static void print(PrintStream out) {
-    if (!COMPLETED.isEmpty()) {
+    if (!TIMERS.isEmpty()) {
       out.println("=== TIMERS ===");
-      for (Map.Entry<String, List<Long>> entry : COMPLETED.entrySet()) {
-        if (entry.getValue().size() == 1) {
-          out.println(String.format("[%s]: %dms", entry.getKey(), entry.getValue().get(0)));
+      for (Map.Entry<String, Timer> entry : sorted(TIMERS).entrySet()) {
+        Timer timer = entry.getValue();
+        if (timer.count() == 1) {
+          out.println(String.format("[%s]: %s", entry.getKey(), millis(timer.totalNanos())));
         } else {
-          long min = Long.MAX_VALUE;
-          long max = 0;
-          long sum = 0;
-          for (long value : entry.getValue()) {
-            min = Math.min(value, min);
-            max = Math.max(value, max);
-            sum += value;
-          }
-          long avg = sum / entry.getValue().size();
-          out.println(String.format("[%s]: %dms total, %dms avg, %dms min, %dms max", entry.getKey(), sum, avg, min, max));
+          out.println(String.format("[%s]: %d runs, %s total, %s avg, %s min, %s p50, %s p99, %s max",
+              entry.getKey(), timer.count(), millis(timer.totalNanos()), millis(timer.meanNanos()),
+              millis(timer.minNanos()), millis(timer.percentileNanos(0.5)), millis(timer.percentileNanos(0.99)),
+              millis(timer.maxNanos())));
         }
       }
     }
     if (!COUNTERS.isEmpty()) {
       out.println("=== COUNTERS ===");
-      COUNTERS.entrySet().forEach(e -> out.println(String.format("[%s]: %d", e.getKey(), e.getValue().get())));
+      sorted(COUNTERS).entrySet().forEach(e -> out.println(String.format("[%s]: %d", e.getKey(), e.getValue().get())));
     }
     if (!HISTOGRAMS.isEmpty()) {
       out.println("=== HISTOGRAMS ===");
-      for (Map.Entry<String, Map<Object, AtomicLong>> entry : HISTOGRAMS.entrySet()) {
+      for (Map.Entry<String, Map<Object, AtomicLong>> entry : sorted(HISTOGRAMS).entrySet()) {
         out.print(String.format("[%s]: ", entry.getKey()));
         out.println(entry.getValue().entrySet().stream().map(e -> String.format("%s-%d", e.getKey(), e.getValue().get())).collect(Collectors.joining(", ")));
       }
     }
   }
 
+  /** Writes all timers, counters and histograms as a single JSON object. */
+  public static void printJson(PrintStream out) {
+    out.println("{");
+    out.println("  \"timers\": {");
+    out.println(sorted(TIMERS).entrySet().stream()
+        .map(e -> {
+          Timer t = e.getValue();
+          return String.format(
+              "    %s: {\"count\": %d, \"totalNanos\": %d, \"meanNanos\": %d, \"minNanos\": %d, \"p50Nanos\": %d, \"p99Nanos\": %d, \"maxNanos\": %d}",
+              jsonString(e.getKey()), t.count(), t.totalNanos(), t.meanNanos(), t.minNanos(),
+              t.percentileNanos(0.5), t.percentileNanos(0.99), t.maxNanos());
+        })
+        .collect(Collectors.joining(",\n")));
+    out.println("  },");
+    out.println("  \"counters\": {");
+    out.println(sorted(COUNTERS).entrySet().stream()
+        .map(e -> String.format("    %s: %d", jsonString(e.getKey()), e.getValue().get()))
+        .collect(Collectors.joining(",\n")));
+    out.println("  },");
+    out.println("  \"histograms\": {");
+    out.println(sorted(HISTOGRAMS).entrySet().stream()
+        .map(e -> String.format("    %s: {%s}", jsonString(e.getKey()), e.getValue().entrySet().stream()
+            .map(v -> String.format("%s: %d", jsonString(String.valueOf(v.getKey())), v.getValue().get()))
+            .collect(Collectors.joining(", "))))
+        .collect(Collectors.joining(",\n")));
+    out.println("  }");
+    out.println("}");
+  }
+
+  /**
+   * Writes all stats as CSV rows of {@code type,name,key,value}. Timer rows
+   * use the statistic (count, totalNanos, p50Nanos, ...) as the key.
+   */
+  public static void printCsv(PrintStream out) {
+    out.println("type,name,key,value");
+    for (Map.Entry<String, Timer> entry : sorted(TIMERS).entrySet()) {
+      Timer t = entry.getValue();
+      String name = csvField(entry.getKey());
+      out.println(String.format("timer,%s,count,%d", name, t.count()));
+      out.println(String.format("timer,%s,totalNanos,%d", name, t.totalNanos()));
+      out.println(String.format("timer,%s,meanNanos,%d", name, t.meanNanos()));
+      out.println(String.format("timer,%s,minNanos,%d", name, t.minNanos()));
+      out.println(String.format("timer,%s,p50Nanos,%d", name, t.percentileNanos(0.5)));
+      out.println(String.format("timer,%s,p99Nanos,%d", name, t.percentileNanos(0.99)));
+      out.println(String.format("timer,%s,maxNanos,%d", name, t.maxNanos()));
+    }
+    sorted(COUNTERS).forEach((name, counter) ->
+        out.println(String.format("counter,%s,,%d", csvField(name), counter.get())));
+    sorted(HISTOGRAMS).forEach((name, values) -> values.forEach((value, count) ->
+        out.println(String.format("histogram,%s,%s,%d", csvField(name), csvField(String.valueOf(value)), count.get()))));
+  }
+
   public static void incrementCounter(String name) {
-    COUNTERS.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+    counter(name).increment();
   }
 
   public static void incrementHistogramValue(String name, Object value) {
     HISTOGRAMS.computeIfAbsent(name, k -> new ConcurrentHashMap<>()).computeIfAbsent(value, v -> new AtomicLong()).incrementAndGet();
   }
+
+  private static <V> Map<String, V> sorted(Map<String, V> map) {
+    return new TreeMap<>(map);
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3fms", nanos / 1e6);
+  }
+
+  private static String jsonString(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : s.toCharArray()) {
+      switch (c) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        case '\n' -> sb.append("\\n");
+        default -> {
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+        }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private static String csvField(String s) {
+    if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+      return s;
+    }
+    return "\"" + s.replace("\"", "\"\"") + "\"";
+  }
 }
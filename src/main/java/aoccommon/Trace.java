@@ -0,0 +1,84 @@
+package aoccommon;
+
+import java.util.Locale;
+
+/**
+ * Structured tracing that costs nothing when off. The level is read once from
+ * the aoc.trace system property (off, info, debug or trace; default off) into
+ * static final flags, so the JIT folds a guarded call site away entirely:
+ *
+ * <pre>
+ *   if (Trace.DEBUG) {
+ *     Trace.event("mix.move", value, from, to);
+ *   }
+ * </pre>
+ *
+ * <p>Always guard calls: the guard is what skips argument evaluation. An
+ * event is a name and up to three longs, so recording one neither formats nor
+ * boxes. Events are printed to stderr as they happen, or with
+ * -Daoc.trace.async=true are recorded into a lock-free ring buffer
+ * (-Daoc.trace.buffer slots, default 65536) that a background thread flushes,
+ * keeping I/O off the traced threads. If producers outrun the flusher, the
+ * oldest unflushed events are dropped and counted.
+ *
+ * <p>Unlike {@link Debug}, which is switched on from code for interactive
+ * runs, tracing can be left in solvers that are being benchmarked.
+ */
+public final class Trace {
+
+  public enum Level {
+    OFF, INFO, DEBUG, TRACE
+  }
+
+  public static final Level LEVEL = Level.valueOf(System.getProperty("aoc.trace", "off").toUpperCase(Locale.ROOT));
+  public static final boolean INFO = LEVEL.compareTo(Level.INFO) >= 0;
+  public static final boolean DEBUG = LEVEL.compareTo(Level.DEBUG) >= 0;
+  public static final boolean TRACE = LEVEL.compareTo(Level.TRACE) >= 0;
+
+  private static final TraceRing RING = LEVEL != Level.OFF && Boolean.getBoolean("aoc.trace.async")
+      ? TraceRing.start(Integer.getInteger("aoc.trace.buffer", 1 << 16), System.err)
+      : null;
+  private static final long START = System.nanoTime();
+
+  private Trace() {}
+
+  public static void event(String name) {
+    record(name, 0, 0, 0, 0);
+  }
+
+  public static void event(String name, long a) {
+    record(name, 1, a, 0, 0);
+  }
+
+  public static void event(String name, long a, long b) {
+    record(name, 2, a, b, 0);
+  }
+
+  public static void event(String name, long a, long b, long c) {
+    record(name, 3, a, b, c);
+  }
+
+  /** A free-form message, formatted eagerly; prefer {@link #event} on hot paths. */
+  public static void message(String fmt, Object... args) {
+    record(String.format(fmt, args), 0, 0, 0, 0);
+  }
+
+  private static void record(String name, int arity, long a, long b, long c) {
+    long nanos = System.nanoTime() - START;
+    if (RING != null) {
+      RING.publish(nanos, name, arity, a, b, c);
+    } else {
+      System.err.println(format(nanos, name, arity, a, b, c));
+    }
+  }
+
+  static String format(long nanos, String name, int arity, long a, long b, long c) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%,12d us  ", nanos / 1000)).append(name);
+    long[] args = {a, b, c};
+    for (int i = 0; i < arity; i++) {
+      sb.append(' ').append(args[i]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,117 @@
+package aoccommon;
+
+import java.io.PrintStream;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The multi-producer ring buffer behind asynchronous {@link Trace} events.
+ * Producers claim a sequence number with one atomic increment and fill the
+ * slot it maps to; no producer ever waits. Each slot carries a stamp, -1
+ * while being written and the sequence number once published, which the
+ * flusher re-checks after copying the slot to detect an overwrite.
+ */
+final class TraceRing {
+
+  private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long WRITING = -1;
+
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLongArray stamps;
+  private final long[] times;
+  private final String[] names;
+  private final int[] arities;
+  private final long[] args;
+  private final PrintStream out;
+
+  // Flusher state, guarded by this.
+  private long next;
+  private long dropped;
+
+  private TraceRing(int capacity, PrintStream out) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.mask = size - 1;
+    this.stamps = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      stamps.set(i, WRITING);
+    }
+    this.times = new long[size];
+    this.names = new String[size];
+    this.arities = new int[size];
+    this.args = new long[3 * size];
+    this.out = out;
+  }
+
+  /** A ring flushed to out by a daemon thread, and once more on shutdown. */
+  static TraceRing start(int capacity, PrintStream out) {
+    TraceRing ring = new TraceRing(capacity, out);
+    Thread flusher = new Thread(() -> {
+      while (true) {
+        ring.flush();
+        LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+      }
+    }, "trace-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(ring::flush));
+    return ring;
+  }
+
+  void publish(long nanos, String name, int arity, long a, long b, long c) {
+    long sequence = claimed.getAndIncrement();
+    int slot = (int) (sequence & mask);
+    stamps.set(slot, WRITING);
+    VarHandle.storeStoreFence();
+    times[slot] = nanos;
+    names[slot] = name;
+    arities[slot] = arity;
+    args[3 * slot] = a;
+    args[3 * slot + 1] = b;
+    args[3 * slot + 2] = c;
+    stamps.set(slot, sequence);
+  }
+
+  /** Prints every event published in order since the last flush, stopping at one still being written. */
+  synchronized void flush() {
+    long end = claimed.get();
+    if (end - next > mask + 1) {
+      // Producers lapped the flusher; those slots now hold newer events.
+      dropped += end - next - (mask + 1);
+      next = end - (mask + 1);
+    }
+    while (next < end) {
+      int slot = (int) (next & mask);
+      long stamp = stamps.get(slot);
+      if (stamp != next) {
+        if (stamp > next) {
+          dropped++;
+          next++;
+          continue;
+        }
+        break;
+      }
+      long nanos = times[slot];
+      String name = names[slot];
+      int arity = arities[slot];
+      long a = args[3 * slot];
+      long b = args[3 * slot + 1];
+      long c = args[3 * slot + 2];
+      VarHandle.loadLoadFence();
+      if (stamps.get(slot) != stamp) {
+        dropped++;
+      } else {
+        out.println(Trace.format(nanos, name, arity, a, b, c));
+      }
+      next++;
+    }
+    if (dropped > 0) {
+      out.println("trace: dropped " + dropped + " events");
+      dropped = 0;
+    }
+    out.flush();
+  }
+}
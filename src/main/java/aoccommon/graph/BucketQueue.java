@@ -0,0 +1,95 @@
+package aoccommon.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A monotone priority queue of int values with non-negative int priorities
+ * (Dial's algorithm). Priorities pushed must be no smaller than the last one
+ * popped, which holds for Dijkstra and for A* with a consistent heuristic.
+ * Buckets form a ring covering [current, current + capacity); the ring grows
+ * when a priority lands beyond it, so push and pop are amortized O(1) plus
+ * the gaps skipped between priorities.
+ */
+public final class BucketQueue {
+
+  private int[][] buckets;
+  private int[] sizes;
+  private int current;
+  private int size;
+
+  public BucketQueue() {
+    this(16);
+  }
+
+  /** capacity should exceed the largest difference between live priorities, e.g. the maximum edge weight. */
+  public BucketQueue(int capacity) {
+    buckets = new int[Math.max(1, capacity)][];
+    sizes = new int[buckets.length];
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void push(int value, int priority) {
+    if (priority < current) {
+      throw new IllegalArgumentException(String.format("priority %d is below current %d", priority, current));
+    }
+    if (priority - current >= buckets.length) {
+      grow(priority - current + 1);
+    }
+    int slot = priority % buckets.length;
+    int[] bucket = buckets[slot];
+    if (bucket == null) {
+      bucket = buckets[slot] = new int[4];
+    } else if (sizes[slot] == bucket.length) {
+      bucket = buckets[slot] = Arrays.copyOf(bucket, bucket.length * 2);
+    }
+    bucket[sizes[slot]++] = value;
+    size++;
+  }
+
+  /** Removes a value with the lowest priority; {@link #priority()} then returns that priority. */
+  public int pop() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    int slot = current % buckets.length;
+    while (sizes[slot] == 0) {
+      current++;
+      slot = current % buckets.length;
+    }
+    size--;
+    return buckets[slot][--sizes[slot]];
+  }
+
+  /** The priority of the value last popped (the lowest priority still allowed to be pushed). */
+  public int priority() {
+    return current;
+  }
+
+  public void clear() {
+    Arrays.fill(sizes, 0);
+    current = 0;
+    size = 0;
+  }
+
+  private void grow(int minCapacity) {
+    int capacity = Math.max(minCapacity, buckets.length * 2);
+    int[][] newBuckets = new int[capacity][];
+    int[] newSizes = new int[capacity];
+    // Every live bucket's priority lies in [current, current + old capacity).
+    for (int p = current; p < current + buckets.length; p++) {
+      int slot = p % buckets.length;
+      newBuckets[p % capacity] = buckets[slot];
+      newSizes[p % capacity] = sizes[slot];
+    }
+    buckets = newBuckets;
+    sizes = newSizes;
+  }
+}
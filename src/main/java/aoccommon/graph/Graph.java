@@ -0,0 +1,18 @@
+package aoccommon.graph;
+
+/**
+ * A directed graph over int node ids in [0, nodeCount). Edges are generated
+ * on demand, so grids and state spaces never need to be materialized.
+ */
+@FunctionalInterface
+public interface Graph {
+
+  /** Receives one edge; weight is ignored by unweighted searches. */
+  @FunctionalInterface
+  interface EdgeConsumer {
+    void accept(int to, int weight);
+  }
+
+  /** Reports every edge leaving node to edges. */
+  void forEachEdge(int node, EdgeConsumer edges);
+}
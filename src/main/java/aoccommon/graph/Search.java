@@ -0,0 +1,256 @@
+package aoccommon.graph;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Shortest-path searches over a {@link Graph} with int node ids. Distances
+ * and parents live in primitive arrays sized by nodeCount, and the frontier
+ * is an int queue, deque or {@link BucketQueue}, so no objects are created
+ * per node or per edge.
+ *
+ * <p>Every search stops as soon as a node matching isTarget is settled; pass
+ * {@link #NO_TARGET} to explore everything reachable.
+ */
+public final class Search {
+
+  /** Distance of nodes the search did not reach. */
+  public static final int UNREACHED = Integer.MAX_VALUE;
+
+  public static final IntPredicate NO_TARGET = node -> false;
+
+  private Search() {}
+
+  public static SearchResult bfs(int nodeCount, Graph graph, int source, IntPredicate isTarget) {
+    return bfs(nodeCount, graph, new int[] {source}, isTarget);
+  }
+
+  /** Breadth-first search from every source at once; edge weights are ignored. */
+  public static SearchResult bfs(int nodeCount, Graph graph, int[] sources, IntPredicate isTarget) {
+    Bfs bfs = new Bfs(nodeCount);
+    for (int source : sources) {
+      if (bfs.distances[source] == UNREACHED) {
+        bfs.distances[source] = 0;
+        bfs.queue[bfs.tail++] = source;
+      }
+    }
+    for (int head = 0; head < bfs.tail; head++) {
+      int node = bfs.queue[head];
+      bfs.settled[node] = true;
+      if (isTarget.test(node)) {
+        return new SearchResult(bfs.distances, bfs.parents, bfs.settled, node);
+      }
+      bfs.current = node;
+      graph.forEachEdge(node, bfs);
+    }
+    return new SearchResult(bfs.distances, bfs.parents, bfs.settled, -1);
+  }
+
+  public static SearchResult zeroOneBfs(int nodeCount, Graph graph, int source, IntPredicate isTarget) {
+    return zeroOneBfs(nodeCount, graph, new int[] {source}, isTarget);
+  }
+
+  /** Shortest paths when every edge weight is 0 or 1, using a deque instead of a priority queue. */
+  public static SearchResult zeroOneBfs(int nodeCount, Graph graph, int[] sources, IntPredicate isTarget) {
+    ZeroOneBfs bfs = new ZeroOneBfs(nodeCount);
+    for (int source : sources) {
+      bfs.distances[source] = 0;
+      bfs.pushLast(source);
+    }
+    while (bfs.size > 0) {
+      int node = bfs.popFirst();
+      if (bfs.settled[node]) {
+        continue;
+      }
+      bfs.settled[node] = true;
+      if (isTarget.test(node)) {
+        return new SearchResult(bfs.distances, bfs.parents, bfs.settled, node);
+      }
+      bfs.current = node;
+      graph.forEachEdge(node, bfs);
+    }
+    return new SearchResult(bfs.distances, bfs.parents, bfs.settled, -1);
+  }
+
+  public static SearchResult dijkstra(int nodeCount, Graph graph, int source, IntPredicate isTarget) {
+    return dijkstra(nodeCount, graph, new int[] {source}, isTarget);
+  }
+
+  /**
+   * Dijkstra's algorithm over non-negative int weights, with a bucket queue
+   * in place of a binary heap. Best when weights are small.
+   */
+  public static SearchResult dijkstra(int nodeCount, Graph graph, int[] sources, IntPredicate isTarget) {
+    return bestFirst(nodeCount, graph, sources, isTarget, null);
+  }
+
+  /**
+   * A* search. heuristic must never overestimate the remaining distance to a
+   * target and must be consistent (h(a) <= weight(a, b) + h(b)), so that each
+   * node is settled once with its final distance.
+   */
+  public static SearchResult aStar(int nodeCount, Graph graph, int source, IntPredicate isTarget,
+      IntUnaryOperator heuristic) {
+    return bestFirst(nodeCount, graph, new int[] {source}, isTarget, heuristic);
+  }
+
+  private static SearchResult bestFirst(int nodeCount, Graph graph, int[] sources, IntPredicate isTarget,
+      IntUnaryOperator heuristic) {
+    BestFirst search = new BestFirst(nodeCount, heuristic);
+    for (int source : sources) {
+      search.distances[source] = 0;
+      search.queue.push(source, search.estimate(source, 0));
+    }
+    while (!search.queue.isEmpty()) {
+      int node = search.queue.pop();
+      if (search.settled[node]) {
+        continue;
+      }
+      search.settled[node] = true;
+      if (isTarget.test(node)) {
+        return new SearchResult(search.distances, search.parents, search.settled, node);
+      }
+      search.current = node;
+      graph.forEachEdge(node, search);
+    }
+    return new SearchResult(search.distances, search.parents, search.settled, -1);
+  }
+
+  private static int[] unreached(int nodeCount) {
+    int[] distances = new int[nodeCount];
+    Arrays.fill(distances, UNREACHED);
+    return distances;
+  }
+
+  private static int[] noParents(int nodeCount) {
+    int[] parents = new int[nodeCount];
+    Arrays.fill(parents, -1);
+    return parents;
+  }
+
+  private static final class Bfs implements Graph.EdgeConsumer {
+    final int[] distances;
+    final int[] parents;
+    final boolean[] settled;
+    // Each node is enqueued at most once.
+    final int[] queue;
+    int tail;
+    int current;
+
+    Bfs(int nodeCount) {
+      distances = unreached(nodeCount);
+      parents = noParents(nodeCount);
+      settled = new boolean[nodeCount];
+      queue = new int[nodeCount];
+    }
+
+    @Override
+    public void accept(int to, int weight) {
+      if (distances[to] == UNREACHED) {
+        distances[to] = distances[current] + 1;
+        parents[to] = current;
+        queue[tail++] = to;
+      }
+    }
+  }
+
+  private static final class ZeroOneBfs implements Graph.EdgeConsumer {
+    final int[] distances;
+    final int[] parents;
+    final boolean[] settled;
+    // Ring buffer deque; a node may be queued again each time its distance improves.
+    int[] deque = new int[16];
+    int head;
+    int size;
+    int current;
+
+    ZeroOneBfs(int nodeCount) {
+      distances = unreached(nodeCount);
+      parents = noParents(nodeCount);
+      settled = new boolean[nodeCount];
+    }
+
+    @Override
+    public void accept(int to, int weight) {
+      if (weight != 0 && weight != 1) {
+        throw new IllegalArgumentException("0-1 BFS edge weight must be 0 or 1: " + weight);
+      }
+      int distance = distances[current] + weight;
+      if (distance < distances[to]) {
+        distances[to] = distance;
+        parents[to] = current;
+        if (weight == 0) {
+          pushFirst(to);
+        } else {
+          pushLast(to);
+        }
+      }
+    }
+
+    void pushFirst(int node) {
+      ensureCapacity();
+      head = (head - 1) & (deque.length - 1);
+      deque[head] = node;
+      size++;
+    }
+
+    void pushLast(int node) {
+      ensureCapacity();
+      deque[(head + size) & (deque.length - 1)] = node;
+      size++;
+    }
+
+    int popFirst() {
+      int node = deque[head];
+      head = (head + 1) & (deque.length - 1);
+      size--;
+      return node;
+    }
+
+    private void ensureCapacity() {
+      if (size < deque.length) {
+        return;
+      }
+      int[] grown = new int[deque.length * 2];
+      for (int i = 0; i < size; i++) {
+        grown[i] = deque[(head + i) & (deque.length - 1)];
+      }
+      deque = grown;
+      head = 0;
+    }
+  }
+
+  private static final class BestFirst implements Graph.EdgeConsumer {
+    final int[] distances;
+    final int[] parents;
+    final boolean[] settled;
+    final BucketQueue queue = new BucketQueue();
+    final IntUnaryOperator heuristic;
+    int current;
+
+    BestFirst(int nodeCount, IntUnaryOperator heuristic) {
+      distances = unreached(nodeCount);
+      parents = noParents(nodeCount);
+      settled = new boolean[nodeCount];
+      this.heuristic = heuristic;
+    }
+
+    int estimate(int node, int distance) {
+      return heuristic == null ? distance : distance + heuristic.applyAsInt(node);
+    }
+
+    @Override
+    public void accept(int to, int weight) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("negative edge weight: " + weight);
+      }
+      int distance = distances[current] + weight;
+      if (distance < distances[to]) {
+        distances[to] = distance;
+        parents[to] = current;
+        queue.push(to, estimate(to, distance));
+      }
+    }
+  }
+}
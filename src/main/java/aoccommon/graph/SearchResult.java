@@ -0,0 +1,76 @@
+package aoccommon.graph;
+
+/**
+ * Distances and parents recorded by a {@link Search}. Only nodes settled
+ * before the search stopped count as reached; the rest, including frontier
+ * nodes holding a tentative distance after an early stop at a target, have
+ * distance {@link Search#UNREACHED} and no parent.
+ */
+public final class SearchResult {
+
+  private final int[] distances;
+  private final int[] parents;
+  private final boolean[] settled;
+  private final int target;
+
+  SearchResult(int[] distances, int[] parents, boolean[] settled, int target) {
+    this.distances = distances;
+    this.parents = parents;
+    this.settled = settled;
+    this.target = target;
+  }
+
+  /** The target node the search stopped at, or -1 if no target was reached. */
+  public int target() {
+    return target;
+  }
+
+  public boolean foundTarget() {
+    return target >= 0;
+  }
+
+  /** Distance to the target reached, or {@link Search#UNREACHED}. */
+  public int targetDistance() {
+    return target >= 0 ? distances[target] : Search.UNREACHED;
+  }
+
+  public int distance(int node) {
+    return settled[node] ? distances[node] : Search.UNREACHED;
+  }
+
+  public boolean reached(int node) {
+    return settled[node];
+  }
+
+  /** The node before node on its shortest path, or -1 for sources and unreached nodes. */
+  public int parent(int node) {
+    return settled[node] ? parents[node] : -1;
+  }
+
+  /** The nodes of the shortest path from a source to node, inclusive, or an empty array if unreached. */
+  public int[] path(int node) {
+    if (!reached(node)) {
+      return new int[0];
+    }
+    int length = 1;
+    for (int n = parents[node]; n >= 0; n = parents[n]) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int n = node; n >= 0; n = parents[n]) {
+      path[--length] = n;
+    }
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    int reached = 0;
+    for (boolean isSettled : settled) {
+      if (isSettled) {
+        reached++;
+      }
+    }
+    return String.format("SearchResult[target=%d, distance=%d, reached=%d]", target, targetDistance(), reached);
+  }
+}
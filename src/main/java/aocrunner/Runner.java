@@ -0,0 +1,217 @@
+package aocrunner;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import aoccommon.Solver;
+import com.sun.management.OperatingSystemMXBean;
+
+/**
+ * Runs any subset of the solvers in a single JVM and reports the answer, wall
+ * time and CPU time of each part. Solvers implementing {@link Solver} are
+ * timed per phase (parse, part 1, part 2); the rest are run through their main
+ * method as a single phase with their printed output as the answer.
+ *
+ * <p>Run one at a time, the CPU column is the whole process's CPU time, so it
+ * includes work solvers hand to the common fork-join pool (and, less usefully,
+ * the JIT and garbage collector). With {@code --parallel} the solvers share
+ * the process, so the column falls back to the CPU time of the thread running
+ * each solver, which misses anything that solver does on other threads.
+ *
+ * <p>Usage: {@code Runner [YYYY | YYYY.DD ...] [--parallel[=threads]]}. With
+ * no filters every solver on the classpath is run.
+ */
+public class Runner {
+
+  private static final Pattern FILTER = Pattern.compile("(\\d{4})(?:\\.(\\d{1,2}))?");
+  private static final Pattern SOLVER_CLASS = Pattern.compile("aoc(\\d{4})\\.day(\\d{2})\\..*");
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final OperatingSystemMXBean PROCESS =
+      (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+  private record Filter(int year, int day) {
+    boolean matches(int y, int d) {
+      return year == y && (day == 0 || day == d);
+    }
+  }
+
+  private record Phase(String name, String answer, long wallNanos, long cpuNanos) {}
+
+  private record Result(String solver, List<Phase> phases, Throwable error) {}
+
+  public static void main(String[] args) throws Exception {
+    List<Filter> filters = new ArrayList<>();
+    int parallelism = 1;
+    for (String arg : args) {
+      if (arg.equals("--parallel")) {
+        parallelism = Runtime.getRuntime().availableProcessors();
+      } else if (arg.startsWith("--parallel=")) {
+        parallelism = Integer.parseInt(arg.substring("--parallel=".length()));
+      } else {
+        Matcher m = FILTER.matcher(arg);
+        if (!m.matches()) {
+          throw new IllegalArgumentException("Unrecognized argument: " + arg);
+        }
+        filters.add(new Filter(Integer.parseInt(m.group(1)), m.group(2) == null ? 0 : Integer.parseInt(m.group(2))));
+      }
+    }
+
+    List<String> solvers = SolverDiscovery.discover().stream()
+        .filter(name -> selected(name, filters))
+        .toList();
+    if (solvers.isEmpty()) {
+      System.err.println("No solvers matched.");
+      return;
+    }
+
+    LongSupplier cpuClock = parallelism > 1 ? THREADS::getCurrentThreadCpuTime : PROCESS::getProcessCpuTime;
+
+    PrintStream out = System.out;
+    // Output is captured per thread, so anything a solver prints from a pool
+    // thread (e.g. inside a parallel stream) escapes to the console instead.
+    ThreadCapturingOutputStream capture = new ThreadCapturingOutputStream(out);
+    System.setOut(new PrintStream(capture, true));
+
+    long start = System.nanoTime();
+    List<Result> results = new ArrayList<>();
+    if (parallelism > 1) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<Future<Result>> futures = solvers.stream()
+            .<Future<Result>>map(name -> pool.submit(() -> run(name, capture, cpuClock)))
+            .toList();
+        for (Future<Result> future : futures) {
+          results.add(future.get());
+        }
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        pool.shutdown();
+      }
+    } else {
+      for (String name : solvers) {
+        results.add(run(name, capture, cpuClock));
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    System.setOut(out);
+
+    report(out, results, elapsed, parallelism);
+  }
+
+  private static boolean selected(String className, List<Filter> filters) {
+    if (filters.isEmpty()) {
+      return true;
+    }
+    Matcher m = SOLVER_CLASS.matcher(className);
+    if (!m.matches()) {
+      return false;
+    }
+    int year = Integer.parseInt(m.group(1));
+    int day = Integer.parseInt(m.group(2));
+    return filters.stream().anyMatch(f -> f.matches(year, day));
+  }
+
+  private static Result run(String className, ThreadCapturingOutputStream capture, LongSupplier cpuClock) {
+    List<Phase> phases = new ArrayList<>();
+    try {
+      Class<?> clazz = Class.forName(className);
+      if (Solver.class.isAssignableFrom(clazz)) {
+        runSolver((Solver<?>) newInstance(clazz), phases, capture, cpuClock);
+      } else {
+        runMain(clazz, phases, capture, cpuClock);
+      }
+      return new Result(className, phases, null);
+    } catch (InvocationTargetException e) {
+      return new Result(className, phases, e.getCause());
+    } catch (Exception | Error e) {
+      return new Result(className, phases, e);
+    } finally {
+      capture.stopCapture();
+    }
+  }
+
+  private static <T> void runSolver(Solver<T> solver, List<Phase> phases, ThreadCapturingOutputStream capture,
+      LongSupplier cpuClock) throws Exception {
+    // Capture (and discard) anything the solver prints while it is being timed.
+    capture.startCapture();
+    long wall = System.nanoTime();
+    long cpu = cpuClock.getAsLong();
+    T input = solver.parse(solver.inputResource());
+    phases.add(new Phase("parse", "", System.nanoTime() - wall, cpuClock.getAsLong() - cpu));
+
+    wall = System.nanoTime();
+    cpu = cpuClock.getAsLong();
+    Object part1 = solver.part1(input);
+    phases.add(new Phase("part 1", String.valueOf(part1), System.nanoTime() - wall, cpuClock.getAsLong() - cpu));
+
+    wall = System.nanoTime();
+    cpu = cpuClock.getAsLong();
+    Object part2 = solver.part2(input);
+    phases.add(new Phase("part 2", String.valueOf(part2), System.nanoTime() - wall, cpuClock.getAsLong() - cpu));
+  }
+
+  private static void runMain(Class<?> clazz, List<Phase> phases, ThreadCapturingOutputStream capture,
+      LongSupplier cpuClock) throws Exception {
+    Method main = clazz.getDeclaredMethod("main", String[].class);
+    if (!Modifier.isStatic(main.getModifiers())) {
+      throw new IllegalStateException("main is not static");
+    }
+    main.setAccessible(true);
+    capture.startCapture();
+    long wall = System.nanoTime();
+    long cpu = cpuClock.getAsLong();
+    main.invoke(null, (Object) new String[0]);
+    long wallNanos = System.nanoTime() - wall;
+    long cpuNanos = cpuClock.getAsLong() - cpu;
+    String output = capture.stopCapture().strip().replace(System.lineSeparator(), " | ");
+    phases.add(new Phase("main", output, wallNanos, cpuNanos));
+  }
+
+  private static Object newInstance(Class<?> clazz) throws ReflectiveOperationException {
+    var constructor = clazz.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    return constructor.newInstance();
+  }
+
+  private static void report(PrintStream out, List<Result> results, long elapsedNanos, int parallelism) {
+    long totalWall = 0;
+    long totalCpu = 0;
+    int failures = 0;
+    // Thread CPU time only counts the thread that ran the solver; see the class comment.
+    String cpu = parallelism > 1 ? "CALLER CPU" : "CPU";
+    out.println(String.format("%-40s %-7s %12s %12s  %s", "SOLVER", "PHASE", "WALL", cpu, "ANSWER"));
+    for (Result result : results) {
+      for (Phase phase : result.phases()) {
+        out.println(String.format("%-40s %-7s %12s %12s  %s", result.solver(), phase.name(),
+            millis(phase.wallNanos()), millis(phase.cpuNanos()), phase.answer()));
+        totalWall += phase.wallNanos();
+        totalCpu += phase.cpuNanos();
+      }
+      if (result.error() != null) {
+        failures++;
+        out.println(String.format("%-40s %-7s %s", result.solver(), "FAILED", result.error()));
+      }
+    }
+    out.println(String.format("%d solvers, %d failed. Sum of phases: %s wall, %s %s. Elapsed: %s on %d thread(s).",
+        results.size(), failures, millis(totalWall), millis(totalCpu), cpu.toLowerCase(), millis(elapsedNanos),
+        parallelism));
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3fms", nanos / 1e6);
+  }
+}
@@ -0,0 +1,81 @@
+package aocrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Finds solver classes ({@code aocYYYY.dayNN.SomeName}) by scanning the
+ * directories and jars on the classpath, following manifest Class-Path
+ * entries so launcher jars are handled too.
+ */
+final class SolverDiscovery {
+
+  private static final Pattern CLASS_FILE = Pattern.compile("aoc\\d{4}/day\\d{2}/[A-Z]\\w*\\.class");
+
+  private SolverDiscovery() {}
+
+  /** Fully-qualified solver class names, sorted by year and day. */
+  static List<String> discover() throws IOException {
+    Set<String> classNames = new TreeSet<>();
+    Set<Path> seen = new HashSet<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        scan(Path.of(entry).toAbsolutePath().normalize(), classNames, seen);
+      }
+    }
+    return new ArrayList<>(classNames);
+  }
+
+  private static void scan(Path path, Set<String> classNames, Set<Path> seen) throws IOException {
+    if (!seen.add(path) || !Files.exists(path)) {
+      return;
+    }
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> files = Files.walk(path)) {
+        files.map(p -> path.relativize(p).toString().replace(File.separatorChar, '/'))
+            .filter(name -> CLASS_FILE.matcher(name).matches())
+            .forEach(name -> classNames.add(toClassName(name)));
+      }
+      return;
+    }
+    try (JarFile jar = new JarFile(path.toFile())) {
+      jar.stream()
+          .map(e -> e.getName())
+          .filter(name -> CLASS_FILE.matcher(name).matches())
+          .forEach(name -> classNames.add(toClassName(name)));
+      Manifest manifest = jar.getManifest();
+      String classPath = manifest == null ? null : manifest.getMainAttributes().getValue("Class-Path");
+      if (classPath != null) {
+        for (String relative : classPath.trim().split("\\s+")) {
+          if (!relative.isEmpty()) {
+            scan(resolve(path, relative), classNames, seen);
+          }
+        }
+      }
+    }
+  }
+
+  private static Path resolve(Path jar, String classPathEntry) {
+    String entry = classPathEntry.startsWith("file:") ? classPathEntry.substring("file:".length()) : classPathEntry;
+    Path resolved = Path.of(entry);
+    if (!resolved.isAbsolute() && jar.getParent() != null) {
+      resolved = jar.getParent().resolve(resolved);
+    }
+    return resolved.toAbsolutePath().normalize();
+  }
+
+  private static String toClassName(String classFile) {
+    return classFile.substring(0, classFile.length() - ".class".length()).replace('/', '.');
+  }
+}
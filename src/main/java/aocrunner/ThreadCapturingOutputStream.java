@@ -0,0 +1,75 @@
+package aocrunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * Routes writes from threads that have called {@link #startCapture()} into a
+ * per-thread buffer, and everything else to the delegate. Lets solvers that
+ * only have a main method print their answers while running in parallel.
+ */
+final class ThreadCapturingOutputStream extends OutputStream {
+
+  private final OutputStream delegate;
+  private final ThreadLocal<ByteArrayOutputStream> captured = new ThreadLocal<>();
+
+  ThreadCapturingOutputStream(OutputStream delegate) {
+    this.delegate = delegate;
+  }
+
+  void startCapture() {
+    captured.set(new ByteArrayOutputStream());
+  }
+
+  String stopCapture() {
+    ByteArrayOutputStream buffer = captured.get();
+    captured.remove();
+    return buffer == null ? "" : buffer.toString(Charset.defaultCharset());
+  }
+
+  @Override
+  public void write(int b) {
+    ByteArrayOutputStream buffer = captured.get();
+    if (buffer != null) {
+      buffer.write(b);
+    } else {
+      synchronized (delegate) {
+        try {
+          delegate.write(b);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    ByteArrayOutputStream buffer = captured.get();
+    if (buffer != null) {
+      buffer.write(b, off, len);
+    } else {
+      synchronized (delegate) {
+        try {
+          delegate.write(b, off, len);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    synchronized (delegate) {
+      try {
+        delegate.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -25,14 +25,21 @@ if language == "java":
     print(f"Writing BUILD ...")
     build = os.path.join(directory, "BUILD")
     f = open(build, "w")
-    f.write(f"java_binary(\n")
-    f.write(f"    name = \"{classname}\",\n")
+    f.write(f"java_library(\n")
+    f.write(f"    name = \"lib\",\n")
     f.write(f"    srcs = [\"{classname}.java\"],\n")
     f.write(f"    resources = glob([\"*.txt\"]),\n")
+    f.write(f"    visibility = [\"//src:__subpackages__\"],\n")
     f.write(f"    deps = [\n")
     f.write(f"        \"//src/main/java/aoccommon:aoccommon\",\n")
     f.write(f"    ],\n")
     f.write(f")\n")
+    f.write(f"\n")
+    f.write(f"java_binary(\n")
+    f.write(f"    name = \"{classname}\",\n")
+    f.write(f"    main_class = \"aoc%d.day%02d.{classname}\",\n" % (year, day))
+    f.write(f"    runtime_deps = [\":lib\"],\n")
+    f.write(f")\n")
     f.close()
 
     print(f"Writing {classname}.java ...")
@@ -40,13 +47,34 @@ if language == "java":
     f = open(file, "w")
     f.write(f"package aoc%d.day%02d;\n" % (year, day))
     f.write(f"\n")
+    f.write(f"import java.util.List;\n")
+    f.write(f"\n")
+    f.write(f"import aoccommon.InputHelper;\n")
+    f.write(f"import aoccommon.Solver;\n")
+    f.write(f"\n")
     f.write(f"/** Solution for {{@link {aoc_url}}}. */\n")
-    f.write(f"public class {classname} {{\n")
+    f.write(f"public class {classname} implements Solver<List<String>> {{\n")
     f.write(f"\n")
     f.write(f"  private static final String INPUT = \"{package}/input.txt\";\n")
     f.write(f"  // private static final String EXAMPLE = \"{package}/example.txt\";\n")
     f.write(f"\n")
     f.write(f"  public static void main(String [] args) throws Exception {{\n")
+    f.write(f"    Solver.run(new {classname}(), INPUT);\n")
+    f.write(f"  }}\n")
+    f.write(f"\n")
+    f.write(f"  @Override\n")
+    f.write(f"  public List<String> parse(String resourceName) throws Exception {{\n")
+    f.write(f"    return InputHelper.linesFromResource(resourceName).toList();\n")
+    f.write(f"  }}\n")
+    f.write(f"\n")
+    f.write(f"  @Override\n")
+    f.write(f"  public Object part1(List<String> input) {{\n")
+    f.write(f"    return null;\n")
+    f.write(f"  }}\n")
+    f.write(f"\n")
+    f.write(f"  @Override\n")
+    f.write(f"  public Object part2(List<String> input) {{\n")
+    f.write(f"    return null;\n")
     f.write(f"  }}\n")
     f.write(f"}}\n")
     f.close()